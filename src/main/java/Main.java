@@ -1,18 +1,20 @@
-import edu.byu.cs.autograder.GradingException;
+import edu.byu.cs.autograder.compile.MavenCache;
+import edu.byu.cs.autograder.database.SandboxDatabasePool;
+import edu.byu.cs.controller.GradingEventRelay;
+import edu.byu.cs.controller.TrafficController;
 import edu.byu.cs.server.endpointprovider.EndpointProvider;
 import edu.byu.cs.server.endpointprovider.EndpointProviderImpl;
 import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.properties.ApplicationProperties;
 import edu.byu.cs.server.Server;
-import edu.byu.cs.service.SubmissionService;
+import edu.byu.cs.service.ConfigService;
 import edu.byu.cs.util.ResourceUtils;
 import org.apache.commons.cli.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.Properties;
 
 public class Main {
@@ -20,9 +22,14 @@ public class Main {
 
     private static EndpointProvider endpointProvider = new EndpointProviderImpl();
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         ResourceUtils.copyResourceFiles("phases", new File(""));
         setupProperties(args);
+        TrafficController.Role role = getRole();
+        TrafficController.getInstance().setRole(role);
+        if (role != TrafficController.Role.WEB && ApplicationProperties.runCompilation()) {
+            MavenCache.warmUp(new File("phases"));
+        }
 
         try {
             DaoService.initializeSqlDAOs();
@@ -31,13 +38,45 @@ public class Main {
             throw new RuntimeException(e);
         }
 
+        try {
+            TrafficController.getInstance().setGraderThreadCount(ConfigService.getGraderThreadCount());
+        } catch (DataAccessException e) {
+            LOGGER.error("Error loading grader thread count, defaulting to a single grader", e);
+        }
+        if (role != TrafficController.Role.WEB) {
+            SandboxDatabasePool.warmUp(TrafficController.getInstance().getGraderThreadCount());
+        }
+
+        if (role == TrafficController.Role.WORKER) {
+            LOGGER.info("Grading submissions from the queue as a worker");
+            TrafficController.getInstance().startIdleGraders();
+            // Idle graders check the queue on a schedule, so there is nothing left for this thread to do
+            Thread.currentThread().join();
+            return;
+        }
+
         new Server(endpointProvider).start(8080);
 
-        try {
-            SubmissionService.reRunSubmissionsInQueue();
-        } catch (IOException | DataAccessException | GradingException e) {
-            LOGGER.error("Error rerunning submissions already in queue", e);
+        if (role == TrafficController.Role.WEB) {
+            try {
+                new GradingEventRelay().start();
+            } catch (DataAccessException e) {
+                LOGGER.error("Error starting the grading event relay", e);
+                throw new RuntimeException(e);
+            }
+        }
+
+        // Submissions this server was grading when it stopped are graded again once their leases run out
+        TrafficController.getInstance().startIdleGraders();
+    }
+
+    private static TrafficController.Role getRole() {
+        if (ApplicationProperties.worker() && ApplicationProperties.webOnly()) {
+            throw new IllegalArgumentException("A server can't be both a worker and web only");
         }
+        if (ApplicationProperties.worker()) return TrafficController.Role.WORKER;
+        if (ApplicationProperties.webOnly()) return TrafficController.Role.WEB;
+        return TrafficController.Role.STANDALONE;
     }
 
     private static void setupProperties(String[] args) {
@@ -63,6 +102,15 @@ public class Main {
             if (cmd.hasOption("db-pass")) {
                 properties.setProperty("db-pass", cmd.getOptionValue("db-pass"));
             }
+            if (cmd.hasOption("db-pool-size")) {
+                properties.setProperty("db-pool-size", cmd.getOptionValue("db-pool-size"));
+            }
+            if (cmd.hasOption("db-trace-borrows")) {
+                properties.setProperty("db-trace-borrows", "true");
+            }
+            if (cmd.hasOption("config-cache-ttl")) {
+                properties.setProperty("config-cache-ttl", cmd.getOptionValue("config-cache-ttl"));
+            }
             if (cmd.hasOption("frontend-url")) {
                 properties.setProperty("frontend-url", cmd.getOptionValue("frontend-url"));
             }
@@ -78,6 +126,27 @@ public class Main {
             if (cmd.hasOption("disable-compilation")) {
                 properties.setProperty("run-compilation", "false");
             }
+            if (cmd.hasOption("compile-in-process")) {
+                properties.setProperty("compile-in-process", "true");
+            }
+            if (cmd.hasOption("warm-test-jvm")) {
+                properties.setProperty("warm-test-jvm", "true");
+            }
+            if (cmd.hasOption("maven-repo")) {
+                properties.setProperty("maven-repo", cmd.getOptionValue("maven-repo"));
+            }
+            if (cmd.hasOption("student-heap-mb")) {
+                properties.setProperty("student-heap-mb", cmd.getOptionValue("student-heap-mb"));
+            }
+            if (cmd.hasOption("student-max-threads")) {
+                properties.setProperty("student-max-threads", cmd.getOptionValue("student-max-threads"));
+            }
+            if (cmd.hasOption("worker")) {
+                properties.setProperty("worker", "true");
+            }
+            if (cmd.hasOption("web-only")) {
+                properties.setProperty("web-only", "true");
+            }
         } catch (ParseException e) {
             throw new RuntimeException("Error parsing command line arguments", e);
         }
@@ -92,11 +161,21 @@ public class Main {
         options.addOption(null, "db-name", true, "Database Name");
         options.addOption(null, "db-user", true, "Database User");
         options.addOption(null, "db-pass", true, "Database Password");
+        options.addOption(null, "db-pool-size", true, "Maximum Database Connections");
+        options.addOption(null, "db-trace-borrows", false, "Log Where Database Connections Held Too Long Were Borrowed");
+        options.addOption(null, "config-cache-ttl", true, "Seconds To Cache Configuration, When Sharing A Database (Default 30 With --worker Or --web-only)");
         options.addOption(null, "frontend-url", true, "Frontend URL");
         options.addOption(null, "cas-callback-url", true, "CAS Callback URL");
         options.addOption(null, "canvas-token", true, "Canvas Token");
         options.addOption(null, "use-canvas", true, "Using Canvas");
         options.addOption(null, "disable-compilation", false, "Turn off student code compilation");
+        options.addOption(null, "compile-in-process", false, "Compile student code inside the autograder instead of with maven");
+        options.addOption(null, "warm-test-jvm", false, "Run student tests in a JVM started before it is needed instead of a new one");
+        options.addOption(null, "maven-repo", true, "Local Maven Repository Shared By Grading Runs");
+        options.addOption(null, "student-heap-mb", true, "Maximum Heap Size In Megabytes Of Each JVM Run For A Submission");
+        options.addOption(null, "student-max-threads", true, "Maximum Threads A Process Run For A Submission May Use");
+        options.addOption(null, "worker", false, "Only grade submissions from the shared queue, without serving the website");
+        options.addOption(null, "web-only", false, "Serve the website and relay progress from workers without grading");
         return options;
     }
 
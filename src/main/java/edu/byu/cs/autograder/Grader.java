@@ -11,6 +11,7 @@ import edu.byu.cs.autograder.score.Scorer;
 import edu.byu.cs.autograder.test.PassoffTestGrader;
 import edu.byu.cs.autograder.test.PreviousPhasePassoffTestGrader;
 import edu.byu.cs.autograder.test.UnitTestGrader;
+import edu.byu.cs.controller.TrafficController;
 import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.model.Phase;
@@ -20,6 +21,7 @@ import edu.byu.cs.model.Submission;
 import edu.byu.cs.properties.ApplicationProperties;
 import edu.byu.cs.util.FileUtils;
 import edu.byu.cs.util.PhaseUtils;
+import edu.byu.cs.util.ProcessLauncher;
 import edu.byu.cs.util.RepoUrlValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,7 +29,12 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A template for fetching, compiling, and running student code
@@ -35,6 +42,12 @@ import java.util.EnumMap;
 public class Grader implements Runnable {
     private static final Logger LOGGER = LoggerFactory.getLogger(Grader.class);
 
+    /**
+     * The most recently issued salt. Several graders can run at once, so each one needs its own
+     * stage directory even when they are created in the same second.
+     */
+    private static final AtomicLong lastSalt = new AtomicLong();
+
     /** DEV ONLY. Default: true. Skips compilation and evaluation of student projects. */
     private final boolean RUN_COMPILATION = ApplicationProperties.runCompilation();
 
@@ -61,7 +74,7 @@ public class Grader implements Runnable {
             repoUrl = RepoUrlValidator.clean(repoUrl);
         }
         String phasesPath = new File("./phases").getCanonicalPath();
-        long salt = Instant.now().getEpochSecond();
+        long salt = nextSalt();
         String stagePath = new File("./tmp-" + repoUrl.hashCode() + "-" + salt).getCanonicalPath();
         File stageRepo = new File(stagePath, "repo");
 
@@ -69,31 +82,37 @@ public class Grader implements Runnable {
         CommitVerificationConfig cvConfig = PhaseUtils.shouldVerifyCommits(phase) ?
                 PhaseUtils.verificationConfig(phase) : null;
         this.observer = observer;
+        ProcessLauncher processLauncher = new ProcessLauncher(new ProcessLauncher.ResourceLimits(
+                ApplicationProperties.studentHeapMb(), cpuBudget(), ApplicationProperties.studentMaxThreads()));
         this.gradingContext = new GradingContext(
                     netId, phase, phasesPath, stagePath, repoUrl, stageRepo,
-                    cvConfig, observer, admin);
+                    cvConfig, observer, admin, processLauncher);
 
         // Init helpers
-        this.dbHelper = new DatabaseHelper(salt, gradingContext);
+        this.dbHelper = new DatabaseHelper(gradingContext);
         this.gitHelper = new GitHelper(gradingContext);
         this.compileHelper = new CompileHelper(gradingContext);
     }
 
+    private static long nextSalt() {
+        long now = Instant.now().getEpochSecond();
+        return lastSalt.updateAndGet(previous -> Math.max(previous + 1, now));
+    }
+
     public void run() {
         observer.notifyStarted();
         CommitVerificationResult commitVerificationResult = null;
         try {
-            // FIXME: remove this sleep. currently the grader is too quick for the client to keep up
-            Thread.sleep(1000);
             commitVerificationResult = gitHelper.setUpAndVerifyHistory();
             dbHelper.setUp();
             if (RUN_COMPILATION && gradingContext.phase() != Phase.GitHub) {
                 compileHelper.compile();
-                new PreviousPhasePassoffTestGrader(gradingContext).runTests();
             }
 
             RubricConfig rubricConfig = DaoService.getRubricConfigDao().getRubricConfig(gradingContext.phase());
             Rubric rubric = evaluateProject(RUN_COMPILATION ? rubricConfig : null, commitVerificationResult);
+            // Another grader has the submission now, so its score must not be sent to Canvas or saved twice
+            if (observer.isAbandoned()) return;
 
             Submission submission = new Scorer(gradingContext).score(rubric, commitVerificationResult);
             DaoService.getSubmissionDao().insertSubmission(submission);
@@ -116,29 +135,120 @@ public class Grader implements Runnable {
             return new Rubric(new EnumMap<>(Rubric.RubricType.class), false, "No Rubric Config");
         }
 
+        List<Evaluation> evaluations = new ArrayList<>();
+        if (gradingContext.phase() != Phase.GitHub) {
+            evaluations.add(new Evaluation(null, true,
+                    () -> new PreviousPhasePassoffTestGrader(gradingContext).runTests()));
+        }
+
         for(Rubric.RubricType type : Rubric.RubricType.values()) {
             RubricConfig.RubricConfigItem configItem = rubricConfig.items().get(type);
             if(configItem != null) {
-                Rubric.Results results = switch (type) {
+                Evaluation evaluation = switch (type) {
                     // TODO: How can we fully remove this switch statement and rely on passed-in definitions instead
                     // This code is violating the open-closed principle.
-                    case PASSOFF_TESTS -> new PassoffTestGrader(gradingContext).runTests();
-                    case UNIT_TESTS -> new UnitTestGrader(gradingContext).runTests();
-                    case QUALITY -> new QualityGrader(gradingContext).runQualityChecks();
-                    case GITHUB_REPO -> new GitHubAssignmentGrader().grade(commitVerificationResult);
+                    case PASSOFF_TESTS -> new Evaluation(type, true, () -> new PassoffTestGrader(gradingContext).runTests());
+                    case UNIT_TESTS -> new Evaluation(type, true, () -> new UnitTestGrader(gradingContext).runTests());
+                    case QUALITY -> new Evaluation(type, false, () -> new QualityGrader(gradingContext).runQualityChecks());
+                    case GITHUB_REPO -> new Evaluation(type, false, () -> new GitHubAssignmentGrader().grade(commitVerificationResult));
                     case GIT_COMMITS, GRADING_ISSUE -> null;
                     // TODO: (end) This is the end of what we want to remove.
                 };
-                if (results != null) {
-                    rubricItems.put(type, new Rubric.RubricItem(configItem.category(), results, configItem.criteria()));
+                if (evaluation != null) {
+                    evaluations.add(evaluation);
                 }
             }
         }
 
+        for (Map.Entry<Rubric.RubricType, Rubric.Results> entry : runEvaluations(evaluations).entrySet()) {
+            RubricConfig.RubricConfigItem configItem = rubricConfig.items().get(entry.getKey());
+            rubricItems.put(entry.getKey(), new Rubric.RubricItem(configItem.category(), entry.getValue(), configItem.criteria()));
+        }
+
         return new Rubric(rubricItems, false, "");
     }
 
+    /**
+     * Runs the evaluations of a submission, in parallel where possible. Test suites of phases that use the
+     * database share the submission's single database, so those run one after another. The number of
+     * evaluations running at once is limited to this submission's share of the available processors.
+     * <br>
+     * Failures are reported in the order the evaluations were given, so the previous phase tests failing
+     * takes precedence over anything else going wrong.
+     * <br>
+     * Lanes are fixed once grading starts. Changing the submission in the queue after it has been claimed,
+     * such as an admin requeuing it with another priority, takes away this grader's lease instead. Once the
+     * grader is abandoned for losing its lease, no more evaluations start, and what has run is discarded.
+     *
+     * @param evaluations the evaluations to run
+     * @return the results of every evaluation that produced some, by rubric type
+     */
+    private Map<Rubric.RubricType, Rubric.Results> runEvaluations(List<Evaluation> evaluations)
+            throws GradingException, DataAccessException {
+        boolean sharedDatabase = PhaseUtils.usesDatabase(gradingContext.phase());
+        List<List<Evaluation>> lanes = new ArrayList<>();
+        List<Evaluation> databaseLane = new ArrayList<>();
+        for (Evaluation evaluation : evaluations) {
+            if (sharedDatabase && evaluation.runsStudentCode()) {
+                if (databaseLane.isEmpty()) lanes.add(databaseLane);
+                databaseLane.add(evaluation);
+            } else {
+                lanes.add(List.of(evaluation));
+            }
+        }
+
+        int parallelism = Math.max(1, Math.min(lanes.size(), cpuBudget()));
+        EnumMap<Rubric.RubricType, Rubric.Results> results = new EnumMap<>(Rubric.RubricType.class);
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            List<Future<Map<Rubric.RubricType, Rubric.Results>>> futures = new ArrayList<>();
+            for (List<Evaluation> lane : lanes) {
+                futures.add(executor.submit(() -> runLane(lane)));
+            }
+            for (Future<Map<Rubric.RubricType, Rubric.Results>> future : futures) {
+                results.putAll(future.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof GradingException ge) throw ge;
+            if (e.getCause() instanceof DataAccessException de) throw de;
+            throw new GradingException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GradingException(e);
+        }
+        return results;
+    }
+
+    private Map<Rubric.RubricType, Rubric.Results> runLane(List<Evaluation> lane) throws Exception {
+        Map<Rubric.RubricType, Rubric.Results> results = new EnumMap<>(Rubric.RubricType.class);
+        for (Evaluation evaluation : lane) {
+            if (observer.isAbandoned()) break;
+            Rubric.Results result = evaluation.grader().call();
+            if (evaluation.type() != null && result != null) {
+                results.put(evaluation.type(), result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return the number of processors available to a single submission while others are being graded
+     */
+    private static int cpuBudget() {
+        int graders = TrafficController.getInstance().getGraderThreadCount();
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / graders);
+    }
+
+    /**
+     * Something that grades part of a submission
+     *
+     * @param type            the rubric item the results go under, or null if the results are not recorded
+     * @param runsStudentCode whether the evaluation runs the student's code (and so may reach its database)
+     * @param grader          produces the results, or null if there are none
+     */
+    private record Evaluation(Rubric.RubricType type, boolean runsStudentCode, Callable<Rubric.Results> grader) {}
+
     private void handleException(GradingException ge, CommitVerificationResult cvr) {
+        if (observer.isAbandoned()) return;
         if(cvr == null) {
             observer.notifyError(ge.getMessage());
             return;
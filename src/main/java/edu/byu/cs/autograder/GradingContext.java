@@ -2,6 +2,7 @@ package edu.byu.cs.autograder;
 
 import edu.byu.cs.autograder.git.CommitVerificationConfig;
 import edu.byu.cs.model.Phase;
+import edu.byu.cs.util.ProcessLauncher;
 
 import java.io.File;
 
@@ -15,6 +16,7 @@ import java.io.File;
  * @param verificationConfig Several variables related to commit verification
  * @param observer        Used to notify the user of changes as the game is played.
  * @param admin           If the submission is an admin submission
+ * @param processLauncher Runs the submission's processes under its resource limits, and records what they used
  */
 public record GradingContext(
         String netId,
@@ -29,5 +31,6 @@ public record GradingContext(
 
         // Others
         GradingObserver observer,
-        boolean admin
+        boolean admin,
+        ProcessLauncher processLauncher
 ) { }
@@ -0,0 +1,54 @@
+package edu.byu.cs.autograder;
+
+import edu.byu.cs.model.Submission;
+import edu.byu.cs.util.Serializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The messages graders send to students over the websocket, shared by the observers that deliver them
+ */
+final class GradingMessages {
+
+    private GradingMessages() {}
+
+    static Map<String, Object> started() {
+        return Map.of("type", "started");
+    }
+
+    static Map<String, Object> update(String message) {
+        return Map.of("type", "update", "message", message);
+    }
+
+    static Map<String, Object> warning(String message) {
+        return Map.of("type", "warning", "message", message);
+    }
+
+    static Map<String, Object> error(String message) {
+        return error(message, Map.of());
+    }
+
+    static Map<String, Object> error(String message, Submission submission) {
+        return error(message, Map.of("results", Serializer.serialize(submission)));
+    }
+
+    static Map<String, Object> results(Submission submission) {
+        return Map.of("type", "results", "results", Serializer.serialize(submission));
+    }
+
+    /**
+     * @return whether the message is the last one a grader sends
+     */
+    static boolean isFinal(Map<String, Object> message) {
+        Object type = message.get("type");
+        return "results".equals(type) || "error".equals(type);
+    }
+
+    private static Map<String, Object> error(String message, Map<String, Object> contents) {
+        contents = new HashMap<>(contents);
+        contents.put("type", "error");
+        contents.put("message", message);
+        return contents;
+    }
+}
@@ -50,4 +50,14 @@ public interface GradingObserver {
      * @param submission A submission to send to the student, reporting status to the student without saving anywhere.
      */
     void notifyDone(Submission submission);
+
+    /**
+     * Whether the submission is no longer this grader's to grade, such as when another grader has taken it over.
+     * The grader should stop without saving or sending anything else.
+     *
+     * @return true if the grader's results would be ignored
+     */
+    default boolean isAbandoned() {
+        return false;
+    }
 }
@@ -1,14 +1,18 @@
 package edu.byu.cs.autograder;
 
 import edu.byu.cs.controller.TrafficController;
+import edu.byu.cs.controller.WebSocketController;
 import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.model.Submission;
-import edu.byu.cs.util.Serializer;
+import org.eclipse.jetty.websocket.api.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class GradingObserverImpl implements GradingObserver {
@@ -17,76 +21,129 @@ public class GradingObserverImpl implements GradingObserver {
 
     private final String netId;
 
-    public GradingObserverImpl(String netId) {
+    private final String leaseOwner;
+
+    /**
+     * Every message sent to the subscribers so far. The grader does not wait for the client to connect,
+     * so sessions that subscribe late are caught up from this list.
+     */
+    private final List<Map<String, Object>> sentMessages = new ArrayList<>();
+
+    /**
+     * When grading started, or null if it hasn't
+     */
+    private volatile Instant started;
+
+    /**
+     * @param netId      the netId being graded
+     * @param leaseOwner the claim the submission was given to, or null if the observer only relays messages
+     *                   from a grader on a worker
+     */
+    public GradingObserverImpl(String netId, String leaseOwner) {
         this.netId = netId;
+        this.leaseOwner = leaseOwner;
+        TrafficController.getInstance().registerObserver(netId, this);
     }
 
-    @Override
-    public void notifyStarted() {
-        try {
-            DaoService.getQueueDao().markStarted(netId);
-        } catch (DataAccessException e) {
-            LOGGER.error("Error marking queue item as started", e);
-            return;
+    /**
+     * Subscribes a session to this grader's updates and replays the messages it has missed.
+     * Nothing is replayed if the session was already subscribed.
+     *
+     * @param session the session subscribing
+     */
+    public void subscribe(Session session) {
+        synchronized (sentMessages) {
+            boolean added = TrafficController.getInstance().addSession(netId, session);
+            boolean finished = !TrafficController.sessions.containsKey(netId);
+            if (!added && !finished) return;
+
+            for (Map<String, Object> message : sentMessages) {
+                WebSocketController.send(session, message);
+            }
         }
+    }
 
-        notifySubscribers(Map.of("type", "started"));
-
-        try {
-            TrafficController.broadcastQueueStatus();
-        } catch (Exception e) {
-            LOGGER.error("Error broadcasting queue status", e);
-        }
+    @Override
+    public void notifyStarted() {
+        started = Instant.now();
+        notifySubscribers(GradingMessages.started());
+        TrafficController.getInstance().queueChanged();
     }
 
     @Override
     public void update(String message) {
-        notifySubscribers(Map.of("type", "update", "message", message));
+        notifySubscribers(GradingMessages.update(message));
     }
 
     @Override
     public void notifyError(String message) {
-        notifyError(message, Map.of());
+        notifySubscribers(GradingMessages.error(message));
+        removeFromQueue();
     }
 
     @Override
     public void notifyError(String message, Submission submission) {
-        notifyError(message, Map.of("results", Serializer.serialize(submission)));
-    }
-
-    private void notifyError(String message, Map<String, Object> contents) {
-        contents = new HashMap<>(contents);
-        contents.put("type", "error");
-        contents.put("message", message);
-        notifySubscribers(contents);
+        notifySubscribers(GradingMessages.error(message, submission));
         removeFromQueue();
     }
 
     @Override
     public void notifyWarning(String message) {
-        notifySubscribers(Map.of("type", "warning", "message", message));
+        notifySubscribers(GradingMessages.warning(message));
     }
 
     @Override
     public void notifyDone(Submission submission) {
-        notifySubscribers(Map.of("type", "results", "results", Serializer.serialize(submission)));
+        notifySubscribers(GradingMessages.results(submission));
         removeFromQueue();
     }
 
+    /**
+     * Sends subscribers a message published by a grader running on a worker. The worker removes
+     * the submission from the queue itself once it's done.
+     *
+     * @param message the message the worker's grader sent
+     */
+    public void relay(Map<String, Object> message) {
+        notifySubscribers(message);
+        if ("started".equals(message.get("type"))) {
+            started = Instant.now();
+            TrafficController.getInstance().queueChanged();
+        } else if (GradingMessages.isFinal(message)) {
+            finish();
+        }
+    }
+
     private void notifySubscribers(Map<String, Object> contents) {
-        try {
-            TrafficController.getInstance().notifySubscribers(netId, contents);
-        } catch (Exception e) {
-            LOGGER.error("Error updating subscribers", e);
+        synchronized (sentMessages) {
+            sentMessages.add(contents);
+            try {
+                TrafficController.getInstance().notifySubscribers(netId, contents);
+            } catch (Exception e) {
+                LOGGER.error("Error updating subscribers", e);
+            }
         }
     }
 
     private void removeFromQueue() {
-        TrafficController.sessions.remove(netId);
         try {
-            DaoService.getQueueDao().remove(netId);
+            if (!DaoService.getQueueDao().remove(netId, leaseOwner)) {
+                LOGGER.warn("{}'s submission was no longer held by this grader, so it was left in the queue", netId);
+            }
         } catch (DataAccessException e) {
             LOGGER.error("Error removing queue item", e);
         }
+        finish();
+    }
+
+    private void finish() {
+        synchronized (sentMessages) {
+            TrafficController.sessions.remove(netId);
+        }
+        if (started != null) {
+            TrafficController.getInstance().recordGradingDuration(Duration.between(started, Instant.now()));
+        }
+        TrafficController.getInstance().releaseObserver(netId, this);
+        TrafficController.getInstance().queueChanged();
     }
 }
@@ -0,0 +1,61 @@
+package edu.byu.cs.autograder;
+
+import edu.byu.cs.model.Submission;
+
+/**
+ * Reports on a grader that holds a lease on its submission in the queue. Once the lease is lost, the
+ * submission may already be graded by someone else, so nothing more is reported and the grader is told
+ * it has been abandoned.
+ */
+public class LeasedGradingObserver implements GradingObserver {
+
+    private final GradingObserver delegate;
+
+    private volatile boolean abandoned = false;
+
+    public LeasedGradingObserver(GradingObserver delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Stops reporting anything the grader sends, since it no longer holds its submission
+     */
+    public void abandon() {
+        abandoned = true;
+    }
+
+    @Override
+    public boolean isAbandoned() {
+        return abandoned;
+    }
+
+    @Override
+    public void notifyStarted() {
+        if (!abandoned) delegate.notifyStarted();
+    }
+
+    @Override
+    public void update(String message) {
+        if (!abandoned) delegate.update(message);
+    }
+
+    @Override
+    public void notifyError(String message) {
+        if (!abandoned) delegate.notifyError(message);
+    }
+
+    @Override
+    public void notifyError(String message, Submission submission) {
+        if (!abandoned) delegate.notifyError(message, submission);
+    }
+
+    @Override
+    public void notifyWarning(String message) {
+        if (!abandoned) delegate.notifyWarning(message);
+    }
+
+    @Override
+    public void notifyDone(Submission submission) {
+        if (!abandoned) delegate.notifyDone(submission);
+    }
+}
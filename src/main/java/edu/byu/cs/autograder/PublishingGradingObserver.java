@@ -0,0 +1,83 @@
+package edu.byu.cs.autograder;
+
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.Submission;
+import edu.byu.cs.util.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Reports on a grader running on a worker, which has no websockets of its own. Each message is published
+ * to the {@link edu.byu.cs.dataAccess.GradingEventDao} for the web server to relay to the student.
+ */
+public class PublishingGradingObserver implements GradingObserver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PublishingGradingObserver.class);
+
+    private final String netId;
+
+    private final String leaseOwner;
+
+    /**
+     * @param netId      the netId being graded
+     * @param leaseOwner the claim the submission was given to
+     */
+    public PublishingGradingObserver(String netId, String leaseOwner) {
+        this.netId = netId;
+        this.leaseOwner = leaseOwner;
+    }
+
+    @Override
+    public void notifyStarted() {
+        publish(GradingMessages.started());
+    }
+
+    @Override
+    public void update(String message) {
+        publish(GradingMessages.update(message));
+    }
+
+    @Override
+    public void notifyError(String message) {
+        publish(GradingMessages.error(message));
+        removeFromQueue();
+    }
+
+    @Override
+    public void notifyError(String message, Submission submission) {
+        publish(GradingMessages.error(message, submission));
+        removeFromQueue();
+    }
+
+    @Override
+    public void notifyWarning(String message) {
+        publish(GradingMessages.warning(message));
+    }
+
+    @Override
+    public void notifyDone(Submission submission) {
+        publish(GradingMessages.results(submission));
+        removeFromQueue();
+    }
+
+    private void publish(Map<String, Object> message) {
+        try {
+            DaoService.getGradingEventDao().insertEvent(netId, Serializer.serialize(message));
+        } catch (DataAccessException e) {
+            LOGGER.error("Error publishing grading event for {}", netId, e);
+        }
+    }
+
+    private void removeFromQueue() {
+        try {
+            if (!DaoService.getQueueDao().remove(netId, leaseOwner)) {
+                LOGGER.warn("{}'s submission was no longer held by this grader, so it was left in the queue", netId);
+            }
+        } catch (DataAccessException e) {
+            LOGGER.error("Error removing queue item", e);
+        }
+    }
+}
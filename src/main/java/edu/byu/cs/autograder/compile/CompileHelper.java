@@ -12,8 +12,14 @@ import edu.byu.cs.util.ProcessUtils;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class CompileHelper {
+    /**
+     * Bytes of maven output kept from each end of the output, which is only used for logging
+     */
+    private static final int MAX_OUTPUT_BYTES = 16384;
+
     private final GradingContext gradingContext;
 
     public CompileHelper(GradingContext gradingContext) {
@@ -55,18 +61,27 @@ public class CompileHelper {
 
 
     /**
-     * Packages the student repo into a jar
+     * Packages the student repo into a jar. Once the shared maven cache is warm this runs offline,
+     * falling back to an online build if the cache turns out to be missing something.
      */
     private void packageRepo() throws GradingException {
         gradingContext.observer().update("Compiling code...");
 
-        ProcessBuilder processBuilder = new ProcessBuilder();
-        processBuilder.directory(gradingContext.stageRepo());
-        processBuilder.command("mvn", "package", "-DskipTests");
+        if (InProcessCompiler.canPackage()) {
+            packageRepoInProcess();
+            return;
+        }
+
         try {
-            ProcessUtils.ProcessOutput output = ProcessUtils.runProcess(processBuilder, 90000); //90 seconds
+            boolean offline = MavenCache.isWarm();
+            MavenErrorFilter errors = new MavenErrorFilter();
+            ProcessUtils.ProcessOutput output = runPackage(offline, errors);
+            if (offline && output.statusCode() != 0 && MavenCache.isMissingArtifact(errors.toString())) {
+                errors = new MavenErrorFilter();
+                output = runPackage(false, errors);
+            }
             if (output.statusCode() != 0) {
-                Rubric.Results results = Rubric.Results.textError("Your Java source code could not be compiled", getMavenError(output.stdOut()));
+                Rubric.Results results = Rubric.Results.textError("Your Java source code could not be compiled", errors.toString());
                 throw new GradingException("Failed to compile", results);
             }
         } catch (ProcessUtils.ProcessException ex) {
@@ -74,17 +89,43 @@ public class CompileHelper {
         }
     }
 
+    private void packageRepoInProcess() throws GradingException {
+        try {
+            InProcessCompiler.CompileResult result = InProcessCompiler.packageProject(gradingContext.stageRepo());
+            if (!result.success()) {
+                Rubric.Results results = Rubric.Results.textError("Your Java source code could not be compiled", result.errors());
+                throw new GradingException("Failed to compile", results);
+            }
+        } catch (IOException e) {
+            throw new GradingException("Failed to compile: %s".formatted(e.getMessage()), e);
+        }
+    }
+
+    private ProcessUtils.ProcessOutput runPackage(boolean offline, MavenErrorFilter errors)
+            throws ProcessUtils.ProcessException {
+        ProcessBuilder processBuilder = new ProcessBuilder();
+        processBuilder.directory(gradingContext.stageRepo());
+        processBuilder.command(MavenCache.packageCommand(offline));
+        // The errors are collected as maven prints them, so only a little of the output itself is kept
+        ProcessUtils.OutputCapture capture = ProcessUtils.OutputCapture.bounded(MAX_OUTPUT_BYTES, MAX_OUTPUT_BYTES)
+                .withStdOutListener(errors);
+        return ProcessUtils.runProcess(processBuilder, null, 90000, capture, //90 seconds
+                gradingContext.processLauncher());
+    }
+
     /**
-     * Retrieves maven error output from maven package stdout
-     *
-     * @param output A string containing maven standard output
-     * @return A string containing maven package error lines
+     * Collects maven error lines from maven package stdout as they are printed
      */
-    private String getMavenError(String output) {
-        StringBuilder builder = new StringBuilder();
-        for (String line : output.split("\n")) {
+    private class MavenErrorFilter implements Consumer<String> {
+        private final StringBuilder builder = new StringBuilder();
+        private boolean done = false;
+
+        @Override
+        public void accept(String line) {
+            if (done) return;
             if (line.contains("[ERROR] -> [Help 1]")) {
-                break;
+                done = true;
+                return;
             }
 
             if(line.contains("[ERROR]")) {
@@ -92,6 +133,13 @@ public class CompileHelper {
                 builder.append(trimLine).append("\n");
             }
         }
-        return builder.toString();
+
+        /**
+         * @return A string containing maven package error lines
+         */
+        @Override
+        public String toString() {
+            return builder.toString();
+        }
     }
 }
@@ -0,0 +1,215 @@
+package edu.byu.cs.autograder.compile;
+
+import edu.byu.cs.properties.ApplicationProperties;
+import edu.byu.cs.util.FileUtils;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.*;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+/**
+ * Compiles student projects with the JDK's compiler inside the autograder instead of forking Maven.
+ * <br>
+ * Produces the same layout as <code>mvn package -DskipTests</code> with the canonical poms: each module is
+ * compiled into <code>target/classes</code> and <code>target/test-classes</code>, and
+ * <code>target/&lt;module&gt;-test-dependencies.jar</code> holds the module's classes along with all of
+ * its test scoped dependencies. Annotation processing is disabled so that compiling never runs student code.
+ */
+public class InProcessCompiler {
+
+    /**
+     * The modules of a project, in the order they must be compiled
+     */
+    private static final List<String> MODULES = List.of("shared", "server", "client");
+
+    /**
+     * The result of a compilation
+     *
+     * @param success whether everything compiled
+     * @param errors  the compiler errors, formatted like Maven's output
+     */
+    public record CompileResult(boolean success, String errors) {}
+
+    /**
+     * @return whether the autograder is configured to compile in process and a compiler is available
+     */
+    public static boolean isEnabled() {
+        return ApplicationProperties.compileInProcess() && ToolProvider.getSystemJavaCompiler() != null;
+    }
+
+    /**
+     * @return whether whole projects can be packaged in process, which also requires the module classpaths
+     */
+    public static boolean canPackage() {
+        return isEnabled() && MavenCache.hasModuleClasspaths();
+    }
+
+    /**
+     * Compiles every module of a project and builds its test dependency jars
+     *
+     * @param projectRoot the root of the project
+     * @return the result of the compilation
+     */
+    public static CompileResult packageProject(File projectRoot) throws IOException {
+        for (String module : MODULES) {
+            File moduleDir = new File(projectRoot, module);
+            File target = new File(moduleDir, "target");
+            File classes = new File(target, "classes");
+            File testClasses = new File(target, "test-classes");
+            FileUtils.removeDirectory(target);
+
+            List<File> classpath = MavenCache.moduleClasspath(module, false, projectRoot);
+            CompileResult result = compile(findSources(new File(moduleDir, "src/main/java")), classpath,
+                    classes, projectRoot);
+            if (!result.success()) return result;
+            copyResources(new File(moduleDir, "src/main/resources"), classes);
+
+            List<File> testClasspath = new ArrayList<>();
+            testClasspath.add(classes);
+            testClasspath.addAll(MavenCache.moduleClasspath(module, true, projectRoot));
+            result = compile(findSources(new File(moduleDir, "src/test/java")), testClasspath,
+                    testClasses, projectRoot);
+            if (!result.success()) return result;
+            copyResources(new File(moduleDir, "src/test/resources"), testClasses);
+
+            List<File> jarContents = new ArrayList<>();
+            jarContents.add(classes);
+            jarContents.addAll(MavenCache.moduleClasspath(module, true, projectRoot));
+            writeJar(new File(target, module + "-test-dependencies.jar"), jarContents);
+        }
+        return new CompileResult(true, "");
+    }
+
+    /**
+     * Compiles a set of source files
+     *
+     * @param sources    the source files to compile
+     * @param classpath  the classpath to compile against
+     * @param outputDir  the directory to write class files to
+     * @param pathToHide a path removed from file names in the error messages
+     * @return the result of the compilation
+     */
+    public static CompileResult compile(Collection<File> sources, Collection<File> classpath, File outputDir,
+                                        File pathToHide) throws IOException {
+        if (sources.isEmpty()) return new CompileResult(true, "");
+        if (!outputDir.exists() && !outputDir.mkdirs()) {
+            throw new IOException("Failed to create " + outputDir);
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            List<String> options = List.of(
+                    "-d", outputDir.getAbsolutePath(),
+                    "-cp", joinPaths(classpath),
+                    "-proc:none",
+                    "-encoding", "UTF-8",
+                    "-g",
+                    "-nowarn");
+            Boolean success = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sources)).call();
+            return new CompileResult(success, formatErrors(diagnostics, pathToHide));
+        }
+    }
+
+    /**
+     * Finds every Java source file in a directory
+     *
+     * @param directory the directory to search
+     * @return the source files, empty if the directory doesn't exist
+     */
+    public static List<File> findSources(File directory) throws IOException {
+        if (!directory.isDirectory()) return List.of();
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            return paths.filter(path -> path.toString().endsWith(".java")).map(Path::toFile).toList();
+        }
+    }
+
+    private static String joinPaths(Collection<File> files) {
+        StringJoiner joiner = new StringJoiner(File.pathSeparator);
+        for (File file : files) {
+            joiner.add(file.getAbsolutePath());
+        }
+        return joiner.toString();
+    }
+
+    private static String formatErrors(DiagnosticCollector<JavaFileObject> diagnostics, File pathToHide) {
+        StringBuilder builder = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() != Diagnostic.Kind.ERROR) continue;
+
+            String source = diagnostic.getSource() == null ? "" : diagnostic.getSource().getName()
+                    .replace(pathToHide.getAbsolutePath(), "");
+            builder.append("[ERROR] %s:[%d,%d] %s\n".formatted(source, diagnostic.getLineNumber(),
+                    diagnostic.getColumnNumber(), diagnostic.getMessage(Locale.ENGLISH)));
+        }
+        return builder.toString();
+    }
+
+    private static void copyResources(File resources, File outputDir) {
+        if (resources.isDirectory()) {
+            FileUtils.copyDirectory(resources, outputDir);
+        }
+    }
+
+    /**
+     * Writes a jar in the same way as the <code>test-dependencies</code> assembly: every entry is unpacked
+     * into a single jar, and when two entries share a name the first one wins
+     */
+    private static void writeJar(File jar, List<File> contents) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, "Main");
+
+        Set<String> written = new HashSet<>();
+        written.add(JarFile.MANIFEST_NAME);
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()), manifest)) {
+            out.setLevel(Deflater.BEST_SPEED);
+            for (File content : contents) {
+                if (content.isDirectory()) {
+                    writeDirectory(out, content, written);
+                } else if (content.isFile()) {
+                    writeJarContents(out, content, written);
+                }
+            }
+        }
+    }
+
+    private static void writeDirectory(JarOutputStream out, File directory, Set<String> written) throws IOException {
+        Path root = directory.toPath();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.filter(Files::isRegularFile).toList()) {
+                String name = root.relativize(path).toString().replace(File.separatorChar, '/');
+                try (InputStream in = Files.newInputStream(path)) {
+                    writeEntry(out, name, in, written);
+                }
+            }
+        }
+    }
+
+    private static void writeJarContents(JarOutputStream out, File jar, Set<String> written) throws IOException {
+        try (JarFile jarFile = new JarFile(jar)) {
+            for (JarEntry entry : Collections.list(jarFile.entries())) {
+                if (entry.isDirectory()) continue;
+                try (InputStream in = jarFile.getInputStream(entry)) {
+                    writeEntry(out, entry.getName(), in, written);
+                }
+            }
+        }
+    }
+
+    private static void writeEntry(JarOutputStream out, String name, InputStream in, Set<String> written)
+            throws IOException {
+        if (!written.add(name)) return;
+        out.putNextEntry(new JarEntry(name));
+        in.transferTo(out);
+        out.closeEntry();
+    }
+}
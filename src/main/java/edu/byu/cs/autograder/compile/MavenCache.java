@@ -0,0 +1,204 @@
+package edu.byu.cs.autograder.compile;
+
+import edu.byu.cs.properties.ApplicationProperties;
+import edu.byu.cs.util.FileUtils;
+import edu.byu.cs.util.ProcessUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A local Maven repository shared by every grading run.
+ * <br>
+ * Student poms are always replaced with the canonical poms under <code>phases/pom</code>, so every
+ * submission needs the exact same dependencies and plugins. The cache resolves them once at startup by
+ * packaging an empty project built from those poms, after which submissions are packaged offline.
+ * The classpath of each module is recorded at the same time for {@link InProcessCompiler}.
+ */
+public class MavenCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MavenCache.class);
+
+    private static final long WARM_UP_TIMEOUT = 600000; //10 minutes
+
+    private static final String[] MODULES = {"shared", "client", "server"};
+
+    private static final String COMPILE_CLASSPATH_FILE = "compile-classpath.txt";
+    private static final String TEST_CLASSPATH_FILE = "test-classpath.txt";
+
+    private static volatile boolean warm = false;
+
+    /**
+     * The classpath of each module, by module name. Entries inside the project are stored relative to the
+     * project root, with reactor jars replaced by the class directories they are built from.
+     */
+    private static volatile Map<String, ModuleClasspath> moduleClasspaths = Map.of();
+
+    private record ModuleClasspath(List<Path> compile, List<Path> test) {}
+
+    /**
+     * Resolves all dependencies and plugins needed by the canonical poms into the shared local repository.
+     * Runs in the background; until it finishes, submissions are packaged online.
+     *
+     * @param phasesPath the path where the canonical poms are stored
+     * @return a future completing once the cache has been warmed (or has failed to warm)
+     */
+    public static CompletableFuture<Void> warmUp(File phasesPath) {
+        return CompletableFuture.runAsync(() -> {
+            File warmUpProject = new File("./maven-warm-up");
+            try {
+                createWarmUpProject(phasesPath, warmUpProject);
+
+                ProcessUtils.ProcessOutput output = runWarmUp(warmUpProject, false, TEST_CLASSPATH_FILE, "test");
+                if (output.statusCode() != 0) {
+                    LOGGER.error("Failed to warm the maven cache, submissions will be packaged online:\n{}",
+                            output.stdOut());
+                    return;
+                }
+                warm = true;
+                LOGGER.info("Maven cache warmed at {}", repository());
+
+                output = runWarmUp(warmUpProject, true, COMPILE_CLASSPATH_FILE, "compile");
+                if (output.statusCode() != 0) {
+                    LOGGER.error("Failed to resolve module compile classpaths:\n{}", output.stdOut());
+                    return;
+                }
+                moduleClasspaths = readClasspaths(warmUpProject);
+            } catch (ProcessUtils.ProcessException | IOException e) {
+                LOGGER.error("Failed to warm the maven cache, submissions will be packaged online", e);
+            } finally {
+                FileUtils.removeDirectory(warmUpProject);
+            }
+        });
+    }
+
+    /**
+     * @return whether the shared local repository has been fully resolved
+     */
+    public static boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * @return whether the classpath of every module is known
+     */
+    public static boolean hasModuleClasspaths() {
+        return !moduleClasspaths.isEmpty();
+    }
+
+    /**
+     * Gets the classpath Maven would use for a module of a project built from the canonical poms
+     *
+     * @param module      the module being compiled
+     * @param test        whether to include test scoped dependencies
+     * @param projectRoot the root of the project, against which project-relative entries are resolved
+     * @return the classpath entries, or an empty list if the module is unknown
+     */
+    public static List<File> moduleClasspath(String module, boolean test, File projectRoot) {
+        ModuleClasspath classpath = moduleClasspaths.get(module);
+        if (classpath == null) return List.of();
+
+        List<File> files = new ArrayList<>();
+        for (Path entry : test ? classpath.test() : classpath.compile()) {
+            files.add(entry.isAbsolute() ? entry.toFile() : new File(projectRoot, entry.toString()));
+        }
+        return files;
+    }
+
+    /**
+     * Builds the command used to package a project against the shared local repository
+     *
+     * @param offline whether maven should avoid contacting remote repositories
+     * @return the command to run
+     */
+    public static List<String> packageCommand(boolean offline) {
+        List<String> command = new ArrayList<>(List.of("mvn", "package", "-DskipTests", "-B"));
+        command.add("-Dmaven.repo.local=" + repository().getAbsolutePath());
+        if (offline) {
+            command.add("-o");
+        }
+        return command;
+    }
+
+    /**
+     * Whether a failed offline build failed because something was missing from the cache,
+     * as opposed to a problem with the code being compiled
+     *
+     * @param mavenOutput the standard output of the failed build
+     * @return true if the build should be retried online
+     */
+    public static boolean isMissingArtifact(String mavenOutput) {
+        return mavenOutput.contains("in offline mode") || mavenOutput.contains("has not been downloaded from it before");
+    }
+
+    private static File repository() {
+        return new File(ApplicationProperties.mavenRepository());
+    }
+
+    private static ProcessUtils.ProcessOutput runWarmUp(File warmUpProject, boolean offline, String classpathFile,
+                                                        String scope) throws ProcessUtils.ProcessException {
+        List<String> command = packageCommand(offline);
+        command.add("dependency:build-classpath");
+        command.add("-Dmdep.outputFile=" + classpathFile);
+        command.add("-DincludeScope=" + scope);
+
+        ProcessBuilder processBuilder = new ProcessBuilder();
+        processBuilder.directory(warmUpProject);
+        processBuilder.command(command);
+        return ProcessUtils.runProcess(processBuilder, WARM_UP_TIMEOUT);
+    }
+
+    private static void createWarmUpProject(File phasesPath, File warmUpProject) throws IOException {
+        FileUtils.removeDirectory(warmUpProject);
+        FileUtils.copyDirectory(new File(phasesPath, "pom"), warmUpProject);
+        FileUtils.copyFile(new File(warmUpProject, "server/lib/passoff-dependencies.jar"),
+                new File(phasesPath, "libs/passoff-dependencies.jar"));
+
+        // The compiler plugin only loads its dependencies when it has something to compile
+        for (String module : MODULES) {
+            File sourceDir = new File(warmUpProject, module + "/src/main/java");
+            if (!sourceDir.mkdirs()) {
+                throw new IOException("Failed to create " + sourceDir);
+            }
+            FileUtils.writeStringToFile("class WarmUp {}\n", new File(sourceDir, "WarmUp.java"));
+        }
+    }
+
+    private static Map<String, ModuleClasspath> readClasspaths(File warmUpProject) throws IOException {
+        Path projectRoot = warmUpProject.getCanonicalFile().toPath();
+        Map<String, ModuleClasspath> classpaths = new HashMap<>();
+        for (String module : MODULES) {
+            File moduleDir = new File(warmUpProject, module);
+            classpaths.put(module, new ModuleClasspath(
+                    readClasspath(new File(moduleDir, COMPILE_CLASSPATH_FILE), projectRoot),
+                    readClasspath(new File(moduleDir, TEST_CLASSPATH_FILE), projectRoot)));
+        }
+        return Map.copyOf(classpaths);
+    }
+
+    private static List<Path> readClasspath(File classpathFile, Path projectRoot) {
+        List<Path> entries = new ArrayList<>();
+        for (String entry : FileUtils.readStringFromFile(classpathFile).strip().split(File.pathSeparator)) {
+            if (entry.isBlank()) continue;
+            Path path = Path.of(entry);
+            if (!path.startsWith(projectRoot)) {
+                entries.add(path);
+                continue;
+            }
+
+            // Reactor modules are compiled in place rather than packaged into jars first
+            String relative = projectRoot.relativize(path).toString();
+            relative = relative.replaceFirst("^(.+)/target/[^/]+-tests\\.jar$", "$1/target/test-classes");
+            relative = relative.replaceFirst("^(.+)/target/[^/]+\\.jar$", "$1/target/classes");
+            entries.add(Path.of(relative));
+        }
+        return entries;
+    }
+}
@@ -15,10 +15,15 @@ public class TestFactoryModifier implements StudentCodeModifier {
 
     @Override
     public void modify(GradingContext context) throws GradingException {
-        File phaseTestFactory = new File(context.phasesPath(), "phase6/passoff/server/TestFactory.java");
+        File phaseTests = new File(context.phasesPath(), "phase6");
+        File phaseTestFactory = new File(phaseTests, "passoff/server/TestFactory.java");
         File backupTestFactory = new File(context.phasesPath(), "backup/BackupTestFactory.java");
         File studentTestFactory = new File(context.stageRepo(), "server/src/test/java/passoff/server/TestFactory.java");
 
+        // The phase tests are shared by every grader, so the modified copy is written into this stage only
+        File stagePhaseTests = new File(context.stagePath(), "phases/phase6");
+        File stageTestFactory = new File(stagePhaseTests, "passoff/server/TestFactory.java");
+
         if(!backupTestFactory.exists()) {
             if(!phaseTestFactory.exists()) throw new GradingException("Could not find phase test factory");
             FileUtils.copyFile(backupTestFactory, phaseTestFactory);
@@ -31,6 +36,7 @@ public class TestFactoryModifier implements StudentCodeModifier {
         }
 
         contents = contents.replaceAll(GET_MESSAGE_TIME_REGEX, REPLACEMENT);
-        FileUtils.writeStringToFile(contents, phaseTestFactory);
+        FileUtils.copyDirectory(phaseTests, stagePhaseTests);
+        FileUtils.writeStringToFile(contents, stageTestFactory);
     }
 }
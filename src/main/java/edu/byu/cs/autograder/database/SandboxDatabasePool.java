@@ -0,0 +1,372 @@
+package edu.byu.cs.autograder.database;
+
+import edu.byu.cs.properties.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Database sandboxes for student code, created ahead of time and reused between submissions.
+ * <br>
+ * Each sandbox is a MySQL user that can only access its own database. Creating and dropping users takes
+ * several statements, so instead of doing that while grading, sandboxes are leased to graders and reset
+ * in the background once the grader is done: the database is dropped and the user's password is changed,
+ * so nothing from one submission is visible to the next. All statements share a single admin connection,
+ * which is reopened if a statement fails because it was lost.
+ * <br>
+ * Several autograders can share a database server, so sandbox names include a random prefix for this
+ * process, which holds a MySQL named lock for that prefix on a connection of its own. Sandboxes are dropped
+ * when the process shuts down, and ones whose owner's lock is free were left behind by a process that
+ * didn't, so they are dropped before new sandboxes are created.
+ * <br>
+ * The lock is checked on a schedule, which also keeps its connection from timing out. If the connection is
+ * lost, so is the lock, and other autograders may drop this process's sandboxes. No sandboxes are leased
+ * until the lock is taken again, and the idle ones are discarded then, since they may no longer exist.
+ */
+public class SandboxDatabasePool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SandboxDatabasePool.class);
+
+    private static final String CONNECTION_STRING =
+            "jdbc:mysql://" + ApplicationProperties.dbHost() + ":" + ApplicationProperties.dbPort();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final String DATABASE_PREFIX = "chessDb_";
+    private static final String USER_PREFIX = "dbUser_";
+    private static final String LOCK_PREFIX = "autograder_sandboxes_";
+
+    /**
+     * How often the lock is checked
+     */
+    private static final long LOCK_CHECK_INTERVAL_SECONDS = 30;
+
+    /**
+     * Identifies the sandboxes created by this process
+     */
+    private static final String OWNER = newOwner();
+
+    /**
+     * The most recently issued sandbox id
+     */
+    private static final AtomicLong lastId = new AtomicLong();
+
+    private static final ConcurrentLinkedQueue<Sandbox> idle = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Every sandbox this process has created and not yet discarded, by user, whether leased or idle
+     */
+    private static final Set<String> owned = ConcurrentHashMap.newKeySet();
+
+    private static final ScheduledExecutorService resetExecutor =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sandbox-database-reset");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static Connection adminConnection;
+
+    /**
+     * The connection holding this process's lock, or null if it isn't held
+     */
+    private static Connection lockConnection;
+
+    private static volatile boolean lockHeld;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SandboxDatabasePool::dropOwned, "sandbox-database-drop"));
+        resetExecutor.scheduleWithFixedDelay(SandboxDatabasePool::holdLock, LOCK_CHECK_INTERVAL_SECONDS,
+                LOCK_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * A database and the only user allowed to access it
+     *
+     * @param databaseName the name of the database, which doesn't exist until the student's code creates it
+     * @param user         the name of the user
+     * @param password     the user's current password
+     */
+    public record Sandbox(String databaseName, String user, String password) {}
+
+    /**
+     * Drops sandboxes left behind by autograders that have stopped, then creates sandboxes in the background
+     * so the first submissions don't have to
+     *
+     * @param count the number of sandboxes to create
+     */
+    public static void warmUp(int count) {
+        resetExecutor.submit(() -> {
+            if (!holdLock()) return;
+            try {
+                dropAbandoned();
+            } catch (SQLException e) {
+                LOGGER.error("Failed to drop abandoned sandbox databases", e);
+            }
+            try {
+                for (int i = 0; i < count; i++) {
+                    idle.add(create());
+                }
+                LOGGER.info("Created {} sandbox databases", count);
+            } catch (SQLException e) {
+                LOGGER.error("Failed to create sandbox databases, they will be created while grading", e);
+            }
+        });
+    }
+
+    /**
+     * Takes a sandbox from the pool, creating one if none are free
+     *
+     * @return a sandbox for only the caller to use until it is released
+     */
+    public static Sandbox lease() throws SQLException {
+        if (!lockHeld && !holdLock()) {
+            throw new SQLException("The sandbox lock isn't held, so other autograders could drop the sandboxes");
+        }
+        Sandbox sandbox = idle.poll();
+        return sandbox != null ? sandbox : create();
+    }
+
+    /**
+     * Returns a sandbox to the pool. It is reset in the background before being leased again,
+     * and discarded if it can't be reset.
+     *
+     * @param sandbox a sandbox from {@link #lease()}
+     */
+    public static void release(Sandbox sandbox) {
+        resetExecutor.submit(() -> {
+            try {
+                idle.add(reset(sandbox));
+            } catch (SQLException e) {
+                LOGGER.error("Failed to reset sandbox database {}, discarding it", sandbox.databaseName(), e);
+                discard(sandbox);
+            }
+        });
+    }
+
+    /**
+     * Checks that this process still holds its lock, and takes it if it doesn't. Idle sandboxes are discarded
+     * if the lock had been lost, since other autograders may have dropped them in the meantime.
+     *
+     * @return whether the lock is held
+     */
+    private static synchronized boolean holdLock() {
+        if (lockConnection != null) {
+            try {
+                String held = query(lockConnection, "SELECT IS_USED_LOCK(?) = CONNECTION_ID()", LOCK_PREFIX + OWNER)
+                        .getFirst();
+                if ("1".equals(held)) {
+                    return lockHeld = true;
+                }
+                LOGGER.error("Lost the sandbox lock, no sandboxes will be leased until it is taken again");
+            } catch (SQLException e) {
+                LOGGER.error("Lost the connection holding the sandbox lock, no sandboxes will be leased until " +
+                        "the lock is taken again", e);
+            }
+            lockHeld = false;
+            closeLockConnection();
+        }
+
+        try {
+            lockConnection = DriverManager.getConnection(CONNECTION_STRING, ApplicationProperties.dbUser(),
+                    ApplicationProperties.dbPass());
+            String result = query(lockConnection, "SELECT GET_LOCK(?, 0)", LOCK_PREFIX + OWNER).getFirst();
+            if (!"1".equals(result)) {
+                // Usually the server hasn't yet noticed that the old connection is gone, and still holds its lock
+                throw new SQLException("GET_LOCK returned " + result);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Failed to take the sandbox lock", e);
+            closeLockConnection();
+            return false;
+        }
+
+        lockHeld = true;
+        // Only sandboxes from before the lock was lost can be idle
+        Sandbox sandbox;
+        while ((sandbox = idle.poll()) != null) {
+            Sandbox discarded = sandbox;
+            resetExecutor.submit(() -> discard(discarded));
+        }
+        return true;
+    }
+
+    private static void closeLockConnection() {
+        try {
+            if (lockConnection != null) lockConnection.close();
+        } catch (SQLException ignored) {}
+        lockConnection = null;
+    }
+
+    private static Sandbox create() throws SQLException {
+        long id = lastId.incrementAndGet();
+        String name = OWNER + "_" + id;
+        Sandbox sandbox = new Sandbox(DATABASE_PREFIX + name, USER_PREFIX + name, newPassword());
+        owned.add(sandbox.user());
+        executeUpdate("CREATE USER IF NOT EXISTS ?@'%' IDENTIFIED BY ?", sandbox.user(), sandbox.password());
+        executeUpdate("GRANT ALL ON `" + sandbox.databaseName() + "`.* TO ?@'%'", sandbox.user());
+        return reset(sandbox);
+    }
+
+    private static Sandbox reset(Sandbox sandbox) throws SQLException {
+        Sandbox reset = new Sandbox(sandbox.databaseName(), sandbox.user(), newPassword());
+        executeUpdate("DROP DATABASE IF EXISTS `" + reset.databaseName() + "`");
+        executeUpdate("ALTER USER ?@'%' IDENTIFIED BY ?", reset.user(), reset.password());
+        return reset;
+    }
+
+    private static void discard(Sandbox sandbox) {
+        try {
+            drop(sandbox.user().substring(USER_PREFIX.length()));
+            owned.remove(sandbox.user());
+        } catch (SQLException e) {
+            LOGGER.error("Failed to drop sandbox database {}", sandbox.databaseName(), e);
+        }
+    }
+
+    /**
+     * Drops every sandbox this process created, including ones still leased, since nothing will grade
+     * with them once the process has stopped
+     */
+    private static void dropOwned() {
+        for (String user : owned) {
+            try {
+                drop(user.substring(USER_PREFIX.length()));
+            } catch (SQLException e) {
+                LOGGER.error("Failed to drop sandbox user {}", user, e);
+            }
+        }
+        owned.clear();
+    }
+
+    /**
+     * Drops the sandboxes of every other autograder that no longer holds its lock
+     */
+    private static void dropAbandoned() throws SQLException {
+        List<String> names = new ArrayList<>();
+        for (String user : query("SELECT DISTINCT user FROM mysql.user WHERE user LIKE ?",
+                startsWith(USER_PREFIX))) {
+            names.add(user.substring(USER_PREFIX.length()));
+        }
+        for (String database : query("SELECT schema_name FROM information_schema.schemata WHERE schema_name LIKE ?",
+                startsWith(DATABASE_PREFIX))) {
+            String name = database.substring(DATABASE_PREFIX.length());
+            if (!names.contains(name)) names.add(name);
+        }
+
+        int dropped = 0;
+        for (String name : names) {
+            int separator = name.lastIndexOf('_');
+            if (separator < 0) continue;
+            String owner = name.substring(0, separator);
+            if (owner.equals(OWNER) || query("SELECT IS_USED_LOCK(?)", LOCK_PREFIX + owner).getFirst() != null) {
+                continue;
+            }
+            drop(name);
+            dropped++;
+        }
+        if (dropped > 0) {
+            LOGGER.info("Dropped {} abandoned sandbox databases", dropped);
+        }
+    }
+
+    private static void drop(String name) throws SQLException {
+        executeUpdate("DROP DATABASE IF EXISTS `" + DATABASE_PREFIX + name + "`");
+        executeUpdate("DROP USER IF EXISTS ?@'%'", USER_PREFIX + name);
+    }
+
+    private static String startsWith(String prefix) {
+        return prefix.replace("_", "\\_") + "%";
+    }
+
+    private static String newOwner() {
+        byte[] bytes = new byte[4];
+        RANDOM.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static String newPassword() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static synchronized void executeUpdate(String statement, String... params) throws SQLException {
+        try (PreparedStatement ps = prepare(adminConnection(), statement, params)) {
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            if (!reconnect()) throw e;
+            try (PreparedStatement ps = prepare(adminConnection(), statement, params)) {
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    private static synchronized List<String> query(String statement, String... params) throws SQLException {
+        try {
+            return query(adminConnection(), statement, params);
+        } catch (SQLException e) {
+            if (!reconnect()) throw e;
+            return query(adminConnection(), statement, params);
+        }
+    }
+
+    private static List<String> query(Connection connection, String statement, String... params)
+            throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (PreparedStatement ps = prepare(connection, statement, params);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                values.add(rs.getString(1));
+            }
+        }
+        return values;
+    }
+
+    private static Connection adminConnection() throws SQLException {
+        if (adminConnection == null) {
+            adminConnection = DriverManager.getConnection(CONNECTION_STRING, ApplicationProperties.dbUser(),
+                    ApplicationProperties.dbPass());
+        }
+        return adminConnection;
+    }
+
+    /**
+     * Closes the admin connection after a statement failed, if the connection was lost, so the statement can
+     * be tried again on a new one
+     *
+     * @return whether the connection was lost
+     */
+    private static boolean reconnect() {
+        try {
+            if (adminConnection == null || adminConnection.isValid(2)) return false;
+            adminConnection.close();
+        } catch (SQLException ignored) {}
+        adminConnection = null;
+        return true;
+    }
+
+    private static PreparedStatement prepare(Connection connection, String statement, String... params)
+            throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(statement);
+        for (var i = 0; i < params.length; i++) {
+            ps.setString(i + 1, params[i]);
+        }
+        return ps;
+    }
+}
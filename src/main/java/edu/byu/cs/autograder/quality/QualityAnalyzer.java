@@ -9,6 +9,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class QualityAnalyzer {
 
@@ -19,6 +20,10 @@ public class QualityAnalyzer {
 
     private static final QualityRubric qualityRubricItems;
 
+    private static final long PROCESS_TIMEOUT = 90000; //90 seconds
+
+    private static final int MAX_OUTPUT_BYTES = 1024;
+
     static {
         Path libsPath = new File("phases", "libs").toPath();
         try {
@@ -40,9 +45,13 @@ public class QualityAnalyzer {
         ProcessBuilder processBuilder = new ProcessBuilder().directory(stageRepo.getParentFile())
                 .command("java", "-jar", checkStyleJarPath, "-c", "cs240_checks.xml", "repo/shared", "repo/server", "repo/client");
 
+        QualityOutputParser parser = new QualityOutputParser(stageRepo);
         String output;
         try {
-            output = ProcessUtils.runProcess(processBuilder).stdOut();
+            // Only the end of the output is kept to check that checkstyle finished, the rest is parsed as it arrives
+            ProcessUtils.OutputCapture capture = ProcessUtils.OutputCapture.bounded(0, MAX_OUTPUT_BYTES)
+                    .withStdOutListener(parser);
+            output = ProcessUtils.runProcess(processBuilder, PROCESS_TIMEOUT, capture).stdOut();
         } catch (ProcessUtils.ProcessException e) {
             throw new GradingException("Error running code quality: " + e.getMessage(), e);
         }
@@ -51,10 +60,7 @@ public class QualityAnalyzer {
             return new QualityAnalysis(0, "", "Could not complete code quality analysis. Please go see a TA.");
         }
 
-        output = output.replaceAll(stageRepo.getAbsolutePath(), "");
-        output = output.replaceAll(stageRepo.getPath(), "");
-
-        QualityOutput qualityOutput = parseOutput(output);
+        QualityOutput qualityOutput = parser.output();
         float score = evaluateScore(qualityOutput);
         String results = getResults(qualityOutput);
         String notes = getNotes(qualityOutput);
@@ -62,17 +68,22 @@ public class QualityAnalyzer {
     }
 
     /**
-     * Parses the checkstyle process output string
-     *
-     * @param output String of checkstyle process output
-     * @return QualityOutput containing errors and warnings from quality analysis
+     * Parses the checkstyle process output one line at a time
      */
-    private QualityOutput parseOutput(String output) {
-        Map<String, List<String>> errors = new HashMap<>();
-        List<String> warnings = new ArrayList<>();
-        String[] lines = output.split("\n");
-        for (String line : lines) {
-            String trimmed = line.trim();
+    private static class QualityOutputParser implements Consumer<String> {
+        private final String absoluteRepoPath;
+        private final String repoPath;
+        private final Map<String, List<String>> errors = new HashMap<>();
+        private final List<String> warnings = new ArrayList<>();
+
+        QualityOutputParser(File stageRepo) {
+            this.absoluteRepoPath = stageRepo.getAbsolutePath();
+            this.repoPath = stageRepo.getPath();
+        }
+
+        @Override
+        public void accept(String line) {
+            String trimmed = line.replace(absoluteRepoPath, "").replace(repoPath, "").trim();
             if (trimmed.startsWith("[ERROR]")) {
                 String cause = trimmed.substring(trimmed.lastIndexOf('[') + 1, trimmed.lastIndexOf(']'));
                 if (!errors.containsKey(cause)) {
@@ -84,7 +95,13 @@ public class QualityAnalyzer {
                 warnings.add(trimmed);
             }
         }
-        return new QualityOutput(errors, warnings);
+
+        /**
+         * @return QualityOutput containing errors and warnings from quality analysis
+         */
+        QualityOutput output() {
+            return new QualityOutput(errors, warnings);
+        }
     }
 
     /**
@@ -459,7 +459,8 @@ public class Scorer {
                 rubric,
                 gradingContext.admin(),
                 verifiedStatus,
-                null
+                null,
+                gradingContext.processLauncher().usage()
         );
     }
 
@@ -0,0 +1,190 @@
+package edu.byu.cs.autograder.test;
+
+import com.google.gson.Gson;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The program a {@link WarmTestRunner} runs its test JVMs with. Runs JUnit tests with the JUnit Platform
+ * <code>Launcher</code> and builds the test results straight from the launcher's events.
+ * <br>
+ * The launcher is loaded from the standalone jar in its own class loader as soon as the JVM starts, before there
+ * are any tests to run. Once the tests are given, they are loaded in a child of it, which matches the class
+ * loaders the console launcher sets up. None of the autograder's own classes are visible to the tests, so the
+ * launcher API is only reachable through reflection.
+ * <br>
+ * Arguments: the standalone JUnit jar, then the JUnit Jupiter API jar. Standard in: the directory of the
+ * compiled tests, the jar of the classes being tested, then the packages to test, one per line. The results
+ * are written as JSON to {@link #RESULTS_FILE} in the directory of the compiled tests, and anything the tests
+ * print goes to standard error.
+ */
+public class LauncherTestRunner {
+
+    /**
+     * Where the results are written, relative to the directory of the compiled tests
+     */
+    static final String RESULTS_FILE = "test-output/results.json";
+
+    /**
+     * The outcome of a test or container, as reported to the listener
+     */
+    private record Outcome(boolean failed, String failure) {}
+
+    public static void main(String[] args) throws Exception {
+        URLClassLoader junitLoader = new URLClassLoader(new URL[]{new File(args[0]).toURI().toURL()},
+                ClassLoader.getPlatformClassLoader());
+        warmUp(junitLoader);
+
+        List<String> job = new BufferedReader(new InputStreamReader(System.in)).lines().toList();
+        // The autograder stopped without giving this JVM any tests
+        if (job.size() < 2) return;
+
+        File compiledTests = new File(job.get(0));
+        Set<String> packagesToTest = new LinkedHashSet<>(job.subList(2, job.size()));
+        URLClassLoader testLoader = new URLClassLoader(new URL[]{compiledTests.toURI().toURL(),
+                new File(job.get(1)).toURI().toURL(), new File(args[1]).toURI().toURL()}, junitLoader);
+        Thread.currentThread().setContextClassLoader(testLoader);
+        System.setOut(System.err);
+
+        List<TestAnalyzer.TestCaseResult> results = execute(testLoader, packagesToTest);
+
+        File resultsFile = new File(compiledTests, RESULTS_FILE);
+        Files.createDirectories(resultsFile.getParentFile().toPath());
+        Files.writeString(resultsFile.toPath(), new Gson().toJson(results));
+        // Threads the tests left running would otherwise keep the JVM alive
+        System.exit(0);
+    }
+
+    /**
+     * Creates a launcher, which loads the launcher and every test engine it finds. This is most of the time
+     * JUnit takes to start.
+     */
+    private static void warmUp(ClassLoader junitLoader) throws ReflectiveOperationException {
+        Thread.currentThread().setContextClassLoader(junitLoader);
+        junitLoader.loadClass("org.junit.platform.launcher.core.LauncherFactory").getMethod("create").invoke(null);
+    }
+
+    private static List<TestAnalyzer.TestCaseResult> execute(ClassLoader loader, Set<String> packagesToTest)
+            throws ReflectiveOperationException {
+        Class<?> discoverySelectors = loader.loadClass("org.junit.platform.engine.discovery.DiscoverySelectors");
+        List<Object> selectors = new ArrayList<>();
+        for (String packageToTest : packagesToTest) {
+            selectors.add(discoverySelectors.getMethod("selectPackage", String.class).invoke(null, packageToTest));
+        }
+
+        // The console launcher only includes classes matching its standard naming pattern by default
+        Class<?> classNameFilter = loader.loadClass("org.junit.platform.engine.discovery.ClassNameFilter");
+        String includePattern = (String) classNameFilter.getField("STANDARD_INCLUDE_PATTERN").get(null);
+        Object filters = Array.newInstance(loader.loadClass("org.junit.platform.engine.Filter"), 1);
+        Array.set(filters, 0, classNameFilter.getMethod("includeClassNamePatterns", String[].class)
+                .invoke(null, (Object) new String[]{includePattern}));
+
+        Class<?> requestBuilder = loader.loadClass("org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder");
+        Object builder = requestBuilder.getMethod("request").invoke(null);
+        requestBuilder.getMethod("selectors", List.class).invoke(builder, selectors);
+        requestBuilder.getMethod("filters", filters.getClass()).invoke(builder, filters);
+        Object request = requestBuilder.getMethod("build").invoke(builder);
+
+        Map<String, Outcome> outcomes = new ConcurrentHashMap<>();
+        AtomicReference<Object> testPlan = new AtomicReference<>();
+        Class<?> listenerClass = loader.loadClass("org.junit.platform.launcher.TestExecutionListener");
+        InvocationHandler handler = (proxy, method, args) -> switch (method.getName()) {
+            case "testPlanExecutionStarted" -> {
+                testPlan.set(args[0]);
+                yield null;
+            }
+            case "executionSkipped" -> {
+                outcomes.put(uniqueId(args[0]), new Outcome(false, null));
+                yield null;
+            }
+            case "executionFinished" -> {
+                outcomes.put(uniqueId(args[0]), outcome(args[1]));
+                yield null;
+            }
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "toString" -> "LauncherTestRunner listener";
+            default -> null;
+        };
+        Object listeners = Array.newInstance(listenerClass, 1);
+        Array.set(listeners, 0, Proxy.newProxyInstance(loader, new Class<?>[]{listenerClass}, handler));
+
+        Class<?> launcherClass = loader.loadClass("org.junit.platform.launcher.Launcher");
+        Object launcher = loader.loadClass("org.junit.platform.launcher.core.LauncherFactory")
+                .getMethod("create").invoke(null);
+        launcherClass.getMethod("execute", loader.loadClass("org.junit.platform.launcher.LauncherDiscoveryRequest"),
+                listeners.getClass()).invoke(launcher, request, listeners);
+
+        return testCaseResults(loader, testPlan.get(), outcomes);
+    }
+
+    /**
+     * Collects the result of every test in the plan the same way the legacy XML report does. Tests that
+     * never ran take the outcome of the closest container that failed, such as a class whose
+     * <code>@BeforeAll</code> threw an exception.
+     */
+    private static List<TestAnalyzer.TestCaseResult> testCaseResults(ClassLoader loader, Object testPlan,
+                                                                     Map<String, Outcome> outcomes)
+            throws ReflectiveOperationException {
+        if (testPlan == null) return List.of();
+
+        Class<?> testPlanClass = loader.loadClass("org.junit.platform.launcher.TestPlan");
+        Class<?> testIdentifierClass = loader.loadClass("org.junit.platform.launcher.TestIdentifier");
+        Method getClassName = loader.loadClass("org.junit.platform.reporting.legacy.LegacyReportingUtils")
+                .getMethod("getClassName", testPlanClass, testIdentifierClass);
+        Method getParent = testPlanClass.getMethod("getParent", testIdentifierClass);
+        Method getDescendants = testPlanClass.getMethod("getDescendants", testIdentifierClass);
+
+        List<TestAnalyzer.TestCaseResult> results = new ArrayList<>();
+        for (Object root : (Set<?>) testPlanClass.getMethod("getRoots").invoke(testPlan)) {
+            for (Object identifier : (Set<?>) getDescendants.invoke(testPlan, root)) {
+                if (!(boolean) testIdentifierClass.getMethod("isTest").invoke(identifier)) continue;
+
+                Outcome outcome = outcomes.get(uniqueId(identifier));
+                Optional<?> ancestor = (Optional<?>) getParent.invoke(testPlan, identifier);
+                while (outcome == null && ancestor.isPresent()) {
+                    Outcome ancestorOutcome = outcomes.get(uniqueId(ancestor.get()));
+                    if (ancestorOutcome != null && ancestorOutcome.failed()) outcome = ancestorOutcome;
+                    ancestor = (Optional<?>) getParent.invoke(testPlan, ancestor.get());
+                }
+
+                String legacyName = (String) testIdentifierClass.getMethod("getLegacyReportingName").invoke(identifier);
+                String displayName = (String) testIdentifierClass.getMethod("getDisplayName").invoke(identifier);
+                results.add(new TestAnalyzer.TestCaseResult(
+                        (String) getClassName.invoke(null, testPlan, identifier),
+                        TestAnalyzer.testName(legacyName, displayName),
+                        outcome != null && outcome.failed() ? outcome.failure() : null));
+            }
+        }
+        return results;
+    }
+
+    private static String uniqueId(Object testIdentifier) throws ReflectiveOperationException {
+        return (String) testIdentifier.getClass().getMethod("getUniqueId").invoke(testIdentifier);
+    }
+
+    private static Outcome outcome(Object testExecutionResult) throws ReflectiveOperationException {
+        Class<?> resultClass = testExecutionResult.getClass();
+        String status = resultClass.getMethod("getStatus").invoke(testExecutionResult).toString();
+        if (!status.equals("FAILED")) return new Outcome(false, null);
+
+        Optional<?> throwable = (Optional<?>) resultClass.getMethod("getThrowable").invoke(testExecutionResult);
+        StringWriter stackTrace = new StringWriter();
+        throwable.ifPresent(t -> ((Throwable) t).printStackTrace(new PrintWriter(stackTrace)));
+        return new Outcome(true, stackTrace.toString());
+    }
+}
@@ -0,0 +1,188 @@
+package edu.byu.cs.autograder.test;
+
+import edu.byu.cs.model.TestAnalysis;
+import edu.byu.cs.model.TestNode;
+import edu.byu.cs.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Compiled passoff tests, shared between submissions.
+ * <br>
+ * The official passoff tests are the same for every student, so their compiled classes are kept and reused
+ * as long as neither the test sources nor <code>passoff-dependencies.jar</code> change. The classes are
+ * compiled against one student's code, so each set of compiled tests is only reused for students whose code
+ * links to it the same way, as described by {@link TestLinkage}. Entries are kept in a directory for the
+ * tests' {@link #key(File)}, named by their linkage signature. Anything the signature misses still shows up
+ * as linkage errors when the tests run, in which case the tests are compiled again for that student.
+ */
+class PassoffTestCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PassoffTestCache.class);
+
+    private static final File CACHE_DIRECTORY = new File("passoff-cache");
+
+    private static final File PASSOFF_JAR = new File("phases", "libs/passoff-dependencies.jar");
+
+    /**
+     * The most cache entries kept. Tests that are modified per student (such as phase 6's TestFactory)
+     * get a new entry for most students, so older entries are removed past this point.
+     */
+    private static final int MAX_ENTRIES = 64;
+
+    /**
+     * The references each cache entry's compiled tests make, read once per entry
+     */
+    private static final Map<File, Set<TestLinkage.Reference>> ENTRY_REFERENCES = new ConcurrentHashMap<>();
+
+    /**
+     * Errors thrown when compiled classes don't match the classes they were compiled against
+     */
+    private static final List<String> LINKAGE_ERRORS = List.of("java.lang.NoSuchMethodError",
+            "java.lang.NoSuchFieldError", "java.lang.NoClassDefFoundError", "java.lang.AbstractMethodError",
+            "java.lang.IncompatibleClassChangeError", "java.lang.IllegalAccessError", "java.lang.VerifyError");
+
+    /**
+     * Computes the cache key for a directory of passoff tests
+     *
+     * @param testsLocation the directory containing the test sources
+     * @return a hash of the test sources and the passoff dependencies
+     */
+    static String key(File testsLocation) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        digest.update(Files.readAllBytes(PASSOFF_JAR.toPath()));
+        Path root = testsLocation.toPath();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.filter(Files::isRegularFile).sorted().toList()) {
+                digest.update(root.relativize(path).toString().getBytes());
+                digest.update(Files.readAllBytes(path));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Gets cached classes for a key that link to a student's code the same way they did when compiled
+     *
+     * @param key        the key of the tests
+     * @param studentJar the jar of the student's classes and their dependencies
+     * @return the directory containing the compiled classes, or null if none have been cached for the student
+     */
+    static File get(String key, File studentJar) throws IOException {
+        for (File entry : entries(new File(CACHE_DIRECTORY, key))) {
+            Set<TestLinkage.Reference> references = ENTRY_REFERENCES.get(entry);
+            if (references == null) {
+                references = TestLinkage.references(entry);
+                ENTRY_REFERENCES.put(entry, references);
+            }
+            if (entry.getName().equals(TestLinkage.signature(references, studentJar))) {
+                entry.setLastModified(System.currentTimeMillis());
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Caches compiled classes. If another grader cached the same tests first, this does nothing.
+     *
+     * @param key           the key of the tests
+     * @param studentJar    the jar of the student's classes the tests were compiled against
+     * @param compiledTests the directory containing the compiled classes
+     */
+    static void put(String key, File studentJar, File compiledTests) {
+        String signature;
+        try {
+            signature = TestLinkage.signature(TestLinkage.references(compiledTests), studentJar);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not read how the compiled passoff tests link to the student's code", e);
+            return;
+        }
+        File keyDirectory = new File(CACHE_DIRECTORY, key);
+        File entry = new File(keyDirectory, signature);
+        if (entry.exists()) return;
+
+        File staging = new File(keyDirectory, signature + "-" + Thread.currentThread().threadId());
+        try {
+            FileUtils.copyDirectory(compiledTests, staging);
+            Files.move(staging.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not cache compiled passoff tests", e);
+        } finally {
+            FileUtils.removeDirectory(staging);
+        }
+        evictOldEntries();
+    }
+
+    /**
+     * Whether any tests failed because the cached classes weren't compatible with the student's code
+     *
+     * @param analysis the results of running the tests
+     * @return true if the tests should be compiled again and rerun
+     */
+    static boolean hasLinkageError(TestAnalysis analysis) {
+        return containsLinkageError(analysis.error()) || hasLinkageError(analysis.root())
+                || hasLinkageError(analysis.extraCredit());
+    }
+
+    private static boolean hasLinkageError(TestNode node) {
+        if (node == null) return false;
+        if (containsLinkageError(node.getErrorMessage())) return true;
+        for (TestNode child : node.getChildren().values()) {
+            if (hasLinkageError(child)) return true;
+        }
+        return false;
+    }
+
+    private static boolean containsLinkageError(String message) {
+        if (message == null) return false;
+        for (String error : LINKAGE_ERRORS) {
+            if (message.contains(error)) return true;
+        }
+        return false;
+    }
+
+    private static synchronized void evictOldEntries() {
+        File[] keyDirectories = CACHE_DIRECTORY.listFiles(File::isDirectory);
+        if (keyDirectories == null) return;
+        List<File> entries = new ArrayList<>();
+        for (File keyDirectory : keyDirectories) {
+            entries.addAll(entries(keyDirectory));
+        }
+        if (entries.size() <= MAX_ENTRIES) return;
+
+        entries.sort(Comparator.comparingLong(File::lastModified));
+        for (File entry : entries.subList(0, entries.size() - MAX_ENTRIES)) {
+            FileUtils.removeDirectory(entry);
+            ENTRY_REFERENCES.remove(entry);
+        }
+    }
+
+    /**
+     * Lists the finished entries for a key, leaving out those still being copied in
+     */
+    private static List<File> entries(File keyDirectory) {
+        File[] entries = keyDirectory.listFiles(file -> file.isDirectory() && !file.getName().contains("-"));
+        return entries == null ? List.of() : Arrays.asList(entries);
+    }
+}
@@ -21,6 +21,11 @@ public class PassoffTestGrader extends TestGrader {
         return "passoff";
     }
 
+    @Override
+    protected boolean usePassoffTestCache() {
+        return true;
+    }
+
     @Override
     protected Set<File> testsToCompile() {
         return Set.of(phaseTests);
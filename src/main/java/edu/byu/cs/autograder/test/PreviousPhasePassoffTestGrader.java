@@ -24,9 +24,14 @@ public class PreviousPhasePassoffTestGrader extends TestGrader {
         return "previous phase passoff";
     }
 
+    @Override
+    protected boolean usePassoffTestCache() {
+        return true;
+    }
+
     @Override
     protected Set<File> testsToCompile() throws GradingException {
-        return allPreviousPhases((p) -> Set.of(new File("./phases/phase" + PhaseUtils.getPhaseAsString(p))));
+        return allPreviousPhases((p) -> Set.of(phaseTestsDirectory(p)));
     }
 
     @Override
@@ -8,6 +8,9 @@ import edu.byu.cs.model.TestNode;
 import edu.byu.cs.util.FileUtils;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -24,13 +27,8 @@ public class TestAnalyzer {
      * @return the root of the test tree
      */
     public TestAnalysis parse(File junitXmlOutput, Set<String> extraCreditTests, String error) throws GradingException {
-        TestNode root = new TestNode();
-        root.setTestName("JUnit Jupiter");
-        TestNode extraCredit = new TestNode();
-        extraCredit.setTestName("JUnit Jupiter Extra Credit");
-
         if(!junitXmlOutput.exists()) {
-            return compileAnalysis(root, extraCredit, error);
+            return analyze(List.of(), extraCreditTests, error);
         }
 
         String xml = FileUtils.readStringFromFile(junitXmlOutput);
@@ -41,35 +39,56 @@ public class TestAnalyzer {
             throw new GradingException("Error parsing test output", e);
         }
 
+        List<TestCaseResult> testCases = new ArrayList<>();
         for (TestSuite.TestCase testCase : suite.getTestcase()) {
+            String name = testCase.getName();
+            String[] systemOut = testCase.getSystemOut().getData().split("\n");
+            for(String str : systemOut) {
+                if(str.startsWith("display-name: ")) {
+                    name = testName(name, str.substring(14));
+                }
+            }
+
+            String failure = testCase.getFailure() == null ? null : testCase.getFailure().getData();
+            testCases.add(new TestCaseResult(testCase.getClassname(), name, failure));
+        }
+
+        return analyze(testCases, extraCreditTests, error);
+    }
+
+    /**
+     * Builds the test tree from the results of individual tests
+     *
+     * @param testCases        the result of each test that ran
+     * @param extraCreditTests the names of the test files (excluding .java) worth bonus points. This cannot be null, but can be empty
+     * @param error            the error output of the test run
+     * @return the root of the test tree
+     */
+    public TestAnalysis analyze(Collection<TestCaseResult> testCases, Set<String> extraCreditTests, String error) {
+        TestNode root = new TestNode();
+        root.setTestName("JUnit Jupiter");
+        TestNode extraCredit = new TestNode();
+        extraCredit.setTestName("JUnit Jupiter Extra Credit");
+
+        for (TestCaseResult testCase : testCases) {
             TestNode base = root;
             String ecCategory = null;
             for(String category : extraCreditTests) {
-                if (testCase.getClassname().endsWith(category)) {
+                if (testCase.className().endsWith(category)) {
                     ecCategory = category;
                     base = extraCredit;
                     break;
                 }
             }
 
-            String name = testCase.getName();
-            String[] systemOut = testCase.getSystemOut().getData().split("\n");
-            for(String str : systemOut) {
-                if(str.startsWith("display-name: ")) {
-                    str = str.substring(14);
-                    if(name.contains("()")) name = str;
-                    else name = String.format("%s %s", str, name);
-                }
-            }
-
             TestNode node = new TestNode();
-            node.setTestName(name);
-            TestNode parent = nodeForClass(base, testCase.getClassname());
-            parent.getChildren().put(name, node);
+            node.setTestName(testCase.name());
+            TestNode parent = nodeForClass(base, testCase.className());
+            parent.getChildren().put(testCase.name(), node);
 
-            node.setPassed(testCase.getFailure() == null);
-            if(testCase.getFailure() != null) {
-                node.setErrorMessage(testCase.getFailure().getData());
+            node.setPassed(testCase.failure() == null);
+            if(testCase.failure() != null) {
+                node.setErrorMessage(testCase.failure());
             }
 
             if(ecCategory != null) {
@@ -81,6 +100,18 @@ public class TestAnalyzer {
         return compileAnalysis(root, extraCredit, error);
     }
 
+    /**
+     * Gets the name shown for a test, preferring its display name
+     *
+     * @param legacyName  the name JUnit reports for the test, such as <code>validMove()</code>
+     * @param displayName the display name of the test
+     * @return the name to show
+     */
+    static String testName(String legacyName, String displayName) {
+        if(legacyName.contains("()")) return displayName;
+        else return String.format("%s %s", displayName, legacyName);
+    }
+
     private TestNode nodeForClass(TestNode base, String name) {
         String extra = null;
         if(name.contains(".")) {
@@ -99,6 +130,15 @@ public class TestAnalyzer {
         else return nodeForClass(node, extra);
     }
 
+    /**
+     * The result of a single test
+     *
+     * @param className the fully qualified name of the class containing the test
+     * @param name      the name shown for the test
+     * @param failure   the failure message, or null if the test passed
+     */
+    public record TestCaseResult(String className, String name, String failure) {}
+
     private TestAnalysis compileAnalysis(TestNode root, TestNode extraCredit, String error) {
         TestNode.collapsePackages(root);
         TestNode.countTests(root);
@@ -4,6 +4,7 @@ import edu.byu.cs.autograder.GradingContext;
 import edu.byu.cs.autograder.GradingException;
 import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.Phase;
 import edu.byu.cs.model.Rubric;
 import edu.byu.cs.model.RubricConfig;
 import edu.byu.cs.model.TestAnalysis;
@@ -24,7 +25,8 @@ public abstract class TestGrader {
     protected final File phaseTests;
 
     /**
-     * The path where the compiled tests are stored (and ran)
+     * The path where the compiled tests are stored (and ran). Each kind of test gets its own directory
+     * so that they can run at the same time.
      */
     private final File stageTestsPath;
 
@@ -39,24 +41,22 @@ public abstract class TestGrader {
 
     public TestGrader(GradingContext gradingContext) {
         this.gradingContext = gradingContext;
-        this.stageTestsPath = new File(gradingContext.stagePath() + "/tests");
-        this.phaseTests = new File("./phases/phase" + PhaseUtils.getPhaseAsString(gradingContext.phase()));
+        this.stageTestsPath = new File(gradingContext.stagePath() + "/tests/" + name().replace(' ', '-'));
+        this.phaseTests = phaseTestsDirectory(gradingContext.phase());
         this.module = PhaseUtils.getModuleUnderTest(gradingContext.phase());
     }
 
 
     public Rubric.Results runTests() throws GradingException, DataAccessException {
-        compileTests();
+        boolean usedCache = compileTests(usePassoffTestCache());
         gradingContext.observer().update("Running " + name() + " tests...");
 
-        TestAnalysis results;
-        if (!new File(gradingContext.stagePath(), "tests").exists()) {
-            results = new TestAnalysis(new TestNode(), null, null);
-            TestNode.countTests(results.root());
-        } else {
-            results = new TestHelper().runJUnitTests(new File(gradingContext.stageRepo(),
-                            "/" + module + "/target/" + module + "-test-dependencies.jar"), stageTestsPath,
-                    packagesToTest(), extraCreditTests());
+        TestAnalysis results = runCompiledTests();
+        if (usedCache && PassoffTestCache.hasLinkageError(results)) {
+            LOGGER.info("Cached {} tests are incompatible with the code of {}, recompiling", name(),
+                    gradingContext.netId());
+            compileTests(false);
+            results = runCompiledTests();
         }
 
         if (results.root() == null) {
@@ -83,9 +83,42 @@ public abstract class TestGrader {
         return new Rubric.Results(notes, score, possiblePoints, results, null);
     }
 
-    private void compileTests() throws GradingException {
+    /**
+     * Gets the directory holding the official tests for a phase. Modifiers that need to change the official
+     * tests copy them into the stage directory first, so that copy is preferred when it exists.
+     *
+     * @param phase the phase of the tests
+     * @return the directory the tests should be compiled from
+     */
+    protected File phaseTestsDirectory(Phase phase) {
+        String phaseDirectory = "phase" + PhaseUtils.getPhaseAsString(phase);
+        File stagePhaseTests = new File(gradingContext.stagePath(), "phases/" + phaseDirectory);
+        return stagePhaseTests.exists() ? stagePhaseTests : new File("./phases/" + phaseDirectory);
+    }
+
+    private TestAnalysis runCompiledTests() throws GradingException {
+        if (!stageTestsPath.exists()) {
+            TestAnalysis results = new TestAnalysis(new TestNode(), null, null);
+            TestNode.countTests(results.root());
+            return results;
+        }
+        return testHelper.runJUnitTests(new File(gradingContext.stageRepo(),
+                        "/" + module + "/target/" + module + "-test-dependencies.jar"), stageTestsPath,
+                packagesToTest(), extraCreditTests(), gradingContext.processLauncher());
+    }
+
+    private boolean compileTests(boolean useCache) throws GradingException {
         gradingContext.observer().update("Compiling " + name() + " tests...");
-        testHelper.compileTests(gradingContext.stageRepo(), module, testsToCompile(), gradingContext.stagePath());
+        return testHelper.compileTests(gradingContext.stageRepo(), module, testsToCompile(), stageTestsPath, useCache,
+                gradingContext.processLauncher());
+    }
+
+    /**
+     * Whether the tests being compiled are the official passoff tests, whose compiled classes can be shared
+     * between students through the {@link PassoffTestCache}
+     */
+    protected boolean usePassoffTestCache() {
+        return false;
     }
 
     protected abstract String name();
@@ -1,9 +1,12 @@
 package edu.byu.cs.autograder.test;
 
 import edu.byu.cs.autograder.GradingException;
+import edu.byu.cs.autograder.compile.InProcessCompiler;
 import edu.byu.cs.model.Rubric;
 import edu.byu.cs.model.TestAnalysis;
+import edu.byu.cs.properties.ApplicationProperties;
 import edu.byu.cs.util.FileUtils;
+import edu.byu.cs.util.ProcessLauncher;
 import edu.byu.cs.util.ProcessUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +26,14 @@ public class TestHelper {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TestHelper.class);
 
+    private static final long TEST_TIMEOUT = 90000; //90 seconds
+
+    /**
+     * Bytes of test output kept from each end of the output. Anything the tests print goes to the
+     * student, and some students print a lot.
+     */
+    private static final int MAX_OUTPUT_BYTES = 65536;
+
     /**
      * The path to the standalone JUnit jar
      */
@@ -33,6 +44,11 @@ public class TestHelper {
      */
     private static final String junitJupiterApiJarPath;
 
+    /**
+     * Runs the tests instead of the console launcher when test JVMs are started ahead of time
+     */
+    private static final WarmTestRunner warmTestRunner;
+
 
     static {
         Path libsPath = new File("phases", "libs").toPath();
@@ -42,6 +58,8 @@ public class TestHelper {
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        warmTestRunner = new WarmTestRunner(new File(standaloneJunitJarPath), new File(junitJupiterApiJarPath),
+                TEST_TIMEOUT, MAX_OUTPUT_BYTES);
     }
 
     /**
@@ -50,48 +68,100 @@ public class TestHelper {
      * @param stageRepoPath     The path to the student's repository
      * @param module            The module to compile
      * @param testsLocations    The location of the tests
-     * @param stagePath         The path to the stage directory
+     * @param compiledTests     The directory to put the compiled tests in
+     * @param useCache          Whether the tests are the official passoff tests, which can be reused between students
+     * @param launcher          Runs the compiler under the submission's resource limits
+     * @return true if any of the compiled tests came from the {@link PassoffTestCache}
      */
-    void compileTests(File stageRepoPath, String module, Set<File> testsLocations, String stagePath)
-            throws GradingException {
+    boolean compileTests(File stageRepoPath, String module, Set<File> testsLocations, File compiledTests,
+                         boolean useCache, ProcessLauncher launcher) throws GradingException {
         // remove any existing tests
-        FileUtils.removeDirectory(new File(stagePath + "/tests"));
+        FileUtils.removeDirectory(compiledTests);
 
+        boolean usedCache = false;
         try {
             for(File testsLocation : testsLocations) {
                 if (!testsLocation.exists()) continue;
-                /* Find files to compile */
-                List<String> findCommands = getFindCommands();
+                if (!useCache) {
+                    compileTestsLocation(stageRepoPath, module, testsLocation, compiledTests, launcher);
+                    continue;
+                }
 
-                ProcessBuilder findProcessBuilder = new ProcessBuilder()
-                        .directory(testsLocation)
-                        .command(findCommands);
+                String key = PassoffTestCache.key(testsLocation);
+                File studentJar =
+                        new File(stageRepoPath, "/" + module + "/target/" + module + "-test-dependencies.jar");
+                File cached = PassoffTestCache.get(key, studentJar);
+                if (cached != null) {
+                    FileUtils.copyDirectory(cached, compiledTests);
+                    usedCache = true;
+                    continue;
+                }
+
+                File scratch = new File(compiledTests.getParentFile(), compiledTests.getName() + "-" + key);
+                try {
+                    compileTestsLocation(stageRepoPath, module, testsLocation, scratch, launcher);
+                    if (!scratch.exists()) continue;
+                    FileUtils.copyDirectory(scratch, compiledTests);
+                    PassoffTestCache.put(key, studentJar, scratch);
+                } finally {
+                    FileUtils.removeDirectory(scratch);
+                }
+            }
+        } catch (IOException | ProcessUtils.ProcessException e) {
+            LOGGER.error("Error compiling tests", e);
+            throw new GradingException("Error compiling tests", e);
+        }
+        return usedCache;
+    }
 
-                String findOutput = ProcessUtils.runProcess(findProcessBuilder).stdOut().replace("\n", " ");
+    private void compileTestsLocation(File stageRepoPath, String module, File testsLocation, File compiledTests,
+                                      ProcessLauncher launcher) throws IOException, ProcessUtils.ProcessException, GradingException {
+        if (InProcessCompiler.isEnabled()) {
+            compileTestsInProcess(stageRepoPath, module, testsLocation, compiledTests);
+            return;
+        }
+        /* Find files to compile */
+        List<String> findCommands = getFindCommands();
 
-                /* Compile files */
-                String chessJarWithDeps = new File(stageRepoPath, "/" + module + "/target/" + module + "-test-dependencies.jar")
-                        .getCanonicalPath();
+        ProcessBuilder findProcessBuilder = new ProcessBuilder()
+                .directory(testsLocation)
+                .command(findCommands);
 
-                List<String> compileCommands = getCompileCommands(stagePath, chessJarWithDeps);
+        String findOutput = ProcessUtils.runProcess(findProcessBuilder).stdOut().replace("\n", " ");
 
-                ProcessBuilder compileProcessBuilder =
-                        new ProcessBuilder()
-                                .directory(testsLocation)
-                                .command(compileCommands);
+        /* Compile files */
+        String chessJarWithDeps = new File(stageRepoPath, "/" + module + "/target/" + module + "-test-dependencies.jar")
+                .getCanonicalPath();
 
-                ProcessUtils.ProcessOutput compileOutput = ProcessUtils.runProcess(compileProcessBuilder, findOutput);
+        List<String> compileCommands = getCompileCommands(compiledTests, chessJarWithDeps);
 
+        ProcessBuilder compileProcessBuilder =
+                new ProcessBuilder()
+                        .directory(testsLocation)
+                        .command(compileCommands);
 
-                if (compileOutput.statusCode() != 0) {
-                    LOGGER.error("Error compiling tests: {}", compileOutput.stdErr());
-                    Rubric.Results results = Rubric.Results.textError("Error compiling tests", compileOutput.stdErr());
-                    throw new GradingException(results.notes(), results);
-                }
-            }
-        } catch (IOException | ProcessUtils.ProcessException e) {
-            LOGGER.error("Error compiling tests", e);
-            throw new GradingException("Error compiling tests", e);
+        ProcessUtils.ProcessOutput compileOutput = ProcessUtils.runProcess(compileProcessBuilder, findOutput, launcher);
+
+
+        if (compileOutput.statusCode() != 0) {
+            LOGGER.error("Error compiling tests: {}", compileOutput.stdErr());
+            Rubric.Results results = Rubric.Results.textError("Error compiling tests", compileOutput.stdErr());
+            throw new GradingException(results.notes(), results);
+        }
+    }
+
+    private void compileTestsInProcess(File stageRepoPath, String module, File testsLocation, File compiledTests)
+            throws IOException, GradingException {
+        File chessJarWithDeps = new File(stageRepoPath, "/" + module + "/target/" + module + "-test-dependencies.jar");
+        List<File> classpath = List.of(testsLocation, chessJarWithDeps,
+                new File(standaloneJunitJarPath), new File(junitJupiterApiJarPath));
+
+        InProcessCompiler.CompileResult result = InProcessCompiler.compile(
+                InProcessCompiler.findSources(testsLocation), classpath, compiledTests, testsLocation);
+        if (!result.success()) {
+            LOGGER.error("Error compiling tests: {}", result.errors());
+            Rubric.Results results = Rubric.Results.textError("Error compiling tests", result.errors());
+            throw new GradingException(results.notes(), results);
         }
     }
 
@@ -105,12 +175,12 @@ public class TestHelper {
         return commands;
     }
 
-    private static List<String> getCompileCommands(String stagePath, String chessJarWithDeps) {
+    private static List<String> getCompileCommands(File compiledTests, String chessJarWithDeps) {
         List<String> commands = new ArrayList<>();
         commands.add("xargs");
         commands.add("javac");
         commands.add("-d");
-        commands.add(stagePath + "/tests");
+        commands.add(compiledTests.getAbsolutePath());
         commands.add("-cp");
         commands.add(".:" + chessJarWithDeps + ":" + standaloneJunitJarPath + ":" + junitJupiterApiJarPath);
         return commands;
@@ -123,10 +193,15 @@ public class TestHelper {
      * @param compiledTests    The directory containing the compiled test classes.
      * @param packagesToTest   A set of packages to test. Example: {"package1", "package2"}
      * @param extraCreditTests A set of extra credit tests. Example: {"ExtraCreditTest1", "ExtraCreditTest2"}
+     * @param launcher         Runs the tests under the submission's resource limits
      * @return A TestNode object containing the results of the tests.
      */
     TestAnalysis runJUnitTests(File uberJar, File compiledTests, Set<String> packagesToTest,
-                               Set<String> extraCreditTests) throws GradingException {
+                               Set<String> extraCreditTests, ProcessLauncher launcher) throws GradingException {
+        if (ApplicationProperties.warmTestJvm()) {
+            return warmTestRunner.run(uberJar, compiledTests, packagesToTest, extraCreditTests, launcher);
+        }
+
         // Process cannot handle relative paths or wildcards,
         // so we need to only use absolute paths and find
         // to get the files
@@ -140,7 +215,8 @@ public class TestHelper {
                 .command(commands);
 
         try {
-            ProcessUtils.ProcessOutput processOutput = ProcessUtils.runProcess(processBuilder);
+            ProcessUtils.ProcessOutput processOutput = ProcessUtils.runProcess(processBuilder, null, TEST_TIMEOUT,
+                    ProcessUtils.OutputCapture.bounded(MAX_OUTPUT_BYTES, MAX_OUTPUT_BYTES), launcher);
             String error = processOutput.stdErr();
 
             TestAnalyzer testAnalyzer = new TestAnalyzer();
@@ -171,7 +247,7 @@ public class TestHelper {
         return commands;
     }
 
-    private static String removeSparkLines(String errorOutput) {
+    static String removeSparkLines(String errorOutput) {
         List<String> lines = new ArrayList<>(Arrays.asList(errorOutput.split("\n")));
         lines.removeIf(s -> s.matches("^\\[(main|Thread-\\d*)] INFO.*$"));
         return String.join("\n", lines);
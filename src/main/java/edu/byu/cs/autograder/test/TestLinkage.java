@@ -0,0 +1,284 @@
+package edu.byu.cs.autograder.test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Describes how compiled tests link to a student's classes.
+ * <br>
+ * Compiled tests refer to classes, methods, and fields by name and descriptor. Two students' code links the
+ * same way to the same compiled tests when every class, method, and field the tests refer to resolves to a
+ * declaration with the same descriptor and access flags. Anything else in the students' code, such as their
+ * own helper methods, doesn't matter. Constants inlined by the compiler aren't referred to, so they aren't
+ * described.
+ */
+final class TestLinkage {
+
+    private TestLinkage() {}
+
+    /**
+     * A reference from compiled tests to a class, or to a member of a class when <code>name</code> isn't null
+     */
+    record Reference(String owner, String name, String descriptor) {}
+
+    /**
+     * The parts of a class file that linking depends on
+     */
+    private record ClassInfo(int access, String superName, List<String> interfaces, Map<String, Integer> members) {}
+
+    /**
+     * Finds the references compiled tests make to classes outside of the tests
+     *
+     * @param compiledTests the directory containing the compiled tests
+     * @return the references to other classes
+     */
+    static Set<Reference> references(File compiledTests) throws IOException {
+        Set<String> testClasses = new HashSet<>();
+        Set<Reference> references = new HashSet<>();
+        Path root = compiledTests.toPath();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.filter(path -> path.toString().endsWith(".class")).toList()) {
+                try (InputStream in = Files.newInputStream(path)) {
+                    testClasses.add(readReferences(in, references));
+                }
+            }
+        }
+        references.removeIf(reference -> testClasses.contains(reference.owner())
+                || reference.owner().startsWith("java/"));
+        return references;
+    }
+
+    /**
+     * Computes a hash of what a student's classes declare for each reference from the compiled tests
+     *
+     * @param references the references made by the compiled tests, from {@link #references(File)}
+     * @param studentJar the jar of the student's classes and their dependencies
+     * @return the same hash for any two students whose classes link the same way to the tests
+     */
+    static String signature(Set<Reference> references, File studentJar) throws IOException {
+        Set<String> resolved = new TreeSet<>();
+        try (JarFile jar = new JarFile(studentJar)) {
+            Map<String, ClassInfo> classes = new HashMap<>();
+            for (Reference reference : references) {
+                resolved.add(reference + " -> " + resolve(reference, jar, classes));
+            }
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        for (String line : resolved) {
+            digest.update(line.getBytes());
+            digest.update((byte) '\n');
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Describes what a reference resolves to, searching superclasses and interfaces for members the way the
+     * JVM does. The search stops at classes that aren't in the jar, which come from the JDK or the passoff
+     * dependencies and so are the same for every student.
+     */
+    private static String resolve(Reference reference, JarFile jar, Map<String, ClassInfo> classes)
+            throws IOException {
+        ClassInfo owner = classInfo(reference.owner(), jar, classes);
+        if (owner == null) return "outside";
+        if (reference.name() == null) return "class " + owner.access();
+
+        Deque<String> search = new ArrayDeque<>(List.of(reference.owner()));
+        Set<String> searched = new HashSet<>();
+        List<String> outside = new ArrayList<>();
+        while (!search.isEmpty()) {
+            String className = search.removeFirst();
+            if (!searched.add(className)) continue;
+            ClassInfo info = classInfo(className, jar, classes);
+            if (info == null) {
+                outside.add(className);
+                continue;
+            }
+            Integer access = info.members().get(reference.name() + reference.descriptor());
+            if (access != null) return className + " " + access;
+            if (info.superName() != null) search.addLast(info.superName());
+            search.addAll(info.interfaces());
+        }
+        return "outside " + outside;
+    }
+
+    private static ClassInfo classInfo(String className, JarFile jar, Map<String, ClassInfo> classes)
+            throws IOException {
+        if (classes.containsKey(className)) return classes.get(className);
+        JarEntry entry = jar.getJarEntry(className + ".class");
+        ClassInfo info = null;
+        if (entry != null) {
+            try (InputStream in = jar.getInputStream(entry)) {
+                info = readClassInfo(in);
+            }
+        }
+        classes.put(className, info);
+        return info;
+    }
+
+    /**
+     * Reads the classes, methods, and fields a class file refers to
+     *
+     * @param in         the class file
+     * @param references where the references are added
+     * @return the name of the class
+     */
+    private static String readReferences(InputStream in, Set<Reference> references) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        ConstantPool pool = ConstantPool.read(data);
+        for (int i = 1; i < pool.tags.length; i++) {
+            switch (pool.tags[i]) {
+                case ConstantPool.CLASS -> {
+                    String className = elementClass(pool.className(i));
+                    if (className != null) references.add(new Reference(className, null, null));
+                }
+                case ConstantPool.FIELD_REF, ConstantPool.METHOD_REF, ConstantPool.INTERFACE_METHOD_REF -> {
+                    String owner = elementClass(pool.className(pool.first[i]));
+                    int nameAndType = pool.second[i];
+                    if (owner != null) {
+                        references.add(new Reference(owner, pool.utf8(pool.first[nameAndType]),
+                                pool.utf8(pool.second[nameAndType])));
+                    }
+                }
+                default -> {}
+            }
+        }
+        data.readUnsignedShort(); // access flags
+        return pool.className(data.readUnsignedShort());
+    }
+
+    private static ClassInfo readClassInfo(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        ConstantPool pool = ConstantPool.read(data);
+        int access = data.readUnsignedShort();
+        data.readUnsignedShort(); // this class
+        int superIndex = data.readUnsignedShort();
+        String superName = superIndex == 0 ? null : pool.className(superIndex);
+
+        int interfaceCount = data.readUnsignedShort();
+        List<String> interfaces = new ArrayList<>();
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(pool.className(data.readUnsignedShort()));
+        }
+
+        Map<String, Integer> members = new HashMap<>();
+        for (int kind = 0; kind < 2; kind++) { // fields, then methods
+            int memberCount = data.readUnsignedShort();
+            for (int i = 0; i < memberCount; i++) {
+                int memberAccess = data.readUnsignedShort();
+                String name = pool.utf8(data.readUnsignedShort());
+                String descriptor = pool.utf8(data.readUnsignedShort());
+                members.put(name + descriptor, memberAccess);
+                skipAttributes(data);
+            }
+        }
+        return new ClassInfo(access, superName, interfaces, members);
+    }
+
+    private static void skipAttributes(DataInputStream data) throws IOException {
+        int attributeCount = data.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            data.readUnsignedShort(); // name
+            data.skipNBytes(Integer.toUnsignedLong(data.readInt()));
+        }
+    }
+
+    /**
+     * Gets the class of a class constant, which may be an array of the class
+     *
+     * @return the class name, or null for arrays of primitives
+     */
+    private static String elementClass(String className) {
+        if (!className.startsWith("[")) return className;
+        String element = className.substring(className.lastIndexOf('[') + 1);
+        return element.startsWith("L") ? element.substring(1, element.length() - 1) : null;
+    }
+
+    /**
+     * The constants of a class file that name classes and members
+     */
+    private static class ConstantPool {
+        private static final int UTF8 = 1;
+        private static final int CLASS = 7;
+        private static final int FIELD_REF = 9;
+        private static final int METHOD_REF = 10;
+        private static final int INTERFACE_METHOD_REF = 11;
+
+        private final int[] tags;
+        private final String[] strings;
+        private final int[] first;
+        private final int[] second;
+
+        private ConstantPool(int count) {
+            tags = new int[count];
+            strings = new String[count];
+            first = new int[count];
+            second = new int[count];
+        }
+
+        static ConstantPool read(DataInputStream data) throws IOException {
+            if (data.readInt() != 0xCAFEBABE) throw new IOException("Not a class file");
+            data.readUnsignedShort(); // minor version
+            data.readUnsignedShort(); // major version
+
+            ConstantPool pool = new ConstantPool(data.readUnsignedShort());
+            for (int i = 1; i < pool.tags.length; i++) {
+                int tag = data.readUnsignedByte();
+                pool.tags[i] = tag;
+                switch (tag) {
+                    case UTF8 -> pool.strings[i] = data.readUTF();
+                    case CLASS, 8, 16, 19, 20 -> pool.first[i] = data.readUnsignedShort();
+                    case FIELD_REF, METHOD_REF, INTERFACE_METHOD_REF, 12, 17, 18 -> {
+                        pool.first[i] = data.readUnsignedShort();
+                        pool.second[i] = data.readUnsignedShort();
+                    }
+                    case 3, 4 -> data.readInt();
+                    case 5, 6 -> {
+                        // Longs and doubles take two entries
+                        data.readLong();
+                        i++;
+                    }
+                    case 15 -> {
+                        data.readUnsignedByte();
+                        data.readUnsignedShort();
+                    }
+                    default -> throw new IOException("Unknown constant pool tag " + tag);
+                }
+            }
+            return pool;
+        }
+
+        String utf8(int index) {
+            return strings[index];
+        }
+
+        String className(int index) {
+            return strings[first[index]];
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package edu.byu.cs.autograder.test;
+
+import edu.byu.cs.autograder.GradingException;
+import edu.byu.cs.model.TestAnalysis;
+import edu.byu.cs.util.ProcessLauncher;
+import edu.byu.cs.util.ProcessUtils;
+import edu.byu.cs.util.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Runs JUnit tests in a JVM that was started before it was needed, instead of starting
+ * <code>junit-platform-console-standalone</code> for each test suite, and reads the results straight from
+ * {@link LauncherTestRunner} instead of an XML report.
+ * <br>
+ * Each test suite still gets a JVM of its own, so student code is as isolated as it is with the console
+ * launcher. The JVM runs under the submission's resource limits, and it is killed along with anything it
+ * started if the tests run too long. Whenever a JVM is given tests, another is started to take its place, so
+ * there is a spare JVM for each test suite that has run at the same time. Spares are started under the limits
+ * of the submission they replace, and are thrown away if the next submission has different limits.
+ * <br>
+ * Test JVMs run in the autograder's working directory rather than the directory of the compiled tests.
+ */
+class WarmTestRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmTestRunner.class);
+
+    /**
+     * A test JVM waiting to be given tests, and the limits it was started under
+     */
+    private record SpareJvm(Process process, ProcessLauncher.ResourceLimits limits) {}
+
+    private final Queue<SpareJvm> spareJvms = new ConcurrentLinkedQueue<>();
+
+    private final File standaloneJunitJar;
+    private final File junitJupiterApiJar;
+    private final long timeout;
+    private final int maxOutputBytes;
+
+    /**
+     * @param standaloneJunitJar the JUnit Platform console standalone jar, which has the launcher
+     * @param junitJupiterApiJar the JUnit Jupiter API jar
+     * @param timeout            how long the tests may run, in milliseconds, before the JVM is killed
+     * @param maxOutputBytes     bytes of test output kept from each end of the output
+     */
+    WarmTestRunner(File standaloneJunitJar, File junitJupiterApiJar, long timeout, int maxOutputBytes) {
+        this.standaloneJunitJar = standaloneJunitJar;
+        this.junitJupiterApiJar = junitJupiterApiJar;
+        this.timeout = timeout;
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    /**
+     * Runs the JUnit tests in the given directory
+     *
+     * @param uberJar          The jar file containing the compiled classes to be tested.
+     * @param compiledTests    The directory containing the compiled test classes.
+     * @param packagesToTest   A set of packages to test. Example: {"package1", "package2"}
+     * @param extraCreditTests A set of extra credit tests. Example: {"ExtraCreditTest1", "ExtraCreditTest2"}
+     * @param launcher         Runs the tests under the submission's resource limits
+     * @return A TestNode object containing the results of the tests.
+     */
+    TestAnalysis run(File uberJar, File compiledTests, Set<String> packagesToTest, Set<String> extraCreditTests,
+                     ProcessLauncher launcher) throws GradingException {
+        TestAnalyzer testAnalyzer = new TestAnalyzer();
+        if (packagesToTest.isEmpty()) {
+            return testAnalyzer.analyze(List.of(), extraCreditTests, "");
+        }
+
+        File resultsFile = new File(compiledTests, LauncherTestRunner.RESULTS_FILE);
+        try {
+            Files.deleteIfExists(resultsFile.toPath());
+            String job = String.join("\n", compiledTests.getAbsolutePath(), uberJar.getAbsolutePath(),
+                    String.join("\n", packagesToTest)) + "\n";
+            ProcessUtils.ProcessOutput output = ProcessUtils.finishProcess(takeJvm(launcher), job, timeout,
+                    ProcessUtils.OutputCapture.bounded(maxOutputBytes, maxOutputBytes), launcher);
+
+            if (!resultsFile.exists()) {
+                LOGGER.error("Tests exited with status {} without writing their results", output.statusCode());
+                throw new GradingException("Error running tests: the tests stopped before they finished");
+            }
+            TestAnalyzer.TestCaseResult[] results =
+                    Serializer.deserialize(Files.readString(resultsFile.toPath()), TestAnalyzer.TestCaseResult[].class);
+            return testAnalyzer.analyze(List.of(results), extraCreditTests,
+                    TestHelper.removeSparkLines(output.stdErr()));
+        } catch (ProcessUtils.ProcessException | IOException | Serializer.SerializationException e) {
+            LOGGER.error("Error running tests", e);
+            throw new GradingException("Error running tests", e);
+        }
+    }
+
+    /**
+     * Takes a spare JVM started under the launcher's limits, or starts one if there are none, and starts
+     * another to take its place
+     */
+    private Process takeJvm(ProcessLauncher launcher) throws ProcessUtils.ProcessException {
+        Process jvm = null;
+        SpareJvm spare;
+        while (jvm == null && (spare = spareJvms.poll()) != null) {
+            if (spare.process().isAlive() && Objects.equals(spare.limits(), launcher.limits())) {
+                jvm = spare.process();
+            } else {
+                ProcessUtils.destroy(spare.process());
+            }
+        }
+        if (jvm == null) {
+            jvm = startJvm(launcher);
+        }
+        spareJvms.add(new SpareJvm(startJvm(launcher), launcher.limits()));
+        return jvm;
+    }
+
+    /**
+     * Starts a test JVM, which exits on its own if the autograder stops before giving it any tests. It runs on
+     * the autograder's own Java, since it runs the autograder's {@link LauncherTestRunner}.
+     */
+    private Process startJvm(ProcessLauncher launcher) throws ProcessUtils.ProcessException {
+        String java = new File(System.getProperty("java.home"), "bin/java").getPath();
+        ProcessBuilder processBuilder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                LauncherTestRunner.class.getName(), standaloneJunitJar.getAbsolutePath(),
+                junitJupiterApiJar.getAbsolutePath());
+        return ProcessUtils.startProcess(processBuilder, launcher);
+    }
+}
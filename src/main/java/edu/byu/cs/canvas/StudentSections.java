@@ -0,0 +1,78 @@
+package edu.byu.cs.canvas;
+
+import edu.byu.cs.canvas.model.CanvasSection;
+import edu.byu.cs.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Remembers which Canvas section each student is in. Looking up every section's students takes a request to
+ * Canvas per section, so the sections are refreshed in the background once they are older than
+ * {@link #REFRESH_INTERVAL}, and lookups use the last sections read until then.
+ */
+public class StudentSections {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StudentSections.class);
+
+    /**
+     * The section of a student who isn't in any section, or whose section hasn't been read yet
+     */
+    public static final int NO_SECTION = -1;
+
+    private static final Duration REFRESH_INTERVAL = Duration.ofHours(1);
+
+    private volatile Map<String, Integer> sections = Map.of();
+
+    private volatile Instant refreshed = Instant.MIN;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * Gets the section a student is in, starting a refresh in the background if the sections are out of date
+     *
+     * @param netId the student's netId
+     * @return the Canvas id of the student's section, or {@link #NO_SECTION}
+     */
+    public int sectionOf(String netId) {
+        if (refreshed.plus(REFRESH_INTERVAL).isBefore(Instant.now()) && refreshing.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::refreshInBackground, "student-sections-refresh");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return sections.getOrDefault(netId, NO_SECTION);
+    }
+
+    private void refreshInBackground() {
+        try {
+            refresh();
+        } catch (CanvasException | RuntimeException e) {
+            LOGGER.error("Error reading the students in each section from Canvas", e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Reads the students in each section from Canvas
+     *
+     * @throws CanvasException if there is an error with Canvas
+     */
+    void refresh() throws CanvasException {
+        // Retry failures on the next interval rather than on every lookup
+        refreshed = Instant.now();
+        CanvasIntegration canvas = CanvasService.getCanvasIntegration();
+        Map<String, Integer> read = new HashMap<>();
+        for (CanvasSection section : canvas.getAllSections()) {
+            for (User student : canvas.getAllStudentsBySection(section.id())) {
+                read.put(student.netId(), section.id());
+            }
+        }
+        sections = Map.copyOf(read);
+    }
+}
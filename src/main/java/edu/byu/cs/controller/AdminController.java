@@ -4,8 +4,10 @@ import edu.byu.cs.canvas.CanvasException;
 import edu.byu.cs.canvas.model.CanvasSection;
 import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.dataAccess.ItemNotFoundException;
+import edu.byu.cs.dataAccess.sql.SqlDb;
 import edu.byu.cs.model.User;
 import edu.byu.cs.service.AdminService;
+import edu.byu.cs.util.ProcessMetrics;
 import edu.byu.cs.util.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -103,4 +105,16 @@ public class AdminController {
             return e.getMessage();
         }
     };
+
+    public static final Route processMetricsGet = (req, res) -> {
+        res.type("application/json");
+        res.status(200);
+        return Serializer.serialize(ProcessMetrics.snapshot());
+    };
+
+    public static final Route databaseMetricsGet = (req, res) -> {
+        res.type("application/json");
+        res.status(200);
+        return Serializer.serialize(SqlDb.poolMetrics());
+    };
 }
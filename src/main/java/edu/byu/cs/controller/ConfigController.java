@@ -112,6 +112,46 @@ public class ConfigController {
         return "";
     };
 
+    public static final Route updateGraderThreadCount = (req, res) -> {
+        User user = req.session().attribute("user");
+
+        JsonObject jsonObject = Serializer.deserialize(req.body(), JsonObject.class);
+        Integer graderThreadCount = Serializer.deserialize(jsonObject.get("graderThreadCount"), Integer.class);
+
+        try {
+            ConfigService.updateGraderThreadCount(user, graderThreadCount);
+        } catch (DataAccessException e) {
+            halt(500, e.getMessage());
+            return null;
+        } catch (IllegalArgumentException e) {
+            halt(400, e.getMessage());
+            return null;
+        }
+
+        res.status(200);
+        return "";
+    };
+
+    public static final Route updateMaxQueueDepth = (req, res) -> {
+        User user = req.session().attribute("user");
+
+        JsonObject jsonObject = Serializer.deserialize(req.body(), JsonObject.class);
+        Integer maxQueueDepth = Serializer.deserialize(jsonObject.get("maxQueueDepth"), Integer.class);
+
+        try {
+            ConfigService.updateMaxQueueDepth(user, maxQueueDepth);
+        } catch (DataAccessException e) {
+            halt(500, e.getMessage());
+            return null;
+        } catch (IllegalArgumentException e) {
+            halt(400, e.getMessage());
+            return null;
+        }
+
+        res.status(200);
+        return "";
+    };
+
     public static final Route updatePenalties = (req, res) -> {
         User user = req.session().attribute("user");
 
@@ -0,0 +1,136 @@
+package edu.byu.cs.controller;
+
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.GradingEvent;
+import edu.byu.cs.util.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Relays the progress of graders running on workers to the students subscribed on this server,
+ * by polling the {@link edu.byu.cs.dataAccess.GradingEventDao} for new events.
+ * <br>
+ * Event ids are assigned when a worker inserts an event, but several workers insert at once, so an event can
+ * become visible before one with a lower id that hasn't committed yet. Rather than only reading past the
+ * highest id relayed, each poll reads again from the last id that has been settled for {@link #SETTLE_TIME},
+ * skipping the events it has already relayed.
+ */
+public class GradingEventRelay {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GradingEventRelay.class);
+
+    private static final long POLL_INTERVAL_MILLIS = 250;
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final long CLEANUP_INTERVAL_MINUTES = 1;
+
+    /**
+     * How long events are kept after being published. Only the server relaying them reads them,
+     * so this only needs to cover that server falling behind.
+     */
+    private static final Duration EVENT_RETENTION = Duration.ofHours(1);
+
+    /**
+     * How long after an event is relayed an event with a lower id may still appear
+     */
+    private static final Duration SETTLE_TIME = Duration.ofSeconds(5);
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "grading-event-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BiConsumer<String, Map<String, Object>> relayTo;
+
+    /**
+     * Every event with this id or lower has been relayed, or will never appear
+     */
+    private long settledId;
+
+    /**
+     * When each event after {@link #settledId} was relayed, by id. Only used by the relay thread.
+     */
+    private final Map<Long, Instant> relayed = new HashMap<>();
+
+    public GradingEventRelay() {
+        this(TrafficController.getInstance()::relayGradingMessage);
+    }
+
+    GradingEventRelay(BiConsumer<String, Map<String, Object>> relayTo) {
+        this.relayTo = relayTo;
+    }
+
+    /**
+     * Starts relaying the events published from now on
+     */
+    public void start() throws DataAccessException {
+        settledId = DaoService.getGradingEventDao().getLastEventId();
+        scheduler.scheduleWithFixedDelay(this::relayEvents, POLL_INTERVAL_MILLIS, POLL_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::removeOldEvents, CLEANUP_INTERVAL_MINUTES, CLEANUP_INTERVAL_MINUTES,
+                TimeUnit.MINUTES);
+    }
+
+    void relayEvents() {
+        try {
+            long readId = settledId;
+            List<GradingEvent> events;
+            do {
+                events = DaoService.getGradingEventDao().getEventsAfter(readId, BATCH_SIZE);
+                for (GradingEvent event : events) {
+                    if (relayed.putIfAbsent(event.id(), Instant.now()) == null) {
+                        relay(event);
+                    }
+                    readId = event.id();
+                }
+            } while (events.size() == BATCH_SIZE);
+        } catch (DataAccessException | RuntimeException e) {
+            LOGGER.error("Error reading grading events", e);
+        }
+        settle();
+    }
+
+    /**
+     * Advances {@link #settledId} past the events relayed long enough ago that nothing before them can appear
+     */
+    private void settle() {
+        Instant cutoff = Instant.now().minus(SETTLE_TIME);
+        for (Map.Entry<Long, Instant> entry : relayed.entrySet()) {
+            if (entry.getValue().isBefore(cutoff)) {
+                settledId = Math.max(settledId, entry.getKey());
+            }
+        }
+        relayed.keySet().removeIf(id -> id <= settledId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void relay(GradingEvent event) {
+        try {
+            Map<String, Object> message = Serializer.deserialize(event.message(), Map.class);
+            relayTo.accept(event.netId(), message);
+        } catch (RuntimeException e) {
+            LOGGER.error("Error relaying grading event {} for {}", event.id(), event.netId(), e);
+        }
+    }
+
+    private void removeOldEvents() {
+        try {
+            DaoService.getGradingEventDao().removeEventsBefore(Instant.now().minus(EVENT_RETENTION));
+        } catch (DataAccessException | RuntimeException e) {
+            LOGGER.error("Error removing old grading events", e);
+        }
+    }
+}
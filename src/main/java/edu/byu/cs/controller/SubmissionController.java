@@ -1,19 +1,26 @@
 package edu.byu.cs.controller;
 
 import edu.byu.cs.controller.exception.BadRequestException;
+import edu.byu.cs.controller.exception.TooManyRequestsException;
 import edu.byu.cs.controller.netmodel.ApprovalRequest;
 import edu.byu.cs.controller.netmodel.GradeRequest;
 import edu.byu.cs.dataAccess.*;
 import edu.byu.cs.model.Phase;
 import edu.byu.cs.model.Submission;
+import edu.byu.cs.model.SubmissionSummary;
 import edu.byu.cs.model.User;
 import edu.byu.cs.service.SubmissionService;
 import edu.byu.cs.util.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.Request;
+import spark.Response;
 import spark.Route;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 import static spark.Spark.halt;
@@ -35,6 +42,10 @@ public class SubmissionController {
         } catch (BadRequestException e) {
             halt(400, e.getMessage());
             return null;
+        } catch (TooManyRequestsException e) {
+            res.header("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            halt(429, e.getMessage());
+            return null;
         } catch (DataAccessException e) {
             halt(500, e.getMessage());
             return null;
@@ -138,7 +149,7 @@ public class SubmissionController {
         }
 
         User user = req.session().attribute("user");
-        Collection<Submission> submissions;
+        Collection<SubmissionSummary> submissions;
         try {
             submissions = SubmissionService.getXSubmissionsForUser(user.netId(), phase);
         } catch (DataAccessException e) {
@@ -152,21 +163,57 @@ public class SubmissionController {
         return Serializer.serialize(submissions);
     };
 
+    /**
+     * Responds with summaries of the latest submissions, streamed into a JSON array as they are read.
+     * <br>
+     * The <code>:count</code> route param limits how many are returned; without it, all of them are.
+     * The next page starts after the submission given by the <code>beforeTimestamp</code>,
+     * <code>beforeNetId</code>, and <code>beforePhase</code> query params, which are the
+     * <code>timestamp</code>, <code>netId</code>, and <code>phase</code> of the last submission of the previous page.
+     */
     public static final Route latestSubmissionsGet = (req, res) -> {
         String countString = req.params(":count");
         int count = countString == null ? -1 : Integer.parseInt(countString); // if they don't give a count, set it to -1, which gets all latest submissions
 
-        Collection<Submission> submissions = null;
-        try {
-            submissions = SubmissionService.getLatestSubmissions(count);
-        } catch (DataAccessException e) {
-            halt(500);
+        SubmissionDao.LatestSubmissionCursor before = null;
+        if (req.queryParams("beforeTimestamp") != null) {
+            try {
+                before = new SubmissionDao.LatestSubmissionCursor(Instant.parse(req.queryParams("beforeTimestamp")),
+                        Objects.requireNonNull(req.queryParams("beforeNetId")),
+                        Phase.valueOf(req.queryParams("beforePhase")));
+            } catch (IllegalArgumentException | NullPointerException | DateTimeParseException e) {
+                LOGGER.error("Invalid cursor", e);
+                halt(400, "Invalid cursor");
+            }
         }
 
         res.status(200);
         res.type("application/json");
 
-        return Serializer.serialize(submissions);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(res.raw().getOutputStream(), StandardCharsets.UTF_8));
+        try {
+            writer.write('[');
+            boolean[] first = {true};
+            SubmissionService.streamLatestSubmissions(count, before, summary -> {
+                try {
+                    if (!first[0]) writer.write(',');
+                    first[0] = false;
+                    writer.write(Serializer.serialize(summary));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.write(']');
+            writer.flush();
+        } catch (DataAccessException | UncheckedIOException e) {
+            LOGGER.error("Error streaming latest submissions", e);
+            // Once part of the array has been sent, the status can't be changed and the client sees invalid JSON
+            if (!res.raw().isCommitted()) {
+                res.raw().resetBuffer();
+                halt(500);
+            }
+        }
+        return "";
     };
 
     public static final Route submissionsActiveGet = (req, res) -> {
@@ -188,7 +235,7 @@ public class SubmissionController {
     public static final Route studentSubmissionsGet = (req, res) -> {
         String netId = req.params(":netId");
 
-        Collection<Submission> submissions = null;
+        Collection<SubmissionSummary> submissions = null;
         try {
             submissions = SubmissionService.getSubmissionsForUser(netId);
         } catch (DataAccessException e) {
@@ -201,6 +248,44 @@ public class SubmissionController {
         return Serializer.serialize(submissions);
     };
 
+    public static final Route submissionGet = (req, res) -> {
+        User user = req.session().attribute("user");
+        return getSubmission(req, res, user.netId());
+    };
+
+    public static final Route studentSubmissionGet = (req, res) -> getSubmission(req, res, req.params(":netId"));
+
+    /**
+     * Responds with a full submission, identified by the <code>:phase</code> and
+     * <code>:timestamp</code> route params of a {@link SubmissionSummary}
+     */
+    private static String getSubmission(Request req, Response res, String netId) {
+        Phase phase = null;
+        Instant timestamp = null;
+        try {
+            phase = Phase.valueOf(req.params(":phase"));
+            timestamp = Instant.parse(req.params(":timestamp"));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            LOGGER.error("Invalid phase or timestamp", e);
+            halt(400, "Invalid phase or timestamp");
+        }
+
+        Submission submission = null;
+        try {
+            submission = SubmissionService.getSubmission(netId, phase, timestamp);
+        } catch (DataAccessException e) {
+            halt(500);
+        }
+        if (submission == null) {
+            halt(404, "Submission not found");
+        }
+
+        res.status(200);
+        res.type("application/json");
+
+        return Serializer.serialize(submission);
+    }
+
     public static final Route approveSubmissionPost = (req, res) -> {
         User adminUser = req.session().attribute("user");
         ApprovalRequest request = Serializer.deserialize(req.body(), ApprovalRequest.class);
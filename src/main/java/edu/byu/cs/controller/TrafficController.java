@@ -1,37 +1,195 @@
 package edu.byu.cs.controller;
 
 import edu.byu.cs.autograder.Grader;
+import edu.byu.cs.autograder.GradingException;
+import edu.byu.cs.autograder.GradingObserver;
+import edu.byu.cs.autograder.GradingObserverImpl;
+import edu.byu.cs.autograder.LeasedGradingObserver;
+import edu.byu.cs.autograder.PublishingGradingObserver;
+import edu.byu.cs.canvas.StudentSections;
+import edu.byu.cs.controller.exception.BadRequestException;
 import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.QueueDao;
 import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.model.User;
+import edu.byu.cs.service.ConfigService;
+import edu.byu.cs.service.SubmissionService;
 import org.eclipse.jetty.websocket.api.Session;
 
-import java.util.ArrayList;
-import java.util.Comparator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
 
 /**
- * Controller for handling the queue of graders
+ * Controller for handling the queue of graders.
+ * <br>
+ * Submissions wait in the {@link edu.byu.cs.dataAccess.QueueDao}, not in memory. Each grader thread claims the
+ * next submission from the queue when it's free, and renews its lease on the submission until grading is done.
+ * Leases that run out, such as those of a server that crashed while grading, are released periodically, so the
+ * submission is graded again by whichever grader is free next. Among the submissions with the same priority,
+ * graders go first to the Canvas section with the fewest submissions being graded, so that one section
+ * submitting at its deadline can't keep every grader from the others.
+ * <br>
+ * Grading can be moved off of the web server by running workers, which only grade, alongside a web server
+ * that doesn't grade at all. See {@link Role}.
  */
 public class TrafficController {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrafficController.class);
+
+    /**
+     * What this server does with the queue
+     */
+    public enum Role {
+        /**
+         * Serves the website and grades the submissions it queues
+         */
+        STANDALONE,
+        /**
+         * Serves the website, leaving grading to workers and relaying their progress from
+         * the {@link edu.byu.cs.dataAccess.GradingEventDao}
+         */
+        WEB,
+        /**
+         * Only grades, publishing progress to the {@link edu.byu.cs.dataAccess.GradingEventDao}
+         */
+        WORKER
+    }
+
+    private volatile Role role = Role.STANDALONE;
+
     /**
      * A map of netIds to sessions that are subscribed to updates for that netId
      */
     public static final ConcurrentHashMap<String, List<Session>> sessions = new ConcurrentHashMap<>();
 
     /**
-     * The executor service that runs the graders
+     * A map of netIds to the observer reporting on that netId's grader. Observers stay registered for a
+     * short while after grading finishes so that a client subscribing late still receives the results.
+     */
+    private final ConcurrentHashMap<String, GradingObserverImpl> observers = new ConcurrentHashMap<>();
+
+    /**
+     * How long a finished observer keeps its messages available for late subscribers
+     */
+    private static final long FINISHED_OBSERVER_RETENTION_MINUTES = 2;
+
+    /**
+     * The executor service that runs the graders. It starts with a single thread and is resized
+     * from the configured grader thread count once the database is available.
+     */
+    private final ThreadPoolExecutor executorService =
+            new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+
+    /**
+     * How long a grader holds a submission without renewing its lease
+     */
+    private static final Duration GRADER_LEASE = Duration.ofMinutes(2);
+
+    private static final long LEASE_RENEWAL_INTERVAL_SECONDS = 30;
+
+    /**
+     * How often expired leases are released, idle graders check for submissions queued by other servers,
+     * and workers check for a new grader thread count
+     */
+    private static final long QUEUE_POLL_INTERVAL_SECONDS = 30;
+
+    /**
+     * How many times a submission is claimed before it is given up on, in case it crashes its grader every time
+     */
+    private static final int MAX_GRADING_ATTEMPTS = 3;
+
+    /**
+     * How often a worker's idle graders check for submissions, since workers aren't told when one is queued
+     */
+    private static final long WORKER_CLAIM_INTERVAL_SECONDS = 2;
+
+    /**
+     * How many of the most recent gradings wait times are estimated from
+     */
+    private static final int GRADING_DURATION_HISTORY = 20;
+
+    /**
+     * The estimated time to grade a submission before any have finished
+     */
+    private static final Duration DEFAULT_GRADING_DURATION = Duration.ofMinutes(2);
+
+    /**
+     * How long the most recent gradings took, oldest first
+     */
+    private final Deque<Duration> recentGradingDurations = new ArrayDeque<>();
+
+    /**
+     * Identifies this server in the leases its graders hold
+     */
+    private final String workerId = ManagementFactory.getRuntimeMXBean().getName();
+
+    /**
+     * The longest lease owner the queue can store
+     */
+    private static final int MAX_LEASE_OWNER_LENGTH = 100;
+
+    /**
+     * How many times a grader tries to claim the submission its section's share calls for before settling
+     * for the next submission in the queue, since other graders may claim it first
      */
-    private final ExecutorService executorService = Executors.newFixedThreadPool(1);
+    private static final int FAIR_CLAIM_ATTEMPTS = 3;
+
+    private final StudentSections studentSections = new StudentSections();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "traffic-controller-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * How often queue positions are sent. Changes to the queue in between are sent together.
+     */
+    private static final long QUEUE_STATUS_INTERVAL_MILLIS = 500;
+
+    private final AtomicBoolean queueChanged = new AtomicBoolean();
+
+    /**
+     * NetIds whose position should be sent on the next tick even if it hasn't changed, such as new subscribers
+     */
+    private final Set<String> positionRequested = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The position last sent to each waiting netId. Only used by the queue status thread.
+     */
+    private Map<String, Integer> sentPositions = new HashMap<>();
 
     private static final TrafficController trafficController = new TrafficController();
 
     private TrafficController() {
+        scheduler.scheduleWithFixedDelay(this::broadcastQueueStatus, QUEUE_STATUS_INTERVAL_MILLIS,
+                QUEUE_STATUS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::pollQueue, QUEUE_POLL_INTERVAL_SECONDS,
+                QUEUE_POLL_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     public static TrafficController getInstance() {
@@ -39,38 +197,417 @@ public class TrafficController {
     }
 
     /**
-     * Broadcasts the current queue status to all connected clients.
-     * Each client will be notified of their specific position in the queue.
+     * Sets what this server does with the queue. Must be called before any grading starts.
+     *
+     * @param role the role of this server
+     */
+    public void setRole(Role role) {
+        this.role = role;
+        if (role == Role.WORKER) {
+            scheduler.scheduleWithFixedDelay(this::startIdleGraders, WORKER_CLAIM_INTERVAL_SECONDS,
+                    WORKER_CLAIM_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    /**
+     * Notes that the queue has changed, so that positions are sent on the next tick
      */
-    public static void broadcastQueueStatus() throws DataAccessException {
+    public void queueChanged() {
+        queueChanged.set(true);
+    }
 
-        List<QueueItem> usersWaitingInQueue = new ArrayList<>();
-        for (QueueItem item : DaoService.getQueueDao().getAll())
-            if (!item.started())
-                usersWaitingInQueue.add(item);
+    /**
+     * Sends a netId its position on the next tick, whether or not it has changed
+     *
+     * @param netId the netId that needs its position
+     */
+    public void requestQueueStatus(String netId) {
+        positionRequested.add(netId);
+        queueChanged.set(true);
+    }
 
-        usersWaitingInQueue.sort(Comparator.comparing(QueueItem::timeAdded));
+    /**
+     * Sends each waiting client its position in the queue, if the queue has changed since the last tick.
+     * Only clients whose position changed, or that asked for it, are sent anything.
+     */
+    private void broadcastQueueStatus() {
+        if (!queueChanged.getAndSet(false)) return;
 
-        int i = 1;
+        List<QueueItem> usersWaitingInQueue;
+        int capacity;
+        try {
+            usersWaitingInQueue = DaoService.getQueueDao().getWaitingInOrder();
+            capacity = usersWaitingInQueue.isEmpty() ? 1 : gradingCapacity();
+        } catch (DataAccessException | RuntimeException e) {
+            LOGGER.error("Error broadcasting queue status", e);
+            queueChanged.set(true);
+            return;
+        }
+
+        Map<String, Integer> positions = new HashMap<>();
+        int position = 1;
         for (QueueItem item : usersWaitingInQueue) {
-            getInstance().notifySubscribers(item.netId(), Map.of(
-                    "type", "queueStatus",
-                    "position", i,
-                    "total", usersWaitingInQueue.size()
-            ));
-            i++;
+            String netId = item.netId();
+            positions.put(netId, position);
+            boolean requested = positionRequested.remove(netId);
+            if (requested || !Integer.valueOf(position).equals(sentPositions.get(netId))) {
+                notifySubscribers(netId, Map.of(
+                        "type", "queueStatus",
+                        "position", position,
+                        "total", usersWaitingInQueue.size(),
+                        "estimatedWaitSeconds", estimateWait(position, capacity).toSeconds()
+                ));
+            }
+            position++;
         }
+        positionRequested.retainAll(positions.keySet());
+        sentPositions = positions;
     }
 
     /**
-     * Adds a grader to the queue. The grader will be run when there is an available thread
+     * Lets a submission that was just added to the queue be subscribed to, and starts grading it
+     * if a grader is free
      *
-     * @param grader the grader to add
+     * @param netId the netId of the submission
+     */
+    public void submissionQueued(String netId) {
+        sessions.putIfAbsent(netId, new CopyOnWriteArrayList<>());
+        queueChanged();
+        startIdleGraders();
+    }
+
+    /**
+     * Has every grader thread that isn't busy claim submissions from the queue until none are left
      */
-    public void addGrader(Grader grader) {
-        executorService.submit(grader);
+    public synchronized void startIdleGraders() {
+        if (role == Role.WEB) return;
+
+        int idle = executorService.getMaximumPoolSize() - executorService.getActiveCount()
+                - executorService.getQueue().size();
+        for (int i = 0; i < idle; i++) {
+            executorService.submit(this::gradeQueuedSubmissions);
+        }
     }
 
+    /**
+     * Records how long a submission took to grade, from when it started to when the results were sent
+     *
+     * @param duration how long grading took
+     */
+    public void recordGradingDuration(Duration duration) {
+        synchronized (recentGradingDurations) {
+            recentGradingDurations.addLast(duration);
+            if (recentGradingDurations.size() > GRADING_DURATION_HISTORY) {
+                recentGradingDurations.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Gets how many submissions are graded at once. A web-only server doesn't grade, and how many graders its
+     * workers have isn't known, so they are counted by the submissions being graded. While submissions are
+     * waiting, every worker's graders are busy.
+     *
+     * @return the number of submissions graded at once, at least 1
+     */
+    public int gradingCapacity() throws DataAccessException {
+        if (role != Role.WEB) return getGraderThreadCount();
+
+        return Math.max(1, DaoService.getQueueDao().countStarted());
+    }
+
+    /**
+     * Estimates how long a waiting submission will take to start grading, from how long recent
+     * submissions took to grade and how many are graded at once
+     *
+     * @param position the submission's position among those waiting, starting at 1
+     * @param capacity how many submissions are graded at once, from {@link #gradingCapacity()}
+     * @return the estimated wait
+     */
+    public Duration estimateWait(int position, int capacity) {
+        Duration average;
+        synchronized (recentGradingDurations) {
+            average = recentGradingDurations.isEmpty() ? DEFAULT_GRADING_DURATION :
+                    recentGradingDurations.stream().reduce(Duration.ZERO, Duration::plus)
+                            .dividedBy(recentGradingDurations.size());
+        }
+        // Submissions ahead of this one start in rounds, one per grader
+        int rounds = (position + capacity - 1) / capacity;
+        return average.multipliedBy(rounds);
+    }
+
+    private void pollQueue() {
+        try {
+            int released = DaoService.getQueueDao().releaseExpiredLeases();
+            if (released > 0) {
+                LOGGER.warn("Released {} queued submissions whose graders stopped renewing their leases", released);
+                queueChanged();
+            }
+        } catch (DataAccessException | RuntimeException e) {
+            LOGGER.error("Error releasing expired queue leases", e);
+        }
+        if (role == Role.WORKER) {
+            refreshGraderThreadCount();
+        }
+        startIdleGraders();
+    }
+
+    /**
+     * Resizes a worker's graders to the configured thread count, which is changed through the web server
+     * and so would otherwise only be read when the worker starts
+     */
+    private void refreshGraderThreadCount() {
+        try {
+            int threadCount = ConfigService.getGraderThreadCount();
+            if (threadCount != getGraderThreadCount()) {
+                LOGGER.info("Changing the grader thread count from {} to {}", getGraderThreadCount(), threadCount);
+                setGraderThreadCount(threadCount);
+            }
+        } catch (DataAccessException | RuntimeException e) {
+            LOGGER.error("Error reading the grader thread count", e);
+        }
+    }
+
+    private void gradeQueuedSubmissions() {
+        while (true) {
+            String leaseOwner;
+            QueueItem item;
+            try {
+                leaseOwner = newLeaseOwner();
+                item = claimNext(leaseOwner);
+            } catch (DataAccessException | RuntimeException e) {
+                LOGGER.error("Error claiming a submission from the queue", e);
+                return;
+            }
+            if (item == null) return;
+
+            queueChanged();
+            grade(item, leaseOwner);
+        }
+    }
+
+    /**
+     * Claims the next submission to grade, sharing graders fairly between sections
+     *
+     * @param leaseOwner the owner of the claim
+     * @return the claimed submission, or null if none are waiting
+     */
+    private QueueItem claimNext(String leaseOwner) throws DataAccessException {
+        QueueDao queueDao = DaoService.getQueueDao();
+        for (int attempt = 0; attempt < FAIR_CLAIM_ATTEMPTS; attempt++) {
+            Collection<QueueItem> queue = queueDao.getAll();
+            List<QueueItem> waiting = queue.stream().filter(item -> !item.started())
+                    .sorted(QueueDao.WAITING_ORDER).toList();
+            if (waiting.isEmpty()) return null;
+
+            List<QueueItem> grading = queue.stream().filter(QueueItem::started).toList();
+            QueueItem next = chooseFairly(waiting, grading, studentSections::sectionOf);
+            QueueItem claimed = queueDao.claim(next.netId(), leaseOwner, GRADER_LEASE);
+            if (claimed != null) return claimed;
+        }
+        return queueDao.claim(leaseOwner, GRADER_LEASE);
+    }
+
+    /**
+     * Chooses which waiting submission to grade next. Priority comes first, then, among the submissions with
+     * the highest priority, the section with the fewest submissions being graded, then the order of the queue.
+     * Students without a known section share one.
+     *
+     * @param waiting the waiting submissions in {@link QueueDao#WAITING_ORDER}, not empty
+     * @param grading the submissions being graded
+     * @param sectionOf gets the section of a netId
+     * @return the submission to grade next
+     */
+    static QueueItem chooseFairly(List<QueueItem> waiting, Collection<QueueItem> grading,
+                                  ToIntFunction<String> sectionOf) {
+        Map<Integer, Integer> gradingBySection = new HashMap<>();
+        for (QueueItem item : grading) {
+            gradingBySection.merge(sectionOf.applyAsInt(item.netId()), 1, Integer::sum);
+        }
+
+        QueueItem.Priority priority = waiting.getFirst().priority();
+        QueueItem chosen = null;
+        int chosenGrading = Integer.MAX_VALUE;
+        for (QueueItem item : waiting) {
+            if (item.priority() != priority) break;
+            int sectionGrading = gradingBySection.getOrDefault(sectionOf.applyAsInt(item.netId()), 0);
+            if (sectionGrading < chosenGrading) {
+                chosen = item;
+                chosenGrading = sectionGrading;
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * Makes the owner of a single claim on the queue. Every claim gets its own, so that graders on the same
+     * server can't renew or remove each other's submissions.
+     *
+     * @return this server's id followed by a random id for the claim
+     */
+    String newLeaseOwner() {
+        String claimId = ":" + UUID.randomUUID();
+        int serverIdLength = Math.min(workerId.length(), MAX_LEASE_OWNER_LENGTH - claimId.length());
+        return workerId.substring(0, serverIdLength) + claimId;
+    }
+
+    private void grade(QueueItem item, String leaseOwner) {
+        GradingObserver reporter = role == Role.WORKER ? new PublishingGradingObserver(item.netId(), leaseOwner) :
+                new GradingObserverImpl(item.netId(), leaseOwner);
+        LeasedGradingObserver observer = new LeasedGradingObserver(reporter);
+        if (item.attempts() > MAX_GRADING_ATTEMPTS) {
+            LOGGER.error("Giving up on grading {} after {} attempts", item.netId(), MAX_GRADING_ATTEMPTS);
+            observer.notifyError("Grading failed %d times. Please submit again".formatted(MAX_GRADING_ATTEMPTS));
+            return;
+        }
+
+        ScheduledFuture<?> leaseRenewal = scheduler.scheduleAtFixedRate(
+                () -> renewLease(item.netId(), leaseOwner, observer),
+                LEASE_RENEWAL_INTERVAL_SECONDS, LEASE_RENEWAL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        try {
+            String repoUrl = item.repoUrl();
+            if (repoUrl == null) {
+                User user = DaoService.getUserDao().getUser(item.netId());
+                repoUrl = user == null ? null : user.repoUrl();
+            }
+            if (repoUrl == null) {
+                observer.notifyError("No repo url to grade");
+                return;
+            }
+            if (!item.admin()) {
+                try {
+                    SubmissionService.assertHasNewCommits(item.netId(), item.phase(), repoUrl);
+                } catch (BadRequestException e) {
+                    observer.notifyError(e.getMessage());
+                    return;
+                }
+            }
+
+            new Grader(repoUrl, item.netId(), observer, item.phase(), item.admin()).run();
+        } catch (IOException | GradingException | DataAccessException | RuntimeException e) {
+            LOGGER.error("Error starting grader for {}", item.netId(), e);
+            observer.notifyError("Error starting grader");
+        } finally {
+            leaseRenewal.cancel(false);
+        }
+    }
+
+    /**
+     * Renews a grader's lease on its submission. A grader that has lost its lease is abandoned, since its
+     * submission may already have been claimed by another grader.
+     */
+    private void renewLease(String netId, String leaseOwner, LeasedGradingObserver observer) {
+        if (observer.isAbandoned()) return;
+        try {
+            if (!DaoService.getQueueDao().renewLease(netId, leaseOwner, GRADER_LEASE)) {
+                LOGGER.warn("Lost the lease on {}'s submission while grading it, ignoring the rest of its grading",
+                        netId);
+                observer.abandon();
+            }
+        } catch (DataAccessException | RuntimeException e) {
+            LOGGER.error("Error renewing the lease on {}'s submission", netId, e);
+        }
+    }
+
+    /**
+     * Changes how many graders may run at the same time. Graders that are already running are
+     * unaffected; the new size applies as soon as a thread frees up.
+     *
+     * @param threadCount the number of graders to run concurrently
+     */
+    public synchronized void setGraderThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Grader thread count must be at least 1");
+        }
+
+        // The core size may never exceed the maximum size, so the order of these calls matters
+        if (threadCount > executorService.getMaximumPoolSize()) {
+            executorService.setMaximumPoolSize(threadCount);
+            executorService.setCorePoolSize(threadCount);
+        } else {
+            executorService.setCorePoolSize(threadCount);
+            executorService.setMaximumPoolSize(threadCount);
+        }
+        startIdleGraders();
+    }
+
+    public int getGraderThreadCount() {
+        return executorService.getMaximumPoolSize();
+    }
+
+
+    /**
+     * Registers the observer for a grader so that sessions subscribing to its netId are
+     * caught up on everything the grader has already reported
+     *
+     * @param netId    the netId being graded
+     * @param observer the observer reporting on the grader
+     */
+    public void registerObserver(String netId, GradingObserverImpl observer) {
+        sessions.putIfAbsent(netId, new CopyOnWriteArrayList<>());
+        observers.put(netId, observer);
+    }
+
+    /**
+     * Forgets a finished observer once late subscribers have had a chance to receive its results
+     *
+     * @param netId    the netId that was graded
+     * @param observer the observer that finished
+     */
+    public void releaseObserver(String netId, GradingObserverImpl observer) {
+        CompletableFuture.delayedExecutor(FINISHED_OBSERVER_RETENTION_MINUTES, TimeUnit.MINUTES)
+                .execute(() -> observers.remove(netId, observer));
+    }
+
+    /**
+     * Sends subscribers a message from a grader running on a worker, through an observer registered the
+     * same way as for a local grader so that late subscribers are caught up
+     *
+     * @param netId   the netId being graded
+     * @param message the message the grader sent
+     */
+    public void relayGradingMessage(String netId, Map<String, Object> message) {
+        GradingObserverImpl observer = observers.get(netId);
+        // A submission graded again gets a new observer, so that old messages aren't replayed
+        if (observer == null || "started".equals(message.get("type"))) {
+            observer = new GradingObserverImpl(netId, null);
+        }
+        observer.relay(message);
+    }
+
+    /**
+     * Subscribes a session to updates for a netId, replaying any updates it missed
+     *
+     * @param netId   the netId to subscribe to
+     * @param session the session subscribing
+     * @return false if the netId is not in the queue and has no recent results
+     */
+    public boolean subscribe(String netId, Session session) {
+        GradingObserverImpl observer = observers.get(netId);
+        if (observer != null) {
+            observer.subscribe(session);
+            return true;
+        }
+        return addSession(netId, session) || sessions.containsKey(netId);
+    }
+
+    /**
+     * Adds a session to the subscribers of a netId that is currently in the queue
+     *
+     * @param netId   the netId to subscribe to
+     * @param session the session subscribing
+     * @return true if the session was added, false if it was already subscribed or the netId is not in the queue
+     */
+    public boolean addSession(String netId, Session session) {
+        List<Session> sessionList = sessions.get(netId);
+        if (sessionList == null || sessionList.contains(session)) return false;
+        sessionList.add(session);
+        return true;
+    }
 
     public void notifySubscribers(String netId, Map<String, Object> message) {
         List<Session> sessionList = sessions.get(netId);
@@ -1,6 +1,5 @@
 package edu.byu.cs.controller;
 
-import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.util.JwtUtils;
 import edu.byu.cs.util.Serializer;
 import org.eclipse.jetty.websocket.api.CloseException;
@@ -36,22 +35,13 @@ public class WebSocketController {
             return;
         }
 
-        if (!TrafficController.sessions.containsKey(netId)) {
+        if (!TrafficController.getInstance().subscribe(netId, session)) {
             sendError(session, "You are not in the queue");
             session.close();
             return;
         }
 
-        if (TrafficController.sessions.get(netId).contains(session))
-            return;
-
-        TrafficController.sessions.get(netId).add(session);
-        try {
-            TrafficController.broadcastQueueStatus();
-        } catch (DataAccessException e) {
-            LOGGER.error("Error broadcasting queue status", e);
-            throw new RuntimeException("Error broadcasting queue status", e);
-        }
+        TrafficController.getInstance().requestQueueStatus(netId);
     }
 
     /**
@@ -0,0 +1,14 @@
+package edu.byu.cs.controller.exception;
+
+public class TooManyRequestsException extends Exception {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -24,6 +24,8 @@ public interface ConfigurationDao {
         PER_DAY_LATE_PENALTY,
         GIT_COMMIT_PENALTY,
         LINES_PER_COMMIT_REQUIRED,
-        CLOCK_FORGIVENESS_MINUTES
+        CLOCK_FORGIVENESS_MINUTES,
+        GRADER_THREAD_COUNT,
+        MAX_QUEUE_DEPTH
     }
 }
@@ -1,7 +1,13 @@
 package edu.byu.cs.dataAccess;
 
+import edu.byu.cs.dataAccess.cache.CachedConfigurationDao;
+import edu.byu.cs.dataAccess.cache.CachedRubricConfigDao;
+import edu.byu.cs.dataAccess.cache.IndexedQueueDao;
 import edu.byu.cs.dataAccess.memory.*;
 import edu.byu.cs.dataAccess.sql.*;
+import edu.byu.cs.properties.ApplicationProperties;
+
+import java.time.Duration;
 
 public class DaoService {
 
@@ -11,6 +17,13 @@ public class DaoService {
     private static RubricConfigDao rubricConfigDao = new RubricConfigMemoryDao();
     private static ConfigurationDao configurationDao = new ConfigurationMemoryDao();
     private static RepoUpdateDao repoUpdateDao = new RepoUpdateMemoryDao();
+    private static GradingEventDao gradingEventDao = new GradingEventMemoryDao();
+    private static boolean sqlTransactions = false;
+
+    /**
+     * How long workers and web-only servers cache configuration when no time is set
+     */
+    private static final int SHARED_CONFIG_CACHE_TTL_SECONDS = 30;
 
     public static UserDao getUserDao() {
         return userDao;
@@ -58,14 +71,35 @@ public class DaoService {
 
     public static RepoUpdateDao getRepoUpdateDao() { return repoUpdateDao; }
 
+    public static GradingEventDao getGradingEventDao() {
+        return gradingEventDao;
+    }
+
+    public static void setGradingEventDao(GradingEventDao gradingEventDao) {
+        DaoService.gradingEventDao = gradingEventDao;
+    }
+
+    /**
+     * Runs work against the DAOs as a single transaction, so that it either all happens or none of it does.
+     * Memory DAOs have no transactions, so for them the work just runs.
+     *
+     * @param body the work to do
+     * @return the result of the work
+     */
+    public static <T> T inTransaction(TransactionBody<T> body) throws DataAccessException {
+        return sqlTransactions ? SqlDb.inTransaction(body) : body.run();
+    }
+
     /** Create and set a memory DAO for every DAO. Used for testing purposes. */
     public static void initializeMemoryDAOs() {
+        sqlTransactions = false;
         DaoService.setRubricConfigDao(new RubricConfigMemoryDao());
         DaoService.setUserDao(new UserMemoryDao());
         DaoService.setQueueDao(new QueueMemoryDao());
         DaoService.setSubmissionDao(new SubmissionMemoryDao());
         DaoService.setConfigurationDao(new ConfigurationMemoryDao());
         DaoService.setRepoUpdateDao(new RepoUpdateMemoryDao());
+        DaoService.setGradingEventDao(new GradingEventMemoryDao());
 
         /* Initialize crucial default values in Config for testing purposes */
         try {
@@ -74,6 +108,7 @@ public class DaoService {
             configurationDao.setConfiguration(ConfigurationDao.Configuration.PER_DAY_LATE_PENALTY, 0.1f, Float.class);
             configurationDao.setConfiguration(ConfigurationDao.Configuration.LINES_PER_COMMIT_REQUIRED, 5, Integer.class);
             configurationDao.setConfiguration(ConfigurationDao.Configuration.CLOCK_FORGIVENESS_MINUTES, 3, Integer.class);
+            configurationDao.setConfiguration(ConfigurationDao.Configuration.GRADER_THREAD_COUNT, 1, Integer.class);
         } catch (DataAccessException e) {
             throw new RuntimeException(e);
         }
@@ -81,11 +116,31 @@ public class DaoService {
 
     public static void initializeSqlDAOs() throws DataAccessException {
         SqlDb.setUpDb();
-        DaoService.setConfigurationDao(new ConfigurationSqlDao());
-        DaoService.setQueueDao(new QueueSqlDao());
-        DaoService.setRubricConfigDao(new RubricConfigSqlDao());
+        sqlTransactions = true;
+        // Other servers claim from a shared queue, so an index of it in this server would fall behind
+        boolean sharedQueue = ApplicationProperties.worker() || ApplicationProperties.webOnly();
+        Duration configCacheTtl = configCacheTtl(sharedQueue);
+        DaoService.setConfigurationDao(new CachedConfigurationDao(new ConfigurationSqlDao(), configCacheTtl));
+        DaoService.setQueueDao(sharedQueue ? new QueueSqlDao() : new IndexedQueueDao(new QueueSqlDao()));
+        DaoService.setRubricConfigDao(new CachedRubricConfigDao(new RubricConfigSqlDao(), configCacheTtl));
         DaoService.setSubmissionDao(new SubmissionSqlDao());
         DaoService.setUserDao(new UserSqlDao());
         DaoService.setRepoUpdateDao(new RepoUpdateSqlDao());
+        DaoService.setGradingEventDao(new GradingEventSqlDao());
+    }
+
+    /**
+     * Gets how long cached configuration is kept. Workers and web-only servers always share their database,
+     * and configuration is changed on the web server, so they keep it for a while even if no time is set.
+     *
+     * @param sharedQueue whether other servers share this server's database
+     * @return how long to keep cached configuration, or null to keep it until it's changed through this server
+     */
+    private static Duration configCacheTtl(boolean sharedQueue) {
+        int seconds = ApplicationProperties.configCacheTtlSeconds();
+        if (seconds <= 0 && sharedQueue) {
+            seconds = SHARED_CONFIG_CACHE_TTL_SECONDS;
+        }
+        return seconds > 0 ? Duration.ofSeconds(seconds) : null;
     }
 }
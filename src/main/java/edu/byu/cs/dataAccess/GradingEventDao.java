@@ -0,0 +1,40 @@
+package edu.byu.cs.dataAccess;
+
+import edu.byu.cs.model.GradingEvent;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress messages published by graders running on workers, for the web server to relay to students
+ */
+public interface GradingEventDao {
+    /**
+     * Publishes a message
+     *
+     * @param netId   the student being graded
+     * @param message the message to send the student, as JSON
+     */
+    void insertEvent(String netId, String message) throws DataAccessException;
+
+    /**
+     * Gets the events published after another, in the order they were published
+     *
+     * @param id    the id of the last event already read
+     * @param limit the most events to return
+     * @return the events with an id greater than <code>id</code>
+     */
+    List<GradingEvent> getEventsAfter(long id, int limit) throws DataAccessException;
+
+    /**
+     * @return the id of the most recent event, or 0 if there are none
+     */
+    long getLastEventId() throws DataAccessException;
+
+    /**
+     * Removes events that have already been relayed
+     *
+     * @param cutoff events published before this are removed
+     */
+    void removeEventsBefore(Instant cutoff) throws DataAccessException;
+}
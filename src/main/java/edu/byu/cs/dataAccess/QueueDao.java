@@ -2,8 +2,19 @@ package edu.byu.cs.dataAccess;
 
 import edu.byu.cs.model.QueueItem;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 
+/**
+ * The submissions waiting to be graded or being graded.
+ * <br>
+ * Graders take submissions by claiming them, which leases the submission to the grader for a while. The grader
+ * renews its lease while it works, and removes the submission once it's done. A submission whose lease runs
+ * out, because its grader crashed or lost its connection, goes back to waiting so that another grader can
+ * claim it.
+ */
 public interface QueueDao {
     /**
      * Adds an item to the queue
@@ -13,18 +24,21 @@ public interface QueueDao {
     void add(QueueItem item) throws DataAccessException;
 
     /**
-     * Removes the next item from the queue
+     * Removes an item from the queue
      *
-     * @return the next item in the queue
+     * @param netId the netId of the item to remove
      */
-    QueueItem pop() throws DataAccessException;
+    void remove(String netId) throws DataAccessException;
 
     /**
-     * Removes an item from the queue
+     * Removes an item once its grader is done with it, unless the grader no longer holds the item. By then
+     * the item may have been claimed by another grader, or replaced by the student's next submission.
      *
-     * @param netId the netId of the item to remove
+     * @param netId      the netId of the item to remove
+     * @param leaseOwner the claim the item was given to
+     * @return false if the grader no longer holds the item, in which case nothing is removed
      */
-    void remove(String netId) throws DataAccessException;
+    boolean remove(String netId, String leaseOwner) throws DataAccessException;
 
     /**
      * Gets all items in the queue
@@ -33,6 +47,22 @@ public interface QueueDao {
      */
     Collection<QueueItem> getAll() throws DataAccessException;
 
+    /**
+     * The order items are graded in: by priority, then in the order they were added, with ties broken by netId
+     */
+    Comparator<QueueItem> WAITING_ORDER = Comparator.comparing((QueueItem item) -> item.priority().rank())
+            .thenComparing(QueueItem::timeAdded)
+            .thenComparing(QueueItem::netId);
+
+    /**
+     * Gets the items that haven't started being graded, in the order they will be graded
+     *
+     * @return the waiting items in {@link #WAITING_ORDER}
+     */
+    default List<QueueItem> getWaitingInOrder() throws DataAccessException {
+        return getAll().stream().filter(item -> !item.started()).sorted(WAITING_ORDER).toList();
+    }
+
     /**
      * Gets the number of items in the queue
      *
@@ -42,13 +72,60 @@ public interface QueueDao {
     boolean isAlreadyInQueue(String netId) throws DataAccessException;
 
     /**
-     * Marks an item as being started to be graded
+     * Claims the first waiting item in {@link #WAITING_ORDER} for a grader. The item is marked as started,
+     * leased to the grader, and its attempts are counted. Graders claiming at the same time never get the
+     * same item.
+     *
+     * @param leaseOwner identifies the claim. Renewals and removals are checked against it, so it should be
+     *                   unique to each claim, not just to each server.
+     * @param lease      how long the grader has before the item goes back to waiting, unless it renews the lease
+     * @return the claimed item, or null if nothing is waiting
+     */
+    QueueItem claim(String leaseOwner, Duration lease) throws DataAccessException;
+
+    /**
+     * Claims a particular waiting item for a grader, the same way as {@link #claim(String, Duration)}
+     *
+     * @param netId      the netId of the item to claim
+     * @param leaseOwner identifies the claim, unique to each claim
+     * @param lease      how long the grader has before the item goes back to waiting, unless it renews the lease
+     * @return the claimed item, or null if it isn't waiting, such as if another grader claimed it first
+     */
+    QueueItem claim(String netId, String leaseOwner, Duration lease) throws DataAccessException;
+
+    /**
+     * Gets the number of items being graded
+     *
+     * @return the number of started items
+     */
+    default int countStarted() throws DataAccessException {
+        return (int) getAll().stream().filter(QueueItem::started).count();
+    }
+
+    /**
+     * Extends the lease on an item a grader is working on
+     *
+     * @param netId      the netId of the item
+     * @param leaseOwner the claim the item was given to
+     * @param lease      how long from now the lease should last
+     * @return false if the grader no longer holds the item, such as if its lease already ran out
+     */
+    boolean renewLease(String netId, String leaseOwner, Duration lease) throws DataAccessException;
+
+    /**
+     * Puts every item whose lease has run out back to waiting, with at least {@link QueueItem.Priority#RETRY}
      *
-     * @param netId the netId of the item to mark
+     * @return how many items were put back
      */
-    void markStarted(String netId) throws DataAccessException;
+    int releaseExpiredLeases() throws DataAccessException;
 
-    void markNotStarted(String netId) throws DataAccessException;
+    /**
+     * Puts an item back to waiting, whether or not a grader holds it
+     *
+     * @param netId    the netId of the item
+     * @param priority the priority to wait with
+     */
+    void requeue(String netId, QueueItem.Priority priority) throws DataAccessException;
 
     /**
      * Gets an item from the queue
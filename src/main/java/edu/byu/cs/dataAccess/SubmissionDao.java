@@ -2,9 +2,14 @@ package edu.byu.cs.dataAccess;
 
 import edu.byu.cs.model.Phase;
 import edu.byu.cs.model.Submission;
+import edu.byu.cs.model.SubmissionSummary;
 import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
 
+import java.time.Instant;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 
 public interface SubmissionDao {
 
@@ -34,6 +39,97 @@ public interface SubmissionDao {
 
     Submission getLastSubmissionForUser(String netId) throws DataAccessException;
 
+    /**
+     * Gets the most recent submission for the given netId and phase
+     *
+     * @param netId the netId of the student
+     * @param phase the phase to get the submission for
+     * @return the most recent submission, or null if the student has no submissions for the phase
+     */
+    default Submission getLatestSubmissionForPhase(String netId, Phase phase) throws DataAccessException {
+        return getSubmissionsForPhase(netId, phase).stream()
+                .max(Comparator.comparing(Submission::timestamp))
+                .orElse(null);
+    }
+
+    /**
+     * Gets a single submission, such as one opened from a list of {@link SubmissionSummary}s
+     *
+     * @param netId     the netId of the student
+     * @param phase     the phase of the submission
+     * @param timestamp the time the submission was handed in
+     * @return the submission, or null if there isn't one
+     */
+    Submission getSubmission(String netId, Phase phase, Instant timestamp) throws DataAccessException;
+
+    /**
+     * Gets summaries of all submissions for the given netId and phase, without their rubrics
+     *
+     * @param netId the netId to get submissions for
+     * @param phase the phase to get submissions for
+     * @return a summary of each submission for the given netId and phase
+     */
+    default Collection<SubmissionSummary> getSubmissionSummariesForPhase(String netId, Phase phase)
+            throws DataAccessException {
+        return getSubmissionsForPhase(netId, phase).stream().map(SubmissionSummary::of).toList();
+    }
+
+    /**
+     * Gets summaries of all submissions for the given netId, without their rubrics
+     *
+     * @param netId the netId to get submissions for
+     * @return a summary of each submission for the given netId
+     */
+    default Collection<SubmissionSummary> getSubmissionSummariesForUser(String netId) throws DataAccessException {
+        return getSubmissionsForUser(netId).stream().map(SubmissionSummary::of).toList();
+    }
+
+    /**
+     * Gets a page of summaries of the latest submission for each student and phase. Summaries are ordered
+     * most recent first, by {@link #LATEST_SUBMISSION_ORDER}.
+     * <br>
+     * To read the latest submissions a page at a time, pass the cursor of the last summary of one page
+     * as <code>before</code> to get the next page.
+     *
+     * @param before only summaries after this cursor in the order are read, or all of them if it is null
+     * @param limit  the most summaries to read
+     * @return the summaries, in order
+     */
+    default List<SubmissionSummary> getLatestSubmissionSummaries(@Nullable LatestSubmissionCursor before, int limit)
+            throws DataAccessException {
+        Comparator<SubmissionSummary> order = Comparator.comparing(LatestSubmissionCursor::of, LATEST_SUBMISSION_ORDER);
+        return getAllLatestSubmissions().stream()
+                .map(SubmissionSummary::of)
+                .sorted(order)
+                .filter(summary -> before == null
+                        || LATEST_SUBMISSION_ORDER.compare(LatestSubmissionCursor.of(summary), before) > 0)
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * The order of {@link #getLatestSubmissionSummaries(LatestSubmissionCursor, int)}:
+     * by timestamp, then netId, then phase name, all descending
+     */
+    Comparator<LatestSubmissionCursor> LATEST_SUBMISSION_ORDER = Comparator
+            .comparing(LatestSubmissionCursor::timestamp)
+            .thenComparing(LatestSubmissionCursor::netId)
+            .thenComparing(cursor -> cursor.phase().name())
+            .reversed();
+
+    /**
+     * The position of a summary in {@link #LATEST_SUBMISSION_ORDER}
+     *
+     * @param timestamp the time the submission was handed in
+     * @param netId     the netId of the student
+     * @param phase     the phase of the submission
+     */
+    record LatestSubmissionCursor(@NonNull Instant timestamp, @NonNull String netId, @NonNull Phase phase) {
+        public static LatestSubmissionCursor of(SubmissionSummary summary) {
+            return new LatestSubmissionCursor(summary.timestamp(), summary.netId(), summary.phase());
+        }
+    }
+
     /**
      * Gets all latest submissions
      *
@@ -115,4 +211,40 @@ public interface SubmissionDao {
             @NonNull Float newScore,
             @NonNull Submission.ScoreVerification scoreVerification
     ) throws ItemNotFoundException, DataAccessException;
+
+    /**
+     * Marks several submissions manually approved at once, as if by
+     * {@link #manuallyApproveSubmission(Submission, Float, Submission.ScoreVerification)}.
+     * Either all of them are approved or none of them are.
+     *
+     * @param approvals The submissions to modify, with their new scores and personalized `ScoreVerification`s
+     * @throws ItemNotFoundException When any `Submission` cannot be located in the collection.
+     */
+    default void manuallyApproveSubmissions(@NonNull Collection<ManualApproval> approvals)
+            throws ItemNotFoundException, DataAccessException {
+        // Find every submission before changing any, so a missing one doesn't leave the others approved
+        for (ManualApproval approval : approvals) {
+            Submission submission = approval.submission();
+            if (!getSubmissionsForPhase(submission.netId(), submission.phase()).contains(submission)) {
+                throw new ItemNotFoundException("Submission for %s on %s with head hash %s could not be located"
+                        .formatted(submission.netId(), submission.phase(), submission.headHash()));
+            }
+        }
+        for (ManualApproval approval : approvals) {
+            manuallyApproveSubmission(approval.submission(), approval.newScore(), approval.scoreVerification());
+        }
+    }
+
+    /**
+     * The changes made to a single submission when it is manually approved
+     *
+     * @param submission The submission to modify
+     * @param newScore The precalculated new score
+     * @param scoreVerification The personalized `ScoreVerification` to store on the submission
+     */
+    record ManualApproval(
+            @NonNull Submission submission,
+            @NonNull Float newScore,
+            @NonNull Submission.ScoreVerification scoreVerification
+    ) {}
 }
@@ -0,0 +1,12 @@
+package edu.byu.cs.dataAccess;
+
+/**
+ * Work done with the DAOs that should either happen completely or not at all
+ *
+ * @param <T> the result of the work
+ * @see DaoService#inTransaction(TransactionBody)
+ */
+@FunctionalInterface
+public interface TransactionBody<T> {
+    T run() throws DataAccessException;
+}
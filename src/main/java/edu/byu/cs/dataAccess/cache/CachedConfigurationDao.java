@@ -0,0 +1,80 @@
+package edu.byu.cs.dataAccess.cache;
+
+import edu.byu.cs.dataAccess.ConfigurationDao;
+import edu.byu.cs.dataAccess.DataAccessException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps configuration values in memory in front of another {@link ConfigurationDao}.
+ * <br>
+ * Configuration is read while grading and on most page loads but rarely changes, so values are only
+ * read from the underlying DAO the first time they are needed. Setting a value writes it through to the
+ * underlying DAO and forgets the cached copy. Changes made by another autograder sharing the same
+ * database aren't seen until a value expires, so the time to live should be set when running more than one.
+ */
+public class CachedConfigurationDao implements ConfigurationDao {
+
+    private final ConfigurationDao delegate;
+
+    /**
+     * How long a value is kept before reading it again, or null to keep values until they are set
+     */
+    private final Duration timeToLive;
+
+    private final Map<CacheKey, CachedValue> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented by every write, so that a read which started before a write doesn't cache the old value
+     */
+    private final AtomicLong writes = new AtomicLong();
+
+    private record CacheKey(Configuration key, Class<?> type) {}
+
+    private record CachedValue(Object value, long loadedAt) {}
+
+    /**
+     * @param delegate   the DAO holding the configuration
+     * @param timeToLive how long values are kept, or null to keep them until they are changed through this DAO
+     */
+    public CachedConfigurationDao(ConfigurationDao delegate, Duration timeToLive) {
+        this.delegate = delegate;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public <T> void setConfiguration(Configuration key, T value, Class<T> type) throws DataAccessException {
+        try {
+            delegate.setConfiguration(key, value, type);
+        } finally {
+            writes.incrementAndGet();
+            cache.keySet().removeIf(cacheKey -> cacheKey.key() == key);
+        }
+    }
+
+    @Override
+    public <T> T getConfiguration(Configuration key, Class<T> type) throws DataAccessException {
+        CacheKey cacheKey = new CacheKey(key, type);
+        CachedValue cached = cache.get(cacheKey);
+        if (cached != null && !isExpired(cached)) {
+            return type.cast(cached.value());
+        }
+
+        long writesBefore = writes.get();
+        T value = delegate.getConfiguration(key, type);
+        if (value != null) {
+            cache.put(cacheKey, new CachedValue(value, System.nanoTime()));
+            if (writes.get() != writesBefore) {
+                cache.remove(cacheKey);
+            }
+        }
+        return value;
+    }
+
+    private boolean isExpired(CachedValue cached) {
+        return timeToLive != null && System.nanoTime() - cached.loadedAt() > timeToLive.toNanos();
+    }
+}
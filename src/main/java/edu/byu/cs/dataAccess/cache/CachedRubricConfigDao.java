@@ -0,0 +1,103 @@
+package edu.byu.cs.dataAccess.cache;
+
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.RubricConfigDao;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.Rubric;
+import edu.byu.cs.model.RubricConfig;
+
+import java.time.Duration;
+import java.util.EnumMap;
+
+/**
+ * Keeps the rubric config of each phase in memory in front of another {@link RubricConfigDao}.
+ * <br>
+ * Rubric configs are read several times for every submission, but only change when an admin updates them
+ * or the course info is synced from Canvas, both of which go through this DAO. The cache is an immutable
+ * snapshot of every phase that has been read, replaced as a whole whenever a phase is loaded or changed,
+ * so reads never lock. Each caller gets its own copy of the items, since {@link RubricConfig} is mutable.
+ * Like {@link CachedConfigurationDao}, changes made by another autograder sharing the same database aren't
+ * seen until a config expires.
+ */
+public class CachedRubricConfigDao implements RubricConfigDao {
+
+    private final RubricConfigDao delegate;
+
+    /**
+     * How long a config is kept before reading it again, or null to keep configs until they are set
+     */
+    private final Duration timeToLive;
+
+    private volatile Snapshot snapshot = new Snapshot(new EnumMap<>(Phase.class), 0);
+
+    /**
+     * The cached configs, and how many writes had happened when they were taken.
+     * A phase that is missing hasn't been read yet.
+     */
+    private record Snapshot(EnumMap<Phase, CachedConfig> configs, long writes) {}
+
+    private record CachedConfig(RubricConfig rubricConfig, long loadedAt) {}
+
+    /**
+     * @param delegate   the DAO holding the rubric configs
+     * @param timeToLive how long configs are kept, or null to keep them until they are changed through this DAO
+     */
+    public CachedRubricConfigDao(RubricConfigDao delegate, Duration timeToLive) {
+        this.delegate = delegate;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public RubricConfig getRubricConfig(Phase phase) throws DataAccessException {
+        Snapshot current = snapshot;
+        CachedConfig cached = current.configs().get(phase);
+        if (cached != null && !isExpired(cached)) {
+            return copy(cached.rubricConfig());
+        }
+
+        RubricConfig rubricConfig = copy(delegate.getRubricConfig(phase));
+        synchronized (this) {
+            // Don't cache a config read before a write that changed it
+            if (snapshot.writes() == current.writes()) {
+                EnumMap<Phase, CachedConfig> configs = new EnumMap<>(snapshot.configs());
+                configs.put(phase, new CachedConfig(rubricConfig, System.nanoTime()));
+                snapshot = new Snapshot(configs, snapshot.writes());
+            }
+        }
+        return copy(rubricConfig);
+    }
+
+    @Override
+    public void setRubricConfig(Phase phase, RubricConfig rubricConfig) throws DataAccessException {
+        try {
+            delegate.setRubricConfig(phase, rubricConfig);
+        } finally {
+            invalidate(phase);
+        }
+    }
+
+    @Override
+    public void setRubricIdAndPoints(Phase phase, Rubric.RubricType type, Integer points, String rubric_id)
+            throws DataAccessException {
+        try {
+            delegate.setRubricIdAndPoints(phase, type, points, rubric_id);
+        } finally {
+            invalidate(phase);
+        }
+    }
+
+    private synchronized void invalidate(Phase phase) {
+        EnumMap<Phase, CachedConfig> configs = new EnumMap<>(snapshot.configs());
+        configs.remove(phase);
+        snapshot = new Snapshot(configs, snapshot.writes() + 1);
+    }
+
+    private boolean isExpired(CachedConfig cached) {
+        return timeToLive != null && System.nanoTime() - cached.loadedAt() > timeToLive.toNanos();
+    }
+
+    private static RubricConfig copy(RubricConfig rubricConfig) {
+        if (rubricConfig == null) return null;
+        return new RubricConfig(rubricConfig.phase(), new EnumMap<>(rubricConfig.items()));
+    }
+}
@@ -0,0 +1,162 @@
+package edu.byu.cs.dataAccess.cache;
+
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.QueueDao;
+import edu.byu.cs.model.QueueItem;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Keeps the items waiting in the queue in order in memory, in front of another {@link QueueDao}.
+ * <br>
+ * Queue positions are sent to students every time the queue changes, which used to read and sort the whole
+ * queue each time. Every change to the queue goes through this DAO, so the index is updated along with the
+ * delegate and {@link #getWaitingInOrder()} never reads the database. The index is loaded from the delegate
+ * the first time it's needed. Everything else is read from the delegate.
+ */
+public class IndexedQueueDao implements QueueDao {
+
+    private final QueueDao delegate;
+
+    private final Map<String, QueueItem> items = new ConcurrentHashMap<>();
+
+    private final NavigableSet<QueueItem> waiting = new ConcurrentSkipListSet<>(WAITING_ORDER);
+
+    private volatile boolean loaded = false;
+
+    public IndexedQueueDao(QueueDao delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void add(QueueItem item) throws DataAccessException {
+        delegate.add(item);
+        index(item);
+    }
+
+    @Override
+    public void remove(String netId) throws DataAccessException {
+        delegate.remove(netId);
+        unindex(netId);
+    }
+
+    @Override
+    public boolean remove(String netId, String leaseOwner) throws DataAccessException {
+        boolean removed = delegate.remove(netId, leaseOwner);
+        if (removed) {
+            unindex(netId);
+        }
+        return removed;
+    }
+
+    @Override
+    public Collection<QueueItem> getAll() throws DataAccessException {
+        return delegate.getAll();
+    }
+
+    @Override
+    public List<QueueItem> getWaitingInOrder() throws DataAccessException {
+        loadIfNeeded();
+        return List.copyOf(waiting);
+    }
+
+    @Override
+    public boolean isAlreadyInQueue(String netId) throws DataAccessException {
+        return delegate.isAlreadyInQueue(netId);
+    }
+
+    @Override
+    public QueueItem claim(String leaseOwner, Duration lease) throws DataAccessException {
+        QueueItem item = delegate.claim(leaseOwner, lease);
+        if (item != null) {
+            index(item);
+        }
+        return item;
+    }
+
+    @Override
+    public QueueItem claim(String netId, String leaseOwner, Duration lease) throws DataAccessException {
+        QueueItem item = delegate.claim(netId, leaseOwner, lease);
+        if (item != null) {
+            index(item);
+        }
+        return item;
+    }
+
+    @Override
+    public int countStarted() throws DataAccessException {
+        return delegate.countStarted();
+    }
+
+    @Override
+    public boolean renewLease(String netId, String leaseOwner, Duration lease) throws DataAccessException {
+        return delegate.renewLease(netId, leaseOwner, lease);
+    }
+
+    @Override
+    public int releaseExpiredLeases() throws DataAccessException {
+        int released = delegate.releaseExpiredLeases();
+        if (released > 0) {
+            reload();
+        }
+        return released;
+    }
+
+    @Override
+    public void requeue(String netId, QueueItem.Priority priority) throws DataAccessException {
+        delegate.requeue(netId, priority);
+        QueueItem item = delegate.get(netId);
+        if (item != null) {
+            index(item);
+        }
+    }
+
+    @Override
+    public QueueItem get(String netId) throws DataAccessException {
+        return delegate.get(netId);
+    }
+
+    private void loadIfNeeded() throws DataAccessException {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            for (QueueItem item : delegate.getAll()) {
+                index(item);
+            }
+            loaded = true;
+        }
+    }
+
+    /**
+     * Reloads the whole index, for changes to the delegate that don't say which items they changed
+     */
+    private synchronized void reload() throws DataAccessException {
+        items.clear();
+        waiting.clear();
+        loaded = false;
+        loadIfNeeded();
+    }
+
+    private synchronized void index(QueueItem item) {
+        QueueItem old = items.put(item.netId(), item);
+        if (old != null) {
+            waiting.remove(old);
+        }
+        if (!item.started()) {
+            waiting.add(item);
+        }
+    }
+
+    private synchronized void unindex(String netId) {
+        QueueItem old = items.remove(netId);
+        if (old != null) {
+            waiting.remove(old);
+        }
+    }
+}
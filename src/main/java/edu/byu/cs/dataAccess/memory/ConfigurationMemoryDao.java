@@ -2,12 +2,15 @@ package edu.byu.cs.dataAccess.memory;
 
 import edu.byu.cs.dataAccess.ConfigurationDao;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
 
 public class ConfigurationMemoryDao implements ConfigurationDao {
 
-    private final Map<Configuration, Object> configuration = new HashMap<>();
+    // Not a ConcurrentHashMap, since configuration values can be null
+    private final Map<Configuration, Object> configuration =
+            Collections.synchronizedMap(new EnumMap<>(Configuration.class));
 
     @Override
     public <T> void setConfiguration(Configuration key, T value, Class<T> type) {
@@ -0,0 +1,42 @@
+package edu.byu.cs.dataAccess.memory;
+
+import edu.byu.cs.dataAccess.GradingEventDao;
+import edu.byu.cs.model.GradingEvent;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Passes grading events between a worker and the web server running in the same JVM
+ */
+public class GradingEventMemoryDao implements GradingEventDao {
+    private final ConcurrentNavigableMap<Long, GradingEvent> events = new ConcurrentSkipListMap<>();
+    private long lastId = 0;
+
+    @Override
+    public synchronized void insertEvent(String netId, String message) {
+        lastId++;
+        events.put(lastId, new GradingEvent(lastId, netId, message, Instant.now()));
+    }
+
+    @Override
+    public List<GradingEvent> getEventsAfter(long id, int limit) {
+        return events.tailMap(id, false).values().stream().limit(limit).toList();
+    }
+
+    @Override
+    public synchronized long getLastEventId() {
+        return lastId;
+    }
+
+    @Override
+    public void removeEventsBefore(Instant cutoff) {
+        for (Map.Entry<Long, GradingEvent> entry : events.entrySet()) {
+            if (!entry.getValue().timestamp().isBefore(cutoff)) break;
+            events.remove(entry.getKey());
+        }
+    }
+}
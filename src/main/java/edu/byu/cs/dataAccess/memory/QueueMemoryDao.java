@@ -3,68 +3,149 @@ package edu.byu.cs.dataAccess.memory;
 import edu.byu.cs.dataAccess.QueueDao;
 import edu.byu.cs.model.QueueItem;
 
-import java.util.ArrayList;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
 
+/**
+ * Keeps the queue in the order items were added, keyed by net id since a student can only be in the queue once,
+ * along with the waiting items in {@link #WAITING_ORDER} so that claiming doesn't scan the queue.
+ */
 public class QueueMemoryDao implements QueueDao {
-    private final List<QueueItem> queue = new ArrayList<>();
+    private record Lease(String leaseOwner, Instant expires) {}
+
+    private final Map<String, QueueItem> queue = new LinkedHashMap<>();
+    private final NavigableSet<QueueItem> waiting = new TreeSet<>(WAITING_ORDER);
+    private final Map<String, Lease> leases = new HashMap<>();
+
     @Override
-    public void add(QueueItem item) {
-        queue.add(item);
+    public synchronized void add(QueueItem item) {
+        put(item);
+        leases.remove(item.netId());
     }
 
     @Override
-    public QueueItem pop() {
-        if (queue.isEmpty()) {
-            return null;
+    public synchronized void remove(String netId) {
+        QueueItem old = queue.remove(netId);
+        if (old != null) {
+            waiting.remove(old);
+        }
+        leases.remove(netId);
+    }
+
+    @Override
+    public synchronized boolean remove(String netId, String leaseOwner) {
+        Lease lease = leases.get(netId);
+        if (lease == null || !lease.leaseOwner().equals(leaseOwner)) {
+            return false;
         }
-        QueueItem item = queue.getFirst();
-        queue.removeFirst();
-        return item;
+        remove(netId);
+        return true;
+    }
+
+    @Override
+    public synchronized Collection<QueueItem> getAll() {
+        return List.copyOf(queue.values());
+    }
+
+    @Override
+    public synchronized List<QueueItem> getWaitingInOrder() {
+        return List.copyOf(waiting);
+    }
+
+    @Override
+    public synchronized int countStarted() {
+        return queue.size() - waiting.size();
     }
 
     @Override
-    public void remove(String netId) {
-        queue.removeIf(item -> item.netId().equals(netId));
+    public synchronized boolean isAlreadyInQueue(String netId) {
+        return queue.containsKey(netId);
     }
 
     @Override
-    public Collection<QueueItem> getAll() {
-        return queue;
+    public synchronized QueueItem claim(String leaseOwner, Duration lease) {
+        QueueItem next = waiting.pollFirst();
+        if (next == null) {
+            return null;
+        }
+        return start(next, leaseOwner, lease);
     }
 
     @Override
-    public boolean isAlreadyInQueue(String netId) {
-        return queue.stream().anyMatch(item -> item.netId().equals(netId));
+    public synchronized QueueItem claim(String netId, String leaseOwner, Duration lease) {
+        QueueItem item = queue.get(netId);
+        if (item == null || item.started()) {
+            return null;
+        }
+        return start(item, leaseOwner, lease);
+    }
+
+    private QueueItem start(QueueItem next, String leaseOwner, Duration lease) {
+        QueueItem claimed = new QueueItem(next.netId(), next.phase(), next.timeAdded(), true, next.priority(),
+                next.repoUrl(), next.admin(), next.attempts() + 1);
+        put(claimed);
+        leases.put(claimed.netId(), new Lease(leaseOwner, Instant.now().plus(lease)));
+        return claimed;
     }
 
     @Override
-    public void markStarted(String netId) {
-        for (int i = 0; i < queue.size(); i++) {
-            if (queue.get(i).netId().equals(netId)) {
-                QueueItem oldItem = queue.get(i);
-                QueueItem newItem = new QueueItem(oldItem.netId(), oldItem.phase(), oldItem.timeAdded(), true);
-                queue.set(i, newItem);
-                return;
-            }
+    public synchronized boolean renewLease(String netId, String leaseOwner, Duration lease) {
+        Lease current = leases.get(netId);
+        if (current == null || !current.leaseOwner().equals(leaseOwner)) {
+            return false;
         }
+        leases.put(netId, new Lease(leaseOwner, Instant.now().plus(lease)));
+        return true;
     }
 
     @Override
-    public void markNotStarted(String netId) {
-        for (int i = 0; i < queue.size(); i++) {
-            if (queue.get(i).netId().equals(netId)) {
-                QueueItem oldItem = queue.get(i);
-                QueueItem newItem = new QueueItem(oldItem.netId(), oldItem.phase(), oldItem.timeAdded(), false);
-                queue.set(i, newItem);
-                return;
-            }
+    public synchronized int releaseExpiredLeases() {
+        Instant now = Instant.now();
+        List<QueueItem> expired = queue.values().stream()
+                .filter(QueueItem::started)
+                .filter(item -> {
+                    Lease lease = leases.get(item.netId());
+                    return lease == null || lease.expires().isBefore(now);
+                })
+                .toList();
+        for (QueueItem item : expired) {
+            QueueItem.Priority priority = item.priority().rank() < QueueItem.Priority.RETRY.rank() ?
+                    item.priority() : QueueItem.Priority.RETRY;
+            requeue(item.netId(), priority);
         }
+        return expired.size();
     }
 
     @Override
-    public QueueItem get(String netId) {
-        return queue.stream().filter(item -> item.netId().equals(netId)).findFirst().orElse(null);
+    public synchronized void requeue(String netId, QueueItem.Priority priority) {
+        QueueItem old = queue.get(netId);
+        if (old == null) {
+            return;
+        }
+        put(new QueueItem(old.netId(), old.phase(), old.timeAdded(), false, priority, old.repoUrl(), old.admin(),
+                old.attempts()));
+        leases.remove(netId);
+    }
+
+    @Override
+    public synchronized QueueItem get(String netId) {
+        return queue.get(netId);
+    }
+
+    private void put(QueueItem item) {
+        QueueItem old = queue.put(item.netId(), item);
+        if (old != null) {
+            waiting.remove(old);
+        }
+        if (!item.started()) {
+            waiting.add(item);
+        }
     }
 }
@@ -5,32 +5,36 @@ import edu.byu.cs.dataAccess.sql.RepoUpdateDao;
 import edu.byu.cs.model.RepoUpdate;
 
 import java.util.Collection;
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Keeps repo updates indexed by student and by repo, like the indexes on the <code>repo_update</code> table
+ */
 public class RepoUpdateMemoryDao implements RepoUpdateDao {
-    private final Deque<RepoUpdate> repoUpdates = new LinkedList<>();
+    private final ConcurrentMap<String, Queue<RepoUpdate>> updatesByNetId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Queue<RepoUpdate>> updatesByRepoUrl = new ConcurrentHashMap<>();
 
     @Override
     public void insertUpdate(RepoUpdate update) throws DataAccessException {
-        repoUpdates.add(update);
+        updatesByNetId.computeIfAbsent(update.netId(), k -> new ConcurrentLinkedQueue<>()).add(update);
+        updatesByRepoUrl.computeIfAbsent(update.repoUrl(), k -> new ConcurrentLinkedQueue<>()).add(update);
     }
 
     @Override
     public Collection<RepoUpdate> getUpdatesForUser(String netId) throws DataAccessException {
-        return repoUpdates
-                .stream()
-                .filter(update ->
-                        update.netId().equals(netId))
-                .toList();
+        return copyOf(updatesByNetId.get(netId));
     }
 
     @Override
     public Collection<RepoUpdate> getUpdatesForRepo(String repoUrl) throws DataAccessException {
-        return repoUpdates
-                .stream()
-                .filter(update ->
-                        update.repoUrl().equals(repoUrl))
-                .toList();
+        return copyOf(updatesByRepoUrl.get(repoUrl));
+    }
+
+    private static Collection<RepoUpdate> copyOf(Queue<RepoUpdate> updates) {
+        return updates == null ? List.of() : List.copyOf(updates);
     }
 }
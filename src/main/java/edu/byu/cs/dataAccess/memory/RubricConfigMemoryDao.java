@@ -11,17 +11,17 @@ import java.util.Map;
 public class RubricConfigMemoryDao implements RubricConfigDao {
     private final Map<Phase, RubricConfig> rubricConfigs = new EnumMap<>(Phase.class);
     @Override
-    public RubricConfig getRubricConfig(Phase phase) {
+    public synchronized RubricConfig getRubricConfig(Phase phase) {
         return rubricConfigs.get(phase);
     }
 
     @Override
-    public void setRubricConfig(Phase phase, RubricConfig rubricConfig) {
+    public synchronized void setRubricConfig(Phase phase, RubricConfig rubricConfig) {
         rubricConfigs.put(phase, rubricConfig);
     }
 
     @Override
-    public void setRubricIdAndPoints(Phase phase, Rubric.RubricType type, Integer points, String rubric_id) {
+    public synchronized void setRubricIdAndPoints(Phase phase, Rubric.RubricType type, Integer points, String rubric_id) {
         RubricConfig rubricConfig = rubricConfigs.get(phase);
         if (rubricConfig == null) {
             RubricConfig.RubricConfigItem rubricConfigItem = new RubricConfig.RubricConfigItem("", "", points, rubric_id);
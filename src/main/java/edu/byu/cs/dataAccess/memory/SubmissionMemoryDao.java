@@ -5,49 +5,98 @@ import edu.byu.cs.dataAccess.ItemNotFoundException;
 import edu.byu.cs.dataAccess.SubmissionDao;
 import edu.byu.cs.model.Phase;
 import edu.byu.cs.model.Submission;
+import edu.byu.cs.model.SubmissionSummary;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps submissions indexed the same way the SQL tables are, so that it can hold production-sized data sets:
+ * by student, then by phase, then in timestamp order, plus the latest submission for each student and phase
+ * in {@link #LATEST_SUBMISSION_ORDER}, like <code>latest_submission</code>.
+ * <br>
+ * Reads don't lock. Writes are synchronized so that the indexes change together,
+ * although a read running alongside a write may see the write in one index before another.
+ */
 public class SubmissionMemoryDao implements SubmissionDao {
 
-    private final Deque<Submission> submissions = new LinkedList<>();
+    /**
+     * Orders submissions by timestamp, and submissions with the same timestamp in the order they were inserted
+     */
+    private record Key(Instant timestamp, long sequence) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int compare = timestamp.compareTo(other.timestamp);
+            return compare != 0 ? compare : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private record StudentPhase(String netId, Phase phase) {}
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ConcurrentMap<String, ConcurrentMap<Phase, ConcurrentNavigableMap<Key, Submission>>> byNetIdAndPhase =
+            new ConcurrentHashMap<>();
+
+    private final ConcurrentNavigableMap<LatestSubmissionCursor, Submission> latest =
+            new ConcurrentSkipListMap<>(LATEST_SUBMISSION_ORDER);
+
+    /**
+     * Where each student and phase currently is in {@link #latest}. Only used by writes.
+     */
+    private final Map<StudentPhase, LatestSubmissionCursor> latestCursors = new HashMap<>();
 
     @Override
-    public void insertSubmission(Submission submission) {
-        submissions.add(submission);
+    public synchronized void insertSubmission(Submission submission) {
+        phaseSubmissions(submission.netId(), submission.phase())
+                .put(new Key(submission.timestamp(), sequence.incrementAndGet()), submission);
+        refreshLatest(submission.netId(), submission.phase());
     }
 
     @Override
     public Collection<Submission> getSubmissionsForPhase(String netId, Phase phase) {
-        return submissions
-                .stream()
-                .filter(submission ->
-                        submission.netId().equals(netId) && submission.phase().equals(phase))
-                .toList();
-
+        return List.copyOf(existingPhaseSubmissions(netId, phase).values());
     }
 
     @Override
     public Collection<Submission> getSubmissionsForUser(String netId) {
-        return submissions
-                .stream()
-                .filter(submission ->
-                        submission.netId().equals(netId))
-                .toList();
+        List<Submission> submissions = new ArrayList<>();
+        for (NavigableMap<Key, Submission> phaseSubmissions : userSubmissions(netId).values()) {
+            submissions.addAll(phaseSubmissions.values());
+        }
+        return submissions;
     }
 
     @Override
-    public Submission getLastSubmissionForUser(String netId) throws DataAccessException {
-        Collection<Submission> submissions = getSubmissionsForUser(netId);
-        Submission latest = null;
-        long max = 0;
-        for (Submission s : submissions) {
-            if (s.passed() && s.timestamp().getEpochSecond() > max) latest = s;
+    public Submission getLastSubmissionForUser(String netId) {
+        Submission last = null;
+        for (NavigableMap<Key, Submission> phaseSubmissions : userSubmissions(netId).values()) {
+            Map.Entry<Key, Submission> entry = phaseSubmissions.lastEntry();
+            if (entry != null && (last == null || entry.getValue().timestamp().isAfter(last.timestamp()))) {
+                last = entry.getValue();
+            }
         }
-        return latest;
+        return last;
+    }
+
+    @Override
+    public Submission getLatestSubmissionForPhase(String netId, Phase phase) {
+        Map.Entry<Key, Submission> entry = existingPhaseSubmissions(netId, phase).lastEntry();
+        return entry == null ? null : entry.getValue();
+    }
+
+    @Override
+    public Submission getSubmission(String netId, Phase phase, Instant timestamp) {
+        // Every key with this timestamp sorts between these two
+        NavigableMap<Key, Submission> matching = existingPhaseSubmissions(netId, phase)
+                .subMap(new Key(timestamp, Long.MIN_VALUE), true, new Key(timestamp, Long.MAX_VALUE), true);
+        return matching.isEmpty() ? null : matching.firstEntry().getValue();
     }
 
     @Override
@@ -57,102 +106,128 @@ public class SubmissionMemoryDao implements SubmissionDao {
 
     @Override
     public Collection<Submission> getAllLatestSubmissions(int batchSize) {
-        HashMap<String, Submission> latestSubmissions = new HashMap<>();
-        if (batchSize==0) return latestSubmissions.values();
-
-        for (Submission submission : submissions) {
-            String key = submission.netId() + submission.phase();
-            latestSubmissions.compute(key, (k, v) -> {
-                if (v == null || submission.timestamp().isAfter(v.timestamp())) {
-                    return submission;
-                } else {
-                    return v;
-                }
-            });
-
-            batchSize -= 1;
-            if (batchSize == 0) { break; }
-        }
+        return latest.values().stream().limit(batchSize < 0 ? Long.MAX_VALUE : batchSize).toList();
+    }
 
-        return latestSubmissions.values();
+    @Override
+    public List<SubmissionSummary> getLatestSubmissionSummaries(LatestSubmissionCursor before, int limit) {
+        NavigableMap<LatestSubmissionCursor, Submission> page = before == null ? latest : latest.tailMap(before, false);
+        return page.values().stream()
+                .limit(limit)
+                .map(SubmissionSummary::of)
+                .toList();
     }
 
     @Override
-    public void removeSubmissionsByNetId(String netId, int daysOld) {
-        submissions.removeIf(submission -> submission.netId().equals(netId) &&
-                submission.timestamp().compareTo(Instant.now().minus(daysOld, ChronoUnit.DAYS)) < 0);
+    public synchronized void removeSubmissionsByNetId(String netId, int daysOld) {
+        Instant cutoff = Instant.now().minus(daysOld, ChronoUnit.DAYS);
+        for (var entry : userSubmissions(netId).entrySet()) {
+            entry.getValue().headMap(new Key(cutoff, Long.MIN_VALUE)).clear();
+            refreshLatest(netId, entry.getKey());
+        }
     }
 
     @Override
     public Submission getFirstPassingSubmission(String netId, Phase phase) {
-        Collection<Submission> submissions = getSubmissionsForPhase(netId, phase);
-        Submission earliest = null;
-        long min = Long.MAX_VALUE;
-        for (Submission s : submissions) {
-            if (s.passed() && s.timestamp().getEpochSecond() < min) earliest = s;
+        for (Submission submission : existingPhaseSubmissions(netId, phase).values()) {
+            if (submission.passed()) return submission;
         }
-        return earliest;
+        return null;
     }
 
     @Override
     public Submission getBestSubmissionForPhase(String netId, Phase phase) {
-        Collection<Submission> submissions = getSubmissionsForPhase(netId, phase);
-        Submission bestSubmission =  null;
-        for (Submission s : submissions) {
-            if (bestSubmission == null) { bestSubmission = s; }
-            else if (s.score() > bestSubmission.score()) { bestSubmission = s; }
+        Submission bestSubmission = null;
+        for (Submission submission : existingPhaseSubmissions(netId, phase).values()) {
+            if (!submission.passed()) continue;
+            if (bestSubmission == null || submission.score() > bestSubmission.score()) {
+                bestSubmission = submission;
+            }
         }
         return bestSubmission;
     }
 
     @Override
     public Collection<Submission> getAllPassingSubmissions(String netId) {
-        return submissions
-                .stream()
-                .filter(submission -> submission.passed() && submission.netId().equals(netId))
-                .collect(Collectors.toSet());
+        return getSubmissionsForUser(netId).stream().filter(Submission::passed).toList();
     }
 
     @Override
-    public void manuallyApproveSubmission(Submission targetSubmission, Float newScore,
-                                          Submission.ScoreVerification scoreVerification) throws ItemNotFoundException {
+    public synchronized void manuallyApproveSubmission(Submission targetSubmission, Float newScore,
+                                                       Submission.ScoreVerification scoreVerification)
+            throws ItemNotFoundException {
         if (targetSubmission == null) {
             throw new ItemNotFoundException("Target submission must not be null");
         }
 
-        long matchingSubmissions = submissions.stream().filter(s -> s.equals(targetSubmission)).count();
-        if (matchingSubmissions != 1) {
+        NavigableMap<Key, Submission> phaseSubmissions =
+                existingPhaseSubmissions(targetSubmission.netId(), targetSubmission.phase());
+        List<Key> matchingKeys = phaseSubmissions.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(targetSubmission))
+                .map(Map.Entry::getKey)
+                .toList();
+        if (matchingKeys.size() != 1) {
             throw new ItemNotFoundException("Did not isolate a single Submission "
-                    + "based on the provided criteria. Found %d".formatted(matchingSubmissions));
+                    + "based on the provided criteria. Found %d".formatted(matchingKeys.size()));
         }
 
-        // Search and replace the item in the deque
-        Submission submission;
-        Iterator<Submission> iterator = submissions.iterator();
-        while (iterator.hasNext()) {
-            submission = iterator.next();
-            if (!targetSubmission.equals(submission)) continue;
-
-            iterator.remove();
-            submissions.add(new Submission(
-                    submission.netId(),
-                    submission.repoUrl(),
-                    submission.headHash(),
-                    submission.timestamp(),
-                    submission.phase(),
-                    submission.passed(),
-                    newScore,                                       // Changed
-                    submission.rawScore(),
-                    submission.notes(),
-                    submission.rubric(),
-                    submission.admin(),
-                    Submission.VerifiedStatus.ApprovedManually,     // Changed
-                    scoreVerification                               // Changed
-            ));
-            return; // We found it!
-        }
+        Submission submission = phaseSubmissions.get(matchingKeys.getFirst());
+        phaseSubmissions.put(matchingKeys.getFirst(), new Submission(
+                submission.netId(),
+                submission.repoUrl(),
+                submission.headHash(),
+                submission.timestamp(),
+                submission.phase(),
+                submission.passed(),
+                newScore,                                       // Changed
+                submission.rawScore(),
+                submission.notes(),
+                submission.rubric(),
+                submission.admin(),
+                Submission.VerifiedStatus.ApprovedManually,     // Changed
+                scoreVerification,                              // Changed
+                submission.resourceUsage()
+        ));
+        refreshLatest(submission.netId(), submission.phase());
+    }
+
+    @Override
+    public synchronized void manuallyApproveSubmissions(Collection<ManualApproval> approvals)
+            throws ItemNotFoundException, DataAccessException {
+        // Synchronized so no other write can slip in between finding the submissions and approving them
+        SubmissionDao.super.manuallyApproveSubmissions(approvals);
+    }
+
+    private ConcurrentNavigableMap<Key, Submission> phaseSubmissions(String netId, Phase phase) {
+        return byNetIdAndPhase.computeIfAbsent(netId, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(phase, k -> new ConcurrentSkipListMap<>());
+    }
+
+    private NavigableMap<Key, Submission> existingPhaseSubmissions(String netId, Phase phase) {
+        NavigableMap<Key, Submission> phaseSubmissions = userSubmissions(netId).get(phase);
+        return phaseSubmissions == null ? Collections.emptyNavigableMap() : phaseSubmissions;
+    }
 
-        throw new ItemNotFoundException("After verifying that 1 item existed, we didn't actually get to modify it");
+    private Map<Phase, ConcurrentNavigableMap<Key, Submission>> userSubmissions(String netId) {
+        Map<Phase, ConcurrentNavigableMap<Key, Submission>> userSubmissions = byNetIdAndPhase.get(netId);
+        return userSubmissions == null ? Collections.emptyMap() : userSubmissions;
     }
 
+    /**
+     * Brings the latest submission index up to date after a student's submissions for a phase change
+     */
+    private void refreshLatest(String netId, Phase phase) {
+        StudentPhase studentPhase = new StudentPhase(netId, phase);
+        LatestSubmissionCursor oldCursor = latestCursors.remove(studentPhase);
+        if (oldCursor != null) {
+            latest.remove(oldCursor);
+        }
+
+        Submission newest = getLatestSubmissionForPhase(netId, phase);
+        if (newest != null) {
+            LatestSubmissionCursor cursor = new LatestSubmissionCursor(newest.timestamp(), netId, phase);
+            latest.put(cursor, newest);
+            latestCursors.put(studentPhase, cursor);
+        }
+    }
 }
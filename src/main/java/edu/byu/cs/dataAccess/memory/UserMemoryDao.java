@@ -4,18 +4,33 @@ import edu.byu.cs.dataAccess.UserDao;
 import edu.byu.cs.model.User;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps users by net id, along with which students have claimed each repo url so that
+ * {@link #repoUrlClaimed(String)} doesn't have to look at every user
+ */
 public class UserMemoryDao implements UserDao {
 
-    private final Map<String, User> users = new HashMap<>();
+    private final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+
+    /**
+     * The net ids of the users with each repo url, with the url in lower case since urls are compared ignoring case
+     */
+    private final ConcurrentMap<String, Set<String>> netIdsByRepoUrl = new ConcurrentHashMap<>();
+
     @Override
-    public void insertUser(User user) {
+    public synchronized void insertUser(User user) {
         if (users.containsKey(user.netId()))
             throw new IllegalArgumentException("User already exists");
 
         users.put(user.netId(), user);
+        indexRepoUrl(user);
     }
 
     @Override
@@ -25,71 +40,62 @@ public class UserMemoryDao implements UserDao {
 
     @Override
     public void setFirstName(String netId, String firstName) {
-        if (!users.containsKey(netId))
-            throw new IllegalArgumentException("User does not exist");
-
-        User oldUser = users.get(netId);
-        User newUser = new User(oldUser.netId(), oldUser.canvasUserId(), firstName, oldUser.lastName(), oldUser.repoUrl(), oldUser.role());
-
-        users.put(netId, newUser);
+        update(netId, oldUser -> new User(oldUser.netId(), oldUser.canvasUserId(), firstName, oldUser.lastName(), oldUser.repoUrl(), oldUser.role()));
     }
 
     @Override
     public void setLastName(String netId, String lastName) {
-        if (!users.containsKey(netId))
-            throw new IllegalArgumentException("User does not exist");
-
-        User oldUser = users.get(netId);
-        User newUser = new User(oldUser.netId(), oldUser.canvasUserId(), oldUser.firstName(), lastName, oldUser.repoUrl(), oldUser.role());
-
-        users.put(netId, newUser);
+        update(netId, oldUser -> new User(oldUser.netId(), oldUser.canvasUserId(), oldUser.firstName(), lastName, oldUser.repoUrl(), oldUser.role()));
     }
 
     @Override
     public void setRepoUrl(String netId, String repoUrl) {
-        if (!users.containsKey(netId))
-            throw new IllegalArgumentException("User does not exist");
-
-        User oldUser = users.get(netId);
-        User newUser = new User(oldUser.netId(), oldUser.canvasUserId(), oldUser.firstName(), oldUser.lastName(), repoUrl, oldUser.role());
-
-        users.put(netId, newUser);
+        update(netId, oldUser -> new User(oldUser.netId(), oldUser.canvasUserId(), oldUser.firstName(), oldUser.lastName(), repoUrl, oldUser.role()));
     }
 
     @Override
     public void setRole(String netId, User.Role role) {
-        if (!users.containsKey(netId))
-            throw new IllegalArgumentException("User does not exist");
-
-        User oldUser = users.get(netId);
-        User newUser = new User(oldUser.netId(), 0, oldUser.firstName(), oldUser.lastName(), oldUser.repoUrl(), role);
-
-        users.put(netId, newUser);
+        update(netId, oldUser -> new User(oldUser.netId(), 0, oldUser.firstName(), oldUser.lastName(), oldUser.repoUrl(), role));
     }
 
     @Override
     public void setCanvasUserId(String netId, int canvasUserId) {
-        if (!users.containsKey(netId))
-            throw new IllegalArgumentException("User does not exist");
-
-        User oldUser = users.get(netId);
-        User newUser = new User(oldUser.netId(), canvasUserId, oldUser.firstName(), oldUser.lastName(), oldUser.repoUrl(), oldUser.role());
-
-        users.put(netId, newUser);
+        update(netId, oldUser -> new User(oldUser.netId(), canvasUserId, oldUser.firstName(), oldUser.lastName(), oldUser.repoUrl(), oldUser.role()));
     }
 
     @Override
     public Collection<User> getUsers() {
-        return users.values();
+        return List.copyOf(users.values());
     }
 
     @Override
     public boolean repoUrlClaimed(String repoUrl) {
-        for (User user : users.values()) {
-            if (user.repoUrl() != null && user.repoUrl().equalsIgnoreCase(repoUrl))
-                return true;
-        }
+        Set<String> netIds = netIdsByRepoUrl.get(repoUrl.toLowerCase(Locale.ROOT));
+        return netIds != null && !netIds.isEmpty();
+    }
+
+    private synchronized void update(String netId, UnaryOperator<User> change) {
+        User oldUser = users.get(netId);
+        if (oldUser == null)
+            throw new IllegalArgumentException("User does not exist");
+
+        User newUser = change.apply(oldUser);
+        unindexRepoUrl(oldUser);
+        users.put(netId, newUser);
+        indexRepoUrl(newUser);
+    }
+
+    private void indexRepoUrl(User user) {
+        if (user.repoUrl() == null) return;
+        netIdsByRepoUrl.computeIfAbsent(user.repoUrl().toLowerCase(Locale.ROOT), k -> ConcurrentHashMap.newKeySet())
+                .add(user.netId());
+    }
 
-        return false;
+    private void unindexRepoUrl(User user) {
+        if (user.repoUrl() == null) return;
+        netIdsByRepoUrl.computeIfPresent(user.repoUrl().toLowerCase(Locale.ROOT), (k, netIds) -> {
+            netIds.remove(user.netId());
+            return netIds.isEmpty() ? null : netIds;
+        });
     }
 }
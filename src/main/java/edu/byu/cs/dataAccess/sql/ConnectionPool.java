@@ -0,0 +1,278 @@
+package edu.byu.cs.dataAccess.sql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * A bounded pool of database connections.
+ * <br>
+ * Connections handed out by the pool are proxies whose <code>close()</code> returns the underlying
+ * connection to the pool, so callers use them exactly like connections from <code>DriverManager</code>.
+ * Connections that have sat idle are validated before being reused. Connections that are held for longer
+ * than {@link #LEAK_THRESHOLD_MILLIS} are logged along with the thread that borrowed them, since a connection
+ * that is never closed is never returned to the pool. Where they were borrowed is only logged when borrows are
+ * traced, since capturing a stack trace on every borrow is expensive.
+ */
+public class ConnectionPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPool.class);
+
+    /**
+     * How long a connection can sit idle before it is validated on its way out of the pool
+     */
+    private static final long VALIDATE_AFTER_MILLIS = 30000;
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private static final long LEAK_THRESHOLD_MILLIS = 60000;
+
+    /**
+     * Opens a new connection to the database
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * A snapshot of the pool's usage
+     *
+     * @param maxSize           the most connections the pool will open
+     * @param active            connections currently borrowed
+     * @param idle              open connections waiting to be borrowed
+     * @param waiting           threads waiting for a connection
+     * @param borrows           connections borrowed since the pool was created
+     * @param created           connections opened since the pool was created
+     * @param averageWaitMillis the average time spent waiting to borrow a connection
+     * @param maxWaitMillis     the longest time spent waiting to borrow a connection
+     * @param leaks             connections reported as held for too long
+     */
+    public record Metrics(int maxSize, int active, int idle, int waiting, long borrows, long created,
+                          double averageWaitMillis, double maxWaitMillis, long leaks) {}
+
+    private record IdleConnection(Connection connection, long returnedAt) {}
+
+    /**
+     * @param borrowedFrom where the connection was borrowed, or null if borrows aren't traced
+     */
+    private record Lease(long borrowedAt, String thread, Throwable borrowedFrom) {}
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final boolean traceBorrows;
+
+    private final Semaphore permits;
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private final Map<Connection, Lease> leases = new ConcurrentHashMap<>();
+    private final Map<Connection, Boolean> reportedLeaks = new ConcurrentHashMap<>();
+
+    private long borrows = 0;
+    private long created = 0;
+    private long totalWaitNanos = 0;
+    private long maxWaitNanos = 0;
+    private long leaks = 0;
+
+    /**
+     * @param factory             opens new connections
+     * @param maxSize             the most connections open at once
+     * @param borrowTimeoutMillis how long to wait for a connection when all of them are borrowed
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long borrowTimeoutMillis) {
+        this(factory, maxSize, borrowTimeoutMillis, false);
+    }
+
+    /**
+     * @param factory             opens new connections
+     * @param maxSize             the most connections open at once
+     * @param borrowTimeoutMillis how long to wait for a connection when all of them are borrowed
+     * @param traceBorrows        whether to record where each connection is borrowed, so that connections held
+     *                            for too long can be traced back to the code that borrowed them
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long borrowTimeoutMillis, boolean traceBorrows) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.traceBorrows = traceBorrows;
+        this.permits = new Semaphore(maxSize, true);
+
+        ScheduledExecutorService leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-leak-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        leakDetector.scheduleWithFixedDelay(this::reportLeaks, LEAK_THRESHOLD_MILLIS, LEAK_THRESHOLD_MILLIS / 2,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, opening a new one if none are idle and the pool isn't full.
+     * The connection is returned to the pool when it is closed.
+     *
+     * @return a connection for only the caller to use until it is closed
+     * @throws SQLException if no connection became available in time, or a new one couldn't be opened
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after %dms waiting for a database connection, %d of %d in use"
+                        .formatted(borrowTimeoutMillis, leases.size(), maxSize));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long waitNanos = System.nanoTime() - start;
+
+        try {
+            Connection connection = takeIdle();
+            if (connection == null) {
+                connection = factory.create();
+                synchronized (this) {
+                    created++;
+                }
+            }
+            leases.put(connection, new Lease(System.currentTimeMillis(), Thread.currentThread().getName(),
+                    traceBorrows ? new Throwable("Connection borrowed here") : null));
+            synchronized (this) {
+                borrows++;
+                totalWaitNanos += waitNanos;
+                maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+            }
+            return wrap(connection);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return a snapshot of the pool's usage
+     */
+    public synchronized Metrics metrics() {
+        return new Metrics(maxSize, leases.size(), idle.size(), permits.getQueueLength(), borrows, created,
+                borrows == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrows, maxWaitNanos / 1_000_000.0, leaks);
+    }
+
+    /**
+     * Takes the most recently returned idle connection that is still usable, closing any that aren't
+     */
+    private Connection takeIdle() {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (this) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) return null;
+
+            boolean stale = System.currentTimeMillis() - candidate.returnedAt() > VALIDATE_AFTER_MILLIS;
+            try {
+                if (!stale || candidate.connection().isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    return candidate.connection();
+                }
+            } catch (SQLException e) {
+                LOGGER.debug("Idle database connection failed validation", e);
+            }
+            closeQuietly(candidate.connection());
+        }
+    }
+
+    private void giveBack(Connection connection) {
+        leases.remove(connection);
+        reportedLeaks.remove(connection);
+        try {
+            if (connection.isClosed()) return;
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            synchronized (this) {
+                idle.addFirst(new IdleConnection(connection, System.currentTimeMillis()));
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Discarding a database connection that could not be reset", e);
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void reportLeaks() {
+        long now = System.currentTimeMillis();
+        leases.forEach((connection, lease) -> {
+            if (now - lease.borrowedAt() < LEAK_THRESHOLD_MILLIS) return;
+            if (reportedLeaks.putIfAbsent(connection, true) != null) return;
+            synchronized (this) {
+                leaks++;
+            }
+            if (lease.borrowedFrom() != null) {
+                LOGGER.warn("A database connection borrowed by {} has been held for {}ms without being closed",
+                        lease.thread(), now - lease.borrowedAt(), lease.borrowedFrom());
+            } else {
+                LOGGER.warn("A database connection borrowed by {} has been held for {}ms without being closed. " +
+                        "Start with --db-trace-borrows to log where it was borrowed.",
+                        lease.thread(), now - lease.borrowedAt());
+            }
+        });
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new InvocationHandler() {
+                    private boolean closed = false;
+
+                    @Override
+                    public synchronized Object invoke(Object proxy, Method method, Object[] args)
+                            throws Throwable {
+                        switch (method.getName()) {
+                            case "close" -> {
+                                if (!closed) {
+                                    closed = true;
+                                    giveBack(connection);
+                                }
+                                return null;
+                            }
+                            case "isClosed" -> {
+                                return closed || connection.isClosed();
+                            }
+                            case "equals" -> {
+                                return proxy == args[0];
+                            }
+                            case "hashCode" -> {
+                                return System.identityHashCode(proxy);
+                            }
+                            case "toString" -> {
+                                return "Pooled " + connection;
+                            }
+                        }
+                        if (closed) {
+                            throw new SQLException("Connection is closed");
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOGGER.debug("Error closing database connection", e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package edu.byu.cs.dataAccess.sql;
+
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.GradingEventDao;
+import edu.byu.cs.dataAccess.sql.helpers.ColumnDefinition;
+import edu.byu.cs.dataAccess.sql.helpers.SqlReader;
+import edu.byu.cs.model.GradingEvent;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class GradingEventSqlDao implements GradingEventDao {
+
+    // The id is assigned by the database
+    private static final ColumnDefinition[] COLUMN_DEFINITIONS = {
+            new ColumnDefinition<GradingEvent>("net_id", GradingEvent::netId),
+            new ColumnDefinition<GradingEvent>("message", GradingEvent::message),
+            new ColumnDefinition<GradingEvent>("timestamp", e -> Timestamp.from(e.timestamp())),
+    };
+
+    private static GradingEvent readEvent(ResultSet rs) throws SQLException {
+        return new GradingEvent(
+                rs.getLong("id"),
+                rs.getString("net_id"),
+                rs.getString("message"),
+                rs.getTimestamp("timestamp").toInstant()
+        );
+    }
+
+    private final SqlReader<GradingEvent> sqlReader = new SqlReader<GradingEvent>(
+            "grading_event", COLUMN_DEFINITIONS, GradingEventSqlDao::readEvent);
+
+    @Override
+    public void insertEvent(String netId, String message) throws DataAccessException {
+        sqlReader.insertItem(new GradingEvent(0, netId, message, Instant.now()));
+    }
+
+    @Override
+    public List<GradingEvent> getEventsAfter(long id, int limit) throws DataAccessException {
+        return sqlReader.executeQuery(
+                "SELECT e.id, %s FROM %s e WHERE e.id > ? ORDER BY e.id LIMIT ?"
+                        .formatted(sqlReader.allColumnNames("e"), sqlReader.getTableName()),
+                ps -> {
+                    ps.setLong(1, id);
+                    ps.setInt(2, limit);
+                },
+                rs -> {
+                    List<GradingEvent> events = new ArrayList<>();
+                    while (rs.next()) {
+                        events.add(readEvent(rs));
+                    }
+                    return events;
+                }
+        );
+    }
+
+    @Override
+    public long getLastEventId() throws DataAccessException {
+        return sqlReader.executeQuery(
+                "SELECT COALESCE(MAX(id), 0) FROM %s".formatted(sqlReader.getTableName()),
+                ps -> {},
+                rs -> rs.next() ? rs.getLong(1) : 0L
+        );
+    }
+
+    @Override
+    public void removeEventsBefore(Instant cutoff) throws DataAccessException {
+        sqlReader.executeUpdate(
+                "DELETE FROM %s WHERE timestamp < ?".formatted(sqlReader.getTableName()),
+                ps -> ps.setTimestamp(1, Timestamp.from(cutoff))
+        );
+    }
+}
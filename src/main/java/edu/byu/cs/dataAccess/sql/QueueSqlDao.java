@@ -1,5 +1,6 @@
 package edu.byu.cs.dataAccess.sql;
 
+import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.dataAccess.QueueDao;
 import edu.byu.cs.dataAccess.sql.helpers.ColumnDefinition;
@@ -9,8 +10,16 @@ import edu.byu.cs.model.QueueItem;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Collection;
 
+/**
+ * The queue, stored so that several graders, in this process or others, can claim from it.
+ * <br>
+ * Claims lock the row they take with <code>FOR UPDATE SKIP LOCKED</code>, so graders claiming at the same
+ * time each get a different row without waiting on each other. Leases are timed by the database's clock
+ * so that graders on different machines agree on when a lease runs out.
+ */
 public class QueueSqlDao implements QueueDao {
 
     private static final ColumnDefinition[] COLUMN_DEFINITIONS = {
@@ -18,13 +27,21 @@ public class QueueSqlDao implements QueueDao {
             new ColumnDefinition<QueueItem>("phase", q -> q.phase().name()),
             new ColumnDefinition<QueueItem>("started", QueueItem::started),
             new ColumnDefinition<QueueItem>("time_added", QueueItem::timeAdded),
+            new ColumnDefinition<QueueItem>("priority", q -> q.priority().rank()),
+            new ColumnDefinition<QueueItem>("repo_url", QueueItem::repoUrl),
+            new ColumnDefinition<QueueItem>("admin", QueueItem::admin),
+            new ColumnDefinition<QueueItem>("attempts", QueueItem::attempts),
     };
     private static QueueItem readQueueItem(ResultSet rs) throws SQLException {
         return new QueueItem(
                 rs.getString("net_id"),
                 Phase.valueOf(rs.getString("phase")),
                 rs.getTimestamp("time_added").toInstant(),
-                rs.getBoolean("started")
+                rs.getBoolean("started"),
+                QueueItem.Priority.fromRank(rs.getInt("priority")),
+                rs.getString("repo_url"),
+                rs.getBoolean("admin"),
+                rs.getInt("attempts")
         );
     }
 
@@ -36,26 +53,6 @@ public class QueueSqlDao implements QueueDao {
         sqlReader.insertItem(item);
     }
 
-    @Override
-    public QueueItem pop() throws DataAccessException {
-        try (var connection = SqlDb.getConnection();
-            var statement = connection.prepareStatement(
-                    """
-                            DELETE FROM %s
-                            WHERE net_id = (
-                                SELECT net_id
-                                FROM %1$s
-                                ORDER BY time_added
-                                LIMIT 1
-                            )
-                            """.formatted(sqlReader.getTableName()))) {
-            var topItems = sqlReader.readItems(statement);
-            return sqlReader.expectOneItem(topItems);
-        } catch (Exception e) {
-            throw new DataAccessException("Error popping item from queue", e);
-        }
-    }
-
     @Override
     public void remove(String netId) throws DataAccessException {
         sqlReader.executeUpdate(
@@ -67,6 +64,21 @@ public class QueueSqlDao implements QueueDao {
         );
     }
 
+    @Override
+    public boolean remove(String netId, String leaseOwner) throws DataAccessException {
+        int removed = sqlReader.executeUpdate(
+                """
+                    DELETE FROM %s
+                    WHERE net_id = ? AND lease_owner = ?
+                    """.formatted(sqlReader.getTableName()),
+                ps -> {
+                    ps.setString(1, netId);
+                    ps.setString(2, leaseOwner);
+                }
+        );
+        return removed == 1;
+    }
+
     @Override
     public Collection<QueueItem> getAll() throws DataAccessException {
         return sqlReader.executeQuery("");
@@ -81,24 +93,93 @@ public class QueueSqlDao implements QueueDao {
     }
 
     @Override
-    public void markStarted(String netId) throws DataAccessException {
-        updatedStartedField(netId, true);
+    public QueueItem claim(String leaseOwner, Duration lease) throws DataAccessException {
+        return DaoService.inTransaction(() -> {
+            String netId = sqlReader.executeQuery(
+                    """
+                            SELECT net_id
+                            FROM %s
+                            WHERE started = 0
+                            ORDER BY priority, time_added, net_id
+                            LIMIT 1
+                            FOR UPDATE SKIP LOCKED
+                            """.formatted(sqlReader.getTableName()),
+                    ps -> {},
+                    rs -> rs.next() ? rs.getString(1) : null
+            );
+            if (netId == null) return null;
+
+            return claim(netId, leaseOwner, lease);
+        });
     }
 
     @Override
-    public void markNotStarted(String netId) throws DataAccessException {
-        updatedStartedField(netId, false);
+    public QueueItem claim(String netId, String leaseOwner, Duration lease) throws DataAccessException {
+        int updated = sqlReader.executeUpdate(
+                """
+                        UPDATE %s
+                        SET started = 1, attempts = attempts + 1,
+                            lease_owner = ?, lease_expires = NOW() + INTERVAL ? SECOND
+                        WHERE net_id = ? AND started = 0
+                        """.formatted(sqlReader.getTableName()),
+                ps -> {
+                    ps.setString(1, leaseOwner);
+                    ps.setLong(2, lease.toSeconds());
+                    ps.setString(3, netId);
+                }
+        );
+        return updated == 1 ? get(netId) : null;
     }
 
-    private void updatedStartedField(String netId, boolean started) throws DataAccessException {
+    @Override
+    public int countStarted() throws DataAccessException {
+        return sqlReader.executeQuery(
+                "SELECT COUNT(*) FROM %s WHERE started = 1".formatted(sqlReader.getTableName()),
+                ps -> {},
+                rs -> rs.next() ? rs.getInt(1) : 0
+        );
+    }
+
+    @Override
+    public boolean renewLease(String netId, String leaseOwner, Duration lease) throws DataAccessException {
+        int updated = sqlReader.executeUpdate(
+                """
+                        UPDATE %s
+                        SET lease_expires = NOW() + INTERVAL ? SECOND
+                        WHERE net_id = ? AND started = 1 AND lease_owner = ?
+                        """.formatted(sqlReader.getTableName()),
+                ps -> {
+                    ps.setLong(1, lease.toSeconds());
+                    ps.setString(2, netId);
+                    ps.setString(3, leaseOwner);
+                }
+        );
+        return updated == 1;
+    }
+
+    @Override
+    public int releaseExpiredLeases() throws DataAccessException {
+        // Items started before leases existed have no lease, so they are released too
+        return sqlReader.executeUpdate(
+                """
+                        UPDATE %s
+                        SET started = 0, priority = LEAST(priority, ?), lease_owner = NULL, lease_expires = NULL
+                        WHERE started = 1 AND (lease_expires IS NULL OR lease_expires < NOW())
+                        """.formatted(sqlReader.getTableName()),
+                ps -> ps.setInt(1, QueueItem.Priority.RETRY.rank())
+        );
+    }
+
+    @Override
+    public void requeue(String netId, QueueItem.Priority priority) throws DataAccessException {
         sqlReader.executeUpdate(
                 """
                      UPDATE %s
-                     SET started = ?
+                     SET started = 0, priority = ?, lease_owner = NULL, lease_expires = NULL
                      WHERE net_id = ?
                      """.formatted(sqlReader.getTableName()),
                 ps -> {
-                    ps.setBoolean(1, started);
+                    ps.setInt(1, priority.rank());
                     ps.setString(2, netId);
                 }
         );
@@ -27,12 +27,15 @@ public class RubricConfigSqlDao implements RubricConfigDao {
 
     @Override
     public void setRubricConfig(Phase phase, RubricConfig rubricConfig) throws DataAccessException {
-        for (Map.Entry<Rubric.RubricType, RubricConfig.RubricConfigItem> entry : rubricConfig.items().entrySet()) {
-            RubricConfig.RubricConfigItem item = entry.getValue();
-            if (item != null) {
-                addRubricConfigItem(phase, entry.getKey(), item.category(), item.criteria(), item.points());
+        SqlDb.inTransaction(() -> {
+            for (Map.Entry<Rubric.RubricType, RubricConfig.RubricConfigItem> entry : rubricConfig.items().entrySet()) {
+                RubricConfig.RubricConfigItem item = entry.getValue();
+                if (item != null) {
+                    addRubricConfigItem(phase, entry.getKey(), item.category(), item.criteria(), item.points());
+                }
             }
-        }
+            return null;
+        });
     }
 
     @Override
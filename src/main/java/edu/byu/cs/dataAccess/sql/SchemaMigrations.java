@@ -0,0 +1,285 @@
+package edu.byu.cs.dataAccess.sql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Versioned changes to the schema, for changes that <code>CREATE TABLE IF NOT EXISTS</code> can't make to
+ * databases that already exist.
+ * <br>
+ * Each migration is applied once, in order, and its version is recorded in <code>schema_version</code>.
+ * Migrations are also written to be safe to apply again, since MySQL commits schema changes immediately
+ * and a migration that fails partway through is retried on the next startup. To add a migration,
+ * append it to {@link #MIGRATIONS} with the next version number; never change one that has been released.
+ */
+class SchemaMigrations {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    /**
+     * Held while migrating so that autograders starting at the same time don't apply migrations twice
+     */
+    private static final String LOCK_NAME = "autograder_schema_migrations";
+
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    @FunctionalInterface
+    interface MigrationStep {
+        void apply(Connection connection) throws SQLException;
+
+        default MigrationStep andThen(MigrationStep next) {
+            return connection -> {
+                apply(connection);
+                next.apply(connection);
+            };
+        }
+    }
+
+    record Migration(int version, String description, MigrationStep step) {}
+
+    /**
+     * An index that queries rely on
+     *
+     * @param table   the table the index is on
+     * @param name    the name of the index
+     * @param columns the indexed columns, as written in <code>CREATE INDEX</code>
+     */
+    record Index(String table, String name, String columns) {}
+
+    private static final Index SUBMISSION_SORT_INDEX =
+            new Index("submission", "sort_index", "`net_id`, `phase`, `passed`, `score`, `timestamp`");
+    private static final Index SUBMISSION_LATEST_INDEX =
+            new Index("submission", "latest_index", "`net_id`, `phase`, `timestamp`");
+    private static final Index SUBMISSION_TIMESTAMP_INDEX =
+            new Index("submission", "timestamp_index", "`timestamp`, `net_id`, `phase`");
+    private static final Index SUBMISSION_HEAD_HASH_INDEX =
+            new Index("submission", "head_hash_index", "`head_hash`, `net_id`, `phase`");
+    private static final Index REPO_UPDATE_NET_ID_INDEX =
+            new Index("repo_update", "net_id_index", "`net_id`, `timestamp`");
+    // repo_url is too long to index in full
+    private static final Index REPO_UPDATE_REPO_URL_INDEX =
+            new Index("repo_update", "repo_url_index", "`repo_url`(255)");
+    private static final Index LATEST_SUBMISSION_TIMESTAMP_INDEX =
+            new Index("latest_submission", "latest_timestamp_index", "`latest_timestamp`, `net_id`, `phase`");
+    private static final Index QUEUE_CLAIM_INDEX =
+            new Index("queue", "claim_index", "`started`, `priority`, `time_added`, `net_id`");
+
+    /**
+     * Every index the hot queries need, checked at startup by {@link #missingIndexes(Connection)}
+     */
+    static final List<Index> EXPECTED_INDEXES = List.of(
+            SUBMISSION_SORT_INDEX,
+            SUBMISSION_LATEST_INDEX,
+            SUBMISSION_TIMESTAMP_INDEX,
+            SUBMISSION_HEAD_HASH_INDEX,
+            REPO_UPDATE_NET_ID_INDEX,
+            REPO_UPDATE_REPO_URL_INDEX,
+            LATEST_SUBMISSION_TIMESTAMP_INDEX,
+            QUEUE_CLAIM_INDEX
+    );
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Index submissions by student, phase, and timestamp",
+                    addIndex(SUBMISSION_LATEST_INDEX)),
+            new Migration(2, "Index submissions by timestamp",
+                    addIndex(SUBMISSION_TIMESTAMP_INDEX)),
+            new Migration(3, "Index submissions by head hash",
+                    addIndex(SUBMISSION_HEAD_HASH_INDEX)),
+            new Migration(4, "Index repo updates by student and by repo",
+                    addIndex(REPO_UPDATE_NET_ID_INDEX).andThen(addIndex(REPO_UPDATE_REPO_URL_INDEX))),
+            new Migration(5, "Keep the latest submission for each student and phase",
+                    SchemaMigrations::createLatestSubmission),
+            // Existing items get the rank of QueueItem.Priority.STANDARD
+            new Migration(6, "Lease queue items to graders, in priority order",
+                    addColumn("queue", "priority", "INT NOT NULL DEFAULT 20")
+                            .andThen(addColumn("queue", "repo_url", "VARCHAR(200)"))
+                            .andThen(addColumn("queue", "admin", "BOOL NOT NULL DEFAULT 0"))
+                            .andThen(addColumn("queue", "attempts", "INT NOT NULL DEFAULT 0"))
+                            .andThen(addColumn("queue", "lease_owner", "VARCHAR(100)"))
+                            .andThen(addColumn("queue", "lease_expires", "DATETIME"))
+                            .andThen(addIndex(QUEUE_CLAIM_INDEX))),
+            new Migration(7, "Relay grading progress from workers",
+                    SchemaMigrations::createGradingEvent),
+            new Migration(8, "Record the resources used while grading each submission",
+                    addColumn("submission", "resource_usage", "JSON"))
+    );
+
+    /**
+     * Applies every migration that hasn't been applied to the database yet
+     *
+     * @param connection a connection to the autograder's database
+     */
+    static void migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("""
+                    CREATE TABLE IF NOT EXISTS `schema_version` (
+                            `version` INT NOT NULL,
+                            `description` VARCHAR(200) NOT NULL,
+                            `applied_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                            PRIMARY KEY (`version`)
+                        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+                    """);
+        }
+
+        acquireLock(connection);
+        try {
+            Set<Integer> applied = appliedVersions(connection);
+            for (Migration migration : MIGRATIONS) {
+                if (applied.contains(migration.version())) continue;
+
+                LOGGER.info("Applying schema migration {}: {}", migration.version(), migration.description());
+                migration.step().apply(connection);
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                    ps.setInt(1, migration.version());
+                    ps.setString(2, migration.description());
+                    ps.executeUpdate();
+                }
+            }
+        } finally {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT RELEASE_LOCK('" + LOCK_NAME + "')");
+            }
+        }
+    }
+
+    /**
+     * @param connection a connection to the autograder's database
+     * @return the indexes in {@link #EXPECTED_INDEXES} that the database doesn't have
+     */
+    static List<Index> missingIndexes(Connection connection) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        try (PreparedStatement ps = connection.prepareStatement("""
+                SELECT DISTINCT table_name, index_name FROM information_schema.statistics
+                WHERE table_schema = DATABASE()
+                """);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                existing.add(rs.getString(1) + "." + rs.getString(2));
+            }
+        }
+
+        List<Index> missing = new ArrayList<>();
+        for (Index index : EXPECTED_INDEXES) {
+            if (!existing.contains(index.table() + "." + index.name())) {
+                missing.add(index);
+            }
+        }
+        return missing;
+    }
+
+    private static void acquireLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT GET_LOCK('%s', %d)".formatted(LOCK_NAME, LOCK_TIMEOUT_SECONDS))) {
+            if (!rs.next() || rs.getInt(1) != 1) {
+                throw new SQLException("Timed out waiting for another autograder to finish migrating the database");
+            }
+        }
+    }
+
+    private static Set<Integer> appliedVersions(Connection connection) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private static MigrationStep addIndex(Index index) {
+        return connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("""
+                    SELECT 1 FROM information_schema.statistics
+                    WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?
+                    """)) {
+                ps.setString(1, index.table());
+                ps.setString(2, index.name());
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) return;
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE INDEX `%s` ON `%s` (%s)"
+                        .formatted(index.name(), index.table(), index.columns()));
+            }
+        };
+    }
+
+    private static MigrationStep addColumn(String table, String column, String definition) {
+        return connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("""
+                    SELECT 1 FROM information_schema.columns
+                    WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?
+                    """)) {
+                ps.setString(1, table);
+                ps.setString(2, column);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) return;
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("ALTER TABLE `%s` ADD COLUMN `%s` %s".formatted(table, column, definition));
+            }
+        };
+    }
+
+    private static void createGradingEvent(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // Messages with results include the whole rubric
+            statement.executeUpdate("""
+                    CREATE TABLE IF NOT EXISTS `grading_event` (
+                            `id` BIGINT NOT NULL AUTO_INCREMENT,
+                            `net_id` VARCHAR(20) NOT NULL,
+                            `message` MEDIUMTEXT NOT NULL,
+                            `timestamp` DATETIME NOT NULL,
+                            PRIMARY KEY (`id`),
+                            INDEX timestamp_index (`timestamp`)
+                        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+                    """);
+        }
+    }
+
+    private static void createLatestSubmission(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("""
+                    CREATE TABLE IF NOT EXISTS `latest_submission` (
+                            `net_id` VARCHAR(20) NOT NULL,
+                            `phase` VARCHAR(9) NOT NULL,
+                            `latest_id` INT NOT NULL,
+                            `latest_timestamp` DATETIME NOT NULL,
+                            `best_id` INT,
+                            `first_passing_id` INT,
+                            PRIMARY KEY (`net_id`, `phase`),
+                            INDEX latest_timestamp_index (`latest_timestamp`, `net_id`, `phase`),
+                            CONSTRAINT `latest_submission_net_id`
+                                FOREIGN KEY (`net_id`)
+                                REFERENCES `user` (`net_id`)
+                                ON DELETE CASCADE
+                                ON UPDATE CASCADE
+                        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+                    """);
+
+            boolean empty;
+            try (ResultSet existing = statement.executeQuery("SELECT 1 FROM latest_submission LIMIT 1")) {
+                empty = !existing.next();
+            }
+            // Fills in the table from the submissions the database already has
+            if (empty) {
+                statement.executeUpdate(SubmissionSqlDao.REFRESH_LATEST_SUBMISSIONS.formatted(""));
+            }
+        }
+    }
+}
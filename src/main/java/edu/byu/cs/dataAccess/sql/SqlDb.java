@@ -1,10 +1,13 @@
 package edu.byu.cs.dataAccess.sql;
 
 import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.TransactionBody;
 import edu.byu.cs.properties.ApplicationProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -24,6 +27,27 @@ public class SqlDb {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SqlDb.class);
 
+    private static final long BORROW_TIMEOUT = 30000; //30 seconds
+
+    /**
+     * Lets the driver send a whole batch of inserts as a single statement, and keeps prepared statements on
+     * each pooled connection so that preparing the same SQL again reuses the statement the server already parsed.
+     */
+    private static final String CONNECTION_OPTIONS = "?rewriteBatchedStatements=true" +
+            "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=256&prepStmtCacheSqlLimit=4096";
+
+    /**
+     * The connection of the transaction running on each thread, if any
+     */
+    private static final ThreadLocal<Connection> TRANSACTION = new ThreadLocal<>();
+
+    private static final ConnectionPool POOL = new ConnectionPool(() -> {
+        Connection connection = DriverManager.getConnection(CONNECTION_STRING + CONNECTION_OPTIONS,
+                DB_USER, DB_PASSWORD);
+        connection.setCatalog(DB_NAME);
+        return connection;
+    }, ApplicationProperties.dbPoolSize(), BORROW_TIMEOUT, ApplicationProperties.dbTraceBorrows());
+
     public static void setUpDb() throws DataAccessException {
         try (Connection connection = DriverManager.getConnection(CONNECTION_STRING, DB_USER, DB_PASSWORD);
              Statement stmt = connection.createStatement()) {
@@ -115,21 +139,98 @@ public class SqlDb {
                             ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
                         """);
             }
+
+            SchemaMigrations.migrate(connection);
+            for (SchemaMigrations.Index index : SchemaMigrations.missingIndexes(connection)) {
+                LOGGER.warn("Database is missing index {} on {} ({}), queries that use it will scan the table",
+                        index.name(), index.table(), index.columns());
+            }
         } catch (SQLException e) {
             LOGGER.error("Error connecting to database", e);
             throw new DataAccessException("Error connecting to database", e);
         }
     }
 
+    /**
+     * Borrows a connection from the pool. Closing the connection returns it to the pool.
+     * <br>
+     * Inside {@link #inTransaction(TransactionBody)}, this returns the transaction's connection instead,
+     * and closing it does nothing so that the transaction can continue.
+     *
+     * @return a connection to the autograder's database
+     */
     public static Connection getConnection() throws DataAccessException {
+        Connection transaction = TRANSACTION.get();
+        if (transaction != null) {
+            return transactionView(transaction);
+        }
         try {
-            Connection connection = DriverManager.getConnection(CONNECTION_STRING, DB_USER, DB_PASSWORD);
-            connection.setCatalog(DB_NAME);
-            return connection;
+            return POOL.getConnection();
         } catch (SQLException e) {
             LOGGER.error("Error connecting to database", e);
 
             throw new DataAccessException("Error connecting to database", e);
         }
     }
+
+    /**
+     * @return a snapshot of the connection pool's usage
+     */
+    public static ConnectionPool.Metrics poolMetrics() {
+        return POOL.metrics();
+    }
+
+    /**
+     * Runs work in a single transaction. Every DAO call made on this thread during the work shares one
+     * connection, and everything is committed together once the work finishes or rolled back if it throws.
+     * Calling this inside another transaction joins the outer transaction.
+     *
+     * @param body the work to do
+     * @return the result of the work
+     */
+    public static <T> T inTransaction(TransactionBody<T> body) throws DataAccessException {
+        if (TRANSACTION.get() != null) {
+            return body.run();
+        }
+
+        try (Connection connection = POOL.getConnection()) {
+            connection.setAutoCommit(false);
+            TRANSACTION.set(connection);
+            try {
+                T result = body.run();
+                connection.commit();
+                return result;
+            } catch (DataAccessException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                TRANSACTION.remove();
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error running transaction", e);
+            throw new DataAccessException("Error running transaction", e);
+        }
+    }
+
+    private static Connection transactionView(Connection transaction) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            return null;
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                    }
+                    try {
+                        return method.invoke(transaction, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
 }
@@ -1,13 +1,18 @@
 package edu.byu.cs.dataAccess.sql;
 
+import edu.byu.cs.dataAccess.DaoService;
 import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.dataAccess.ItemNotFoundException;
 import edu.byu.cs.dataAccess.SubmissionDao;
 import edu.byu.cs.dataAccess.sql.helpers.ColumnDefinition;
+import edu.byu.cs.dataAccess.sql.helpers.ItemBuilder;
 import edu.byu.cs.dataAccess.sql.helpers.SqlReader;
+import edu.byu.cs.dataAccess.sql.helpers.StatementPreparer;
 import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.ResourceUsage;
 import edu.byu.cs.model.Rubric;
 import edu.byu.cs.model.Submission;
+import edu.byu.cs.model.SubmissionSummary;
 import edu.byu.cs.util.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +25,8 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
 
 public class SubmissionSqlDao implements SubmissionDao {
 
@@ -37,41 +44,144 @@ public class SubmissionSqlDao implements SubmissionDao {
             new ColumnDefinition<Submission>("rubric", s -> Serializer.serialize(s.rubric())),
             new ColumnDefinition<Submission>("admin", Submission::admin),
             new ColumnDefinition<Submission>("verified_status", Submission::serializeVerifiedStatus),
-            new ColumnDefinition<Submission>("verification", Submission::serializeScoreVerification)
+            new ColumnDefinition<Submission>("verification", Submission::serializeScoreVerification),
+            new ColumnDefinition<Submission>("resource_usage",
+                    s -> s.resourceUsage() == null ? null : Serializer.serialize(s.resourceUsage()))
     };
 
+    private static final Map<String, Integer> COLUMN_INDEXES = SqlReader.columnIndexes(COLUMN_DEFINITIONS);
+    private static final int NET_ID = COLUMN_INDEXES.get("net_id");
+    private static final int REPO_URL = COLUMN_INDEXES.get("repo_url");
+    private static final int TIMESTAMP = COLUMN_INDEXES.get("timestamp");
+    private static final int PHASE = COLUMN_INDEXES.get("phase");
+    private static final int PASSED = COLUMN_INDEXES.get("passed");
+    private static final int SCORE = COLUMN_INDEXES.get("score");
+    private static final int RAW_SCORE = COLUMN_INDEXES.get("raw_score");
+    private static final int HEAD_HASH = COLUMN_INDEXES.get("head_hash");
+    private static final int NOTES = COLUMN_INDEXES.get("notes");
+    private static final int RUBRIC = COLUMN_INDEXES.get("rubric");
+    private static final int ADMIN = COLUMN_INDEXES.get("admin");
+    private static final int VERIFIED_STATUS = COLUMN_INDEXES.get("verified_status");
+    private static final int VERIFICATION = COLUMN_INDEXES.get("verification");
+    private static final int RESOURCE_USAGE = COLUMN_INDEXES.get("resource_usage");
+
+    /**
+     * Reads a row selected with every column in {@link #COLUMN_DEFINITIONS} order, by column index
+     */
     private static Submission readSubmission(ResultSet rs) throws SQLException {
-        String netId = rs.getString("net_id");
-        String repoUrl = rs.getString("repo_url");
-        String headHash = rs.getString("head_hash");
-        Instant timestamp = rs.getTimestamp("timestamp").toInstant();
-        Phase phase = Phase.valueOf(rs.getString("phase"));
-        Boolean passed = rs.getBoolean("passed");
-        float score = rs.getFloat("score");
-        float rawScore = rs.getFloat("raw_score");
-        String notes = rs.getString("notes");
-        Rubric rubric = Serializer.deserialize(rs.getString("rubric"), Rubric.class);
-        Boolean admin = rs.getBoolean("admin");
-
-        String verifiedStatusStr = rs.getString("verified_status");
+        String netId = rs.getString(NET_ID);
+        String repoUrl = rs.getString(REPO_URL);
+        String headHash = rs.getString(HEAD_HASH);
+        Instant timestamp = rs.getTimestamp(TIMESTAMP).toInstant();
+        Phase phase = Phase.valueOf(rs.getString(PHASE));
+        Boolean passed = rs.getBoolean(PASSED);
+        float score = rs.getFloat(SCORE);
+        float rawScore = rs.getFloat(RAW_SCORE);
+        String notes = rs.getString(NOTES);
+        Rubric rubric = Serializer.deserialize(rs.getString(RUBRIC), Rubric.class);
+        Boolean admin = rs.getBoolean(ADMIN);
+
+        String verifiedStatusStr = rs.getString(VERIFIED_STATUS);
         Submission.VerifiedStatus verifiedStatus = verifiedStatusStr == null ? null :
                 Submission.VerifiedStatus.valueOf(verifiedStatusStr);
-        String verificationJson = rs.getString("verification");
+        String verificationJson = rs.getString(VERIFICATION);
         Submission.ScoreVerification scoreVerification = verificationJson == null ? null :
                 Serializer.deserialize(verificationJson, Submission.ScoreVerification.class);
+        String resourceUsageJson = rs.getString(RESOURCE_USAGE);
+        List<ResourceUsage> resourceUsage = resourceUsageJson == null ? null :
+                List.of(Serializer.deserialize(resourceUsageJson, ResourceUsage[].class));
 
         return new Submission(
                 netId, repoUrl, headHash, timestamp, phase,
                 passed, score, rawScore, notes, rubric,
-                admin, verifiedStatus, scoreVerification);
+                admin, verifiedStatus, scoreVerification, resourceUsage);
+    }
+
+    /**
+     * The columns of a {@link SubmissionSummary}, which leave out the rubric
+     */
+    private static final String[] SUMMARY_COLUMNS =
+            {"net_id", "phase", "timestamp", "passed", "score", "head_hash", "admin", "verified_status", "notes"};
+
+    private static String summaryColumnNames(String tableAlias) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (String column : SUMMARY_COLUMNS) {
+            joiner.add(tableAlias == null ? column : tableAlias + "." + column);
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Reads a row selected with {@link #SUMMARY_COLUMNS}, in that order
+     */
+    private static SubmissionSummary readSummary(ResultSet rs) throws SQLException {
+        String verifiedStatusStr = rs.getString(8);
+        return new SubmissionSummary(
+                rs.getString(1),
+                Phase.valueOf(rs.getString(2)),
+                rs.getTimestamp(3).toInstant(),
+                rs.getBoolean(4),
+                rs.getFloat(5),
+                rs.getString(6),
+                rs.getBoolean(7),
+                verifiedStatusStr == null ? null : Submission.VerifiedStatus.valueOf(verifiedStatusStr),
+                rs.getString(9));
+    }
+
+    private static <T> Collection<T> readRows(ResultSet rs, ItemBuilder<T> itemBuilder) throws SQLException {
+        Collection<T> items = new ArrayList<>();
+        while (rs.next()) {
+            items.add(itemBuilder.readItem(rs));
+        }
+        return items;
     }
 
     private final SqlReader<Submission> sqlReader = new SqlReader<Submission>(
             "submission", COLUMN_DEFINITIONS, SubmissionSqlDao::readSubmission);
 
+    /**
+     * Recomputes the rows of <code>latest_submission</code> for every student and phase selected by the
+     * <code>%s</code> clause, which filters the submission table
+     */
+    static final String REFRESH_LATEST_SUBMISSIONS = """
+            INSERT INTO latest_submission (net_id, phase, latest_id, latest_timestamp, best_id, first_passing_id)
+            SELECT g.net_id, g.phase,
+                (SELECT id FROM submission WHERE net_id = g.net_id AND phase = g.phase
+                    ORDER BY timestamp DESC, id DESC LIMIT 1),
+                (SELECT MAX(timestamp) FROM submission WHERE net_id = g.net_id AND phase = g.phase),
+                (SELECT id FROM submission WHERE net_id = g.net_id AND phase = g.phase AND passed = 1
+                    ORDER BY score DESC, id LIMIT 1),
+                (SELECT id FROM submission WHERE net_id = g.net_id AND phase = g.phase AND passed = 1
+                    ORDER BY timestamp, id LIMIT 1)
+            FROM (SELECT DISTINCT net_id, phase FROM submission %s) g
+            """;
+
+    /**
+     * Brings <code>latest_submission</code> up to date after a student's submissions change.
+     * Call this in the same transaction as the change.
+     *
+     * @param netId the student whose submissions changed
+     * @param phase the phase whose submissions changed, or null if submissions for any phase may have changed
+     */
+    private void refreshLatestSubmissions(String netId, Phase phase) throws DataAccessException {
+        String where = phase == null ? "WHERE net_id = ?" : "WHERE net_id = ? AND phase = ?";
+        StatementPreparer preparer = ps -> {
+            ps.setString(1, netId);
+            if (phase != null) {
+                ps.setString(2, phase.toString());
+            }
+        };
+        sqlReader.executeUpdate("DELETE FROM latest_submission " + where, preparer);
+        sqlReader.executeUpdate(REFRESH_LATEST_SUBMISSIONS.formatted(where), preparer);
+    }
+
     @Override
     public void insertSubmission(Submission submission) throws DataAccessException {
-        sqlReader.insertItem(submission);
+        DaoService.inTransaction(() -> {
+            sqlReader.insertItem(submission);
+            refreshLatestSubmissions(submission.netId(), submission.phase());
+            return null;
+        });
     }
 
     @Override
@@ -96,13 +206,44 @@ public class SubmissionSqlDao implements SubmissionDao {
     public Submission getLastSubmissionForUser(String netId) throws DataAccessException {
         var submissions = sqlReader.executeQuery(
                 """
-                        WHERE net_id = ?
-                        ORDER BY timestamp DESC
+                        SELECT %s
+                        FROM latest_submission l
+                        INNER JOIN submission s ON s.id = l.latest_id
+                        WHERE l.net_id = ?
+                        ORDER BY l.latest_timestamp DESC
                         LIMIT 1
-                        """,
+                        """.formatted(sqlReader.allColumnNames("s")),
+                ps -> ps.setString(1, netId),
+                rs -> readRows(rs, SubmissionSqlDao::readSubmission)
+        );
+        return sqlReader.expectOneItem(submissions);
+    }
+
+    @Override
+    public Submission getLatestSubmissionForPhase(String netId, Phase phase) throws DataAccessException {
+        return getFromLatestSubmissions("latest_id", netId, phase);
+    }
+
+    /**
+     * Reads the submission that a column of a student's <code>latest_submission</code> row points to
+     *
+     * @param idColumn the column holding the id of the submission
+     * @return the submission, or null if the student has none for the phase or the column is null
+     */
+    private Submission getFromLatestSubmissions(String idColumn, String netId, Phase phase)
+            throws DataAccessException {
+        var submissions = sqlReader.executeQuery(
+                """
+                        SELECT %s
+                        FROM latest_submission l
+                        INNER JOIN submission s ON s.id = l.%s
+                        WHERE l.net_id = ? AND l.phase = ?
+                        """.formatted(sqlReader.allColumnNames("s"), idColumn),
                 ps -> {
                     ps.setString(1, netId);
-                }
+                    ps.setString(2, phase.toString());
+                },
+                rs -> readRows(rs, SubmissionSqlDao::readSubmission)
         );
         return sqlReader.expectOneItem(submissions);
     }
@@ -116,75 +257,124 @@ public class SubmissionSqlDao implements SubmissionDao {
 
     @Override
     public Collection<Submission> getAllLatestSubmissions(int batchSize) throws DataAccessException {
-        try (var connection = SqlDb.getConnection()) {
-            var statement = connection.prepareStatement(
-                    """
-                            SELECT s.net_id, s.repo_url, s.timestamp, s.phase, s.passed, s.score, s.raw_score, s.head_hash, s.notes, s.rubric, s.admin, s.verification, s.verified_status
-                            FROM submission s
-                            INNER JOIN (
-                                SELECT net_id, phase, MAX(timestamp) AS max_timestamp
-                                FROM submission
-                                GROUP BY net_id, phase
-                            ) s2 ON s.net_id = s2.net_id AND s.phase = s2.phase AND s.timestamp = s2.max_timestamp
-                            ORDER BY s2.max_timestamp DESC
-                            """ +
-                            (batchSize >= 0 ? "LIMIT ?" : "")
-            );
-            if (batchSize >= 0) {
-                statement.setInt(1, batchSize);
-            }
-            return sqlReader.readItems(statement);
-        } catch (SQLException e) {
-            throw new DataAccessException("Error getting latest submissions", e);
-        }
+        return sqlReader.executeQuery(
+                latestSubmissionsStmt(sqlReader.allColumnNames("s"), false, batchSize),
+                ps -> {
+                    if (batchSize >= 0) {
+                        ps.setInt(1, batchSize);
+                    }
+                },
+                rs -> readRows(rs, SubmissionSqlDao::readSubmission)
+        );
     }
 
     @Override
-    public void removeSubmissionsByNetId(String netId, int daysOld) throws DataAccessException {
-        sqlReader.executeUpdate(
-                """
-                        DELETE FROM %s
-                        WHERE net_id = ? AND timestamp < ?
-                        """.formatted(sqlReader.getTableName()),
+    public List<SubmissionSummary> getLatestSubmissionSummaries(LatestSubmissionCursor before, int limit)
+            throws DataAccessException {
+        return sqlReader.executeQuery(
+                latestSubmissionsStmt(summaryColumnNames("s"), before != null, limit),
                 ps -> {
-                    ps.setString(1, netId);
-                    ps.setTimestamp(2, Timestamp.from(Instant.now().minus(daysOld, ChronoUnit.DAYS)));
-                }
+                    int i = 1;
+                    if (before != null) {
+                        ps.setTimestamp(i++, Timestamp.from(before.timestamp()));
+                        ps.setString(i++, before.netId());
+                        ps.setString(i++, before.phase().toString());
+                    }
+                    ps.setInt(i, limit);
+                },
+                rs -> List.copyOf(readRows(rs, SubmissionSqlDao::readSummary))
         );
     }
 
+    /**
+     * Selects the most recent submission for each student and phase in {@link #LATEST_SUBMISSION_ORDER}.
+     * <br>
+     * <code>latest_submission</code> is walked along its <code>latest_timestamp_index</code>, and each
+     * submission is read by its id, so a page only reads as many rows as it returns.
+     *
+     * @param columns   the columns to select from the submission table, which is aliased as <code>s</code>
+     * @param hasCursor whether to only select submissions after a cursor,
+     *                  given by parameters for its timestamp, netId, and phase
+     * @param limit     the number of submissions to select, or a negative number to select all of them.
+     *                  When it isn't negative, the last parameter of the statement is the limit.
+     */
+    private static String latestSubmissionsStmt(String columns, boolean hasCursor, int limit) {
+        return """
+                SELECT %s
+                FROM latest_submission l
+                INNER JOIN submission s ON s.id = l.latest_id
+                %s
+                ORDER BY l.latest_timestamp DESC, l.net_id DESC, l.phase DESC
+                """.formatted(columns, hasCursor ? "WHERE (l.latest_timestamp, l.net_id, l.phase) < (?, ?, ?)" : "") +
+                (limit >= 0 ? "LIMIT ?" : "");
+    }
+
     @Override
-    public Submission getFirstPassingSubmission(String netId, Phase phase) throws DataAccessException {
-        var submissions = sqlReader.executeQuery(
-                """
-                        WHERE net_id = ? AND phase = ? AND passed = 1
-                        ORDER BY timestamp
-                        LIMIT 1
-                        """,
+    public Collection<SubmissionSummary> getSubmissionSummariesForPhase(String netId, Phase phase)
+            throws DataAccessException {
+        return sqlReader.executeQuery(
+                "SELECT %s FROM submission WHERE net_id = ? AND phase = ?".formatted(summaryColumnNames(null)),
                 ps -> {
                     ps.setString(1, netId);
                     ps.setString(2, phase.toString());
-                }
+                },
+                rs -> readRows(rs, SubmissionSqlDao::readSummary)
         );
-        return sqlReader.expectOneItem(submissions);
     }
 
     @Override
-    public Submission getBestSubmissionForPhase(String netId, Phase phase) throws DataAccessException {
+    public Collection<SubmissionSummary> getSubmissionSummariesForUser(String netId) throws DataAccessException {
+        return sqlReader.executeQuery(
+                "SELECT %s FROM submission WHERE net_id = ?".formatted(summaryColumnNames(null)),
+                ps -> ps.setString(1, netId),
+                rs -> readRows(rs, SubmissionSqlDao::readSummary)
+        );
+    }
+
+    @Override
+    public Submission getSubmission(String netId, Phase phase, Instant timestamp) throws DataAccessException {
         var submissions = sqlReader.executeQuery(
                 """
-                    WHERE net_id = ? AND phase = ? AND passed = 1
-                        ORDER BY score DESC
+                        WHERE net_id = ? AND phase = ? AND timestamp = ?
                         LIMIT 1
-                    """,
+                        """,
                 ps -> {
                     ps.setString(1, netId);
                     ps.setString(2, phase.toString());
+                    ps.setTimestamp(3, Timestamp.from(timestamp));
                 }
         );
         return sqlReader.expectOneItem(submissions);
     }
 
+    @Override
+    public void removeSubmissionsByNetId(String netId, int daysOld) throws DataAccessException {
+        DaoService.inTransaction(() -> {
+            sqlReader.executeUpdate(
+                    """
+                            DELETE FROM %s
+                            WHERE net_id = ? AND timestamp < ?
+                            """.formatted(sqlReader.getTableName()),
+                    ps -> {
+                        ps.setString(1, netId);
+                        ps.setTimestamp(2, Timestamp.from(Instant.now().minus(daysOld, ChronoUnit.DAYS)));
+                    }
+            );
+            refreshLatestSubmissions(netId, null);
+            return null;
+        });
+    }
+
+    @Override
+    public Submission getFirstPassingSubmission(String netId, Phase phase) throws DataAccessException {
+        return getFromLatestSubmissions("first_passing_id", netId, phase);
+    }
+
+    @Override
+    public Submission getBestSubmissionForPhase(String netId, Phase phase) throws DataAccessException {
+        return getFromLatestSubmissions("best_id", netId, phase);
+    }
+
     @Override
     public Collection<Submission> getAllPassingSubmissions(String netId) throws DataAccessException {
         return sqlReader.executeQuery(
@@ -231,23 +421,75 @@ public class SubmissionSqlDao implements SubmissionDao {
         }
 
         // Then update it
-        sqlReader.executeUpdate(
-                """
-                        UPDATE %s
-                        SET score = ?, verified_status = ?, verification = ?
-                        %s
-                        """.formatted(sqlReader.getTableName(), whereClause),
-                ps -> {
-                    ps.setFloat(1, newScore);
-                    ps.setString(2, verifiedStatusStr);
-                    ps.setString(3, verificationStr);
-
-                    // Careful! This code is used first up above
-                    ps.setString(4, netId);
-                    ps.setString(5, headHash);
-                    ps.setString(6, phase);
+        DaoService.inTransaction(() -> {
+            sqlReader.executeUpdate(
+                    """
+                            UPDATE %s
+                            SET score = ?, verified_status = ?, verification = ?
+                            %s
+                            """.formatted(sqlReader.getTableName(), whereClause),
+                    ps -> {
+                        ps.setFloat(1, newScore);
+                        ps.setString(2, verifiedStatusStr);
+                        ps.setString(3, verificationStr);
+
+                        // Careful! This code is used first up above
+                        ps.setString(4, netId);
+                        ps.setString(5, headHash);
+                        ps.setString(6, phase);
+                    }
+            );
+            // The new score can change which submission is the best
+            refreshLatestSubmissions(netId, submission.phase());
+            return null;
+        });
+    }
+
+    @Override
+    public void manuallyApproveSubmissions(Collection<ManualApproval> approvals)
+            throws ItemNotFoundException, DataAccessException {
+        String verifiedStatusStr = Submission.serializeVerifiedStatus(Submission.VerifiedStatus.ApprovedManually);
+        List<ManualApproval> orderedApprovals = List.copyOf(approvals);
+
+        // Unlike the single version, rows are identified by how many the update touched rather than a query first
+        try {
+            DaoService.inTransaction(() -> {
+                int[] updateCounts = sqlReader.executeBatchUpdate(
+                        """
+                                UPDATE %s
+                                SET score = ?, verified_status = ?, verification = ?
+                                WHERE net_id = ? AND head_hash = ? AND phase = ?
+                                """.formatted(sqlReader.getTableName()),
+                        orderedApprovals,
+                        (ps, approval) -> {
+                            ps.setFloat(1, approval.newScore());
+                            ps.setString(2, verifiedStatusStr);
+                            ps.setString(3, Submission.serializeScoreVerification(approval.scoreVerification()));
+                            ps.setString(4, approval.submission().netId());
+                            ps.setString(5, approval.submission().headHash());
+                            ps.setString(6, approval.submission().phase().name());
+                        }
+                );
+                for (int i = 0; i < updateCounts.length; i++) {
+                    if (updateCounts[i] != 0) continue;
+                    Submission submission = orderedApprovals.get(i).submission();
+                    // Throwing rolls back the approvals that did match
+                    throw new DataAccessException("Submission could not be located in database. Cannot edit it." +
+                            getSubmissionIdentDebugInfo(submission.netId(), submission.headHash(),
+                                    submission.phase().name(), null),
+                            new ItemNotFoundException("Submission could not be located in database"));
                 }
-        );
+                for (ManualApproval approval : orderedApprovals) {
+                    refreshLatestSubmissions(approval.submission().netId(), approval.submission().phase());
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            if (e.getCause() instanceof ItemNotFoundException) {
+                throw new ItemNotFoundException(e.getMessage());
+            }
+            throw e;
+        }
     }
 
     private String getSubmissionIdentDebugInfo(String netId, String headHash, String phase,
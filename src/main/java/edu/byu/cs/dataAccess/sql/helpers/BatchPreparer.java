@@ -0,0 +1,9 @@
+package edu.byu.cs.dataAccess.sql.helpers;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface BatchPreparer <I> {
+    void prepare(PreparedStatement ps, I item) throws SQLException;
+}
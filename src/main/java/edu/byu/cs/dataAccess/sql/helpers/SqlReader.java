@@ -77,7 +77,7 @@ public class SqlReader <T> {
         this.selectAllColumnsStmt = "SELECT " + allColumnNamesStmt + " FROM " + this.tableName + " ";
 
         this.insertStatement = buildInsertStatement();
-        this.insertWildCardIndexPositions = this.prepareWildcardIndices(columnDefinitions);
+        this.insertWildCardIndexPositions = columnIndexes(columnDefinitions);
     }
 
     private String buildInsertStatement() {
@@ -85,7 +85,17 @@ public class SqlReader <T> {
         return "INSERT INTO %s (%s) VALUES (%s)"
                 .formatted(tableName, allColumnNamesStmt, valueWildcards);
     }
-    private Map<String, Integer> prepareWildcardIndices(ColumnDefinition<T>[] columnDefinitions) {
+
+    /**
+     * Maps each column name to its 1-indexed position in the column definitions. This is both the position
+     * of its wildcard in an insert statement and the position of the column in rows read with
+     * {@link SqlReader#selectAllStmt()} or {@link SqlReader#allColumnNames(String)}, so item builders
+     * can compute it once and read columns by index instead of looking each one up by name for every row.
+     *
+     * @param columnDefinitions The column definitions of a table
+     * @return A map from column name to position
+     */
+    public static Map<String, Integer> columnIndexes(ColumnDefinition<?>[] columnDefinitions) {
         Map<String, Integer> out = new HashMap<>();
 
         String colName;
@@ -94,10 +104,9 @@ public class SqlReader <T> {
             out.put(colName, i + 1); // SQL is 1-index, but java is 0-indexed
         }
 
-        return out;
+        return Map.copyOf(out);
     }
 
-
     /**
      * Will insert an item into the database using the settings configured
      * when constructing this {@link SqlReader}.
@@ -105,7 +114,7 @@ public class SqlReader <T> {
      * @param item The item to add to the table.
      */
     public void insertItem(@NonNull T item) throws DataAccessException {
-        // CONSIDER: We could prepare the statement a single time, and avoid rebuilding it.
+        // Pooled connections cache their prepared statements, so preparing it again here is cheap
         try (var connection = getConnection();
              PreparedStatement preparedStatement = connection.prepareStatement(insertStatement)
         ) {
@@ -121,6 +130,20 @@ public class SqlReader <T> {
         }
     }
 
+    /**
+     * Inserts several items into the database as a single batch in a single transaction,
+     * using the settings configured when constructing this {@link SqlReader}.
+     *
+     * @param items The items to add to the table.
+     */
+    public void insertItems(@NonNull Collection<T> items) throws DataAccessException {
+        executeBatchUpdate(insertStatement, items, (ps, item) -> {
+            for (var colDef : columnDefinitions) {
+                setValue(ps, insertWildCardIndexPositions.get(colDef.columnName()), item, colDef);
+            }
+        });
+    }
+
     private void setValue(PreparedStatement ps, int wildcardIndex, T item, ColumnDefinition<T> columnDefinition) throws SQLException {
         Object value = columnDefinition.accessor().getValue(item);
         setValue(ps, wildcardIndex, value);
@@ -282,8 +305,9 @@ public class SqlReader <T> {
      *
      * @param statement The string statement to prepare
      * @param statementPreparer A method that finishes preparing the statement (usually be filling wildcards)
+     * @return The number of rows affected
      */
-    public void executeUpdate(
+    public int executeUpdate(
             @NonNull String statement,
             @Nullable StatementPreparer statementPreparer
     ) throws DataAccessException {
@@ -292,12 +316,46 @@ public class SqlReader <T> {
                 PreparedStatement ps = connection.prepareStatement(statement)
         ) {
             if (statementPreparer != null) statementPreparer.prepare(ps);
-            ps.executeUpdate();
+            return ps.executeUpdate();
         } catch (Exception e) {
             throw new DataAccessException("Error executing update", e);
         }
     }
 
+    /**
+     * Executes the same update once for each of several items, sending them all to the database as one
+     * batch in a single transaction. If any of them fail, none of them are applied.
+     * <br>
+     * Like {@link SqlReader#executeUpdate(String, StatementPreparer)}, include the entire SQL statement.
+     *
+     * @param statement The string statement to prepare
+     * @param items The items to run the statement for
+     * @param batchPreparer A method that fills the statement's wildcards for a single item
+     * @return The number of rows affected by each item, in the order of the items.
+     *         Entries may be {@link Statement#SUCCESS_NO_INFO} when the driver combines the statements.
+     */
+    public <I> int[] executeBatchUpdate(
+            @NonNull String statement,
+            @NonNull Collection<I> items,
+            @NonNull BatchPreparer<I> batchPreparer
+    ) throws DataAccessException {
+        if (items.isEmpty()) return new int[0];
+        return SqlDb.inTransaction(() -> {
+            try (
+                    var connection = getConnection();
+                    PreparedStatement ps = connection.prepareStatement(statement)
+            ) {
+                for (I item : items) {
+                    batchPreparer.prepare(ps, item);
+                    ps.addBatch();
+                }
+                return ps.executeBatch();
+            } catch (SQLException e) {
+                throw new DataAccessException("Error executing batch update on table " + tableName, e);
+            }
+        });
+    }
+
     /**
      * A helper method returning a connection to the database.
      * This should be closed after use.
@@ -323,6 +381,21 @@ public class SqlReader <T> {
         return items.isEmpty() ? null : items.iterator().next();
     }
 
+    /**
+     * Lists every column in the same order as {@link SqlReader#selectAllStmt()},
+     * for queries that join the table with others.
+     *
+     * @param tableAlias The alias the table has in the query
+     * @return A comma separated list of columns, each prefixed with the alias
+     */
+    public String allColumnNames(@NonNull String tableAlias) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (String columnName : allColumnNames) {
+            joiner.add(tableAlias + "." + columnName);
+        }
+        return joiner.toString();
+    }
+
     /**
      * Represents a convenient beginning of most queries.
      * Usually, you will not want to use this alone, but will want to add
@@ -0,0 +1,19 @@
+package edu.byu.cs.model;
+
+import java.time.Instant;
+
+/**
+ * A progress message from a grader running on a worker, waiting to be relayed to the student
+ *
+ * @param id        increases with each event, so that events can be read in order
+ * @param netId     the student being graded
+ * @param message   the message to send the student, as JSON
+ * @param timestamp when the event was published
+ */
+public record GradingEvent(
+        long id,
+        String netId,
+        String message,
+        Instant timestamp
+) {
+}
@@ -1,12 +1,63 @@
 package edu.byu.cs.model;
 
+import org.eclipse.jgit.annotations.Nullable;
+
 import java.time.Instant;
 
+/**
+ * A submission waiting to be graded, or being graded
+ *
+ * @param netId     the student who submitted
+ * @param phase     the phase to grade
+ * @param timeAdded when the submission was handed in
+ * @param started   whether a grader has claimed the submission
+ * @param priority  which submissions are graded first
+ * @param repoUrl   the repo to grade, or null for submissions queued before it was recorded,
+ *                  which grade the student's current repo
+ * @param admin     whether the submission was made by an admin
+ * @param attempts  how many times a grader has claimed the submission
+ */
 public record QueueItem(
         String netId,
         Phase phase,
         Instant timeAdded,
-        boolean started
+        boolean started,
+        Priority priority,
+        @Nullable String repoUrl,
+        boolean admin,
+        int attempts
 ) {
 
+    /**
+     * Submissions with a higher priority are graded before any with a lower one, regardless of when they were
+     * added. The rank is what's stored, so that priorities can be added between existing ones.
+     */
+    public enum Priority {
+        /**
+         * Submissions an admin is waiting on, including submissions an admin asked to rerun
+         */
+        ADMIN(0),
+        /**
+         * Submissions whose grader stopped responding. They have already waited once.
+         */
+        RETRY(10),
+        STANDARD(20);
+
+        private final int rank;
+
+        Priority(int rank) {
+            this.rank = rank;
+        }
+
+        public int rank() {
+            return rank;
+        }
+
+        public static Priority fromRank(int rank) {
+            for (Priority priority : values()) {
+                if (priority.rank == rank) return priority;
+            }
+            throw new IllegalArgumentException("Unknown queue priority rank: " + rank);
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package edu.byu.cs.model;
+
+/**
+ * How much of the machine a process run while grading used, including any processes it started.
+ * Memory and threads are sampled while the process runs, so short spikes may be missed.
+ *
+ * @param process      the method that ran the process, as "Class.method"
+ * @param wallMillis   the time from starting the process to it exiting
+ * @param cpuMillis    the CPU time used by the process and its children
+ * @param peakMemoryKb the most resident memory seen in use at once, or 0 if it couldn't be measured
+ * @param peakThreads  the most threads seen running at once, or 0 if they couldn't be counted
+ */
+public record ResourceUsage(
+        String process,
+        long wallMillis,
+        long cpuMillis,
+        long peakMemoryKb,
+        int peakThreads
+) {
+}
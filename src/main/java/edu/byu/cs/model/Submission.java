@@ -5,6 +5,7 @@ import org.eclipse.jgit.annotations.NonNull;
 import org.eclipse.jgit.annotations.Nullable;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -42,6 +43,8 @@ import java.util.Objects;
  *                       the {@link Submission#passed} field.</p>
  * @param verification Represents the approval of the submission.
  *                     Added only after the submission is approved manually.
+ * @param resourceUsage The resources used by each process run while grading the submission.
+ *                      Old submissions will have a `null` value.
  */
 public record Submission(
         String netId,
@@ -56,7 +59,8 @@ public record Submission(
         Rubric rubric,
         Boolean admin,
         @Nullable VerifiedStatus verifiedStatus,
-        @Nullable ScoreVerification verification
+        @Nullable ScoreVerification verification,
+        @Nullable List<ResourceUsage> resourceUsage
 ) {
 
     /**
@@ -0,0 +1,39 @@
+package edu.byu.cs.model;
+
+import org.eclipse.jgit.annotations.Nullable;
+
+import java.time.Instant;
+
+/**
+ * The parts of a {@link Submission} shown when listing submissions. Leaves out the rubric,
+ * which is most of a submission's size; the full submission can be fetched by its
+ * <code>netId</code>, <code>phase</code>, and <code>timestamp</code> when it is opened.
+ *
+ * @param netId The student who submitted the code.
+ * @param phase The phase being graded.
+ * @param timestamp The time the submission was handed in.
+ * @param passed Whether the code passed all the grading tests.
+ * @param score The final score assigned to the submission.
+ * @param headHash The commit hash at which the submission was graded.
+ * @param admin Whether the submission was started by an admin.
+ * @param verifiedStatus The status of the verification, or null for old submissions.
+ * @param notes Additional notes displayed to the user.
+ */
+public record SubmissionSummary(
+        String netId,
+        Phase phase,
+        Instant timestamp,
+        Boolean passed,
+        Float score,
+        String headHash,
+        Boolean admin,
+        @Nullable Submission.VerifiedStatus verifiedStatus,
+        String notes
+) {
+
+    public static SubmissionSummary of(Submission submission) {
+        return new SubmissionSummary(submission.netId(), submission.phase(), submission.timestamp(),
+                submission.passed(), submission.score(), submission.headHash(), submission.admin(),
+                submission.verifiedStatus(), submission.notes());
+    }
+}
@@ -51,6 +51,24 @@ public class ApplicationProperties {
         return mustGet("db-pass");
     }
 
+    public static int dbPoolSize() {
+        return Integer.parseInt(get("db-pool-size", "10"));
+    }
+
+    /**
+     * @return whether to record where each database connection is borrowed, which is logged if it is held too long
+     */
+    public static boolean dbTraceBorrows() {
+        return Boolean.parseBoolean(get("db-trace-borrows", "false"));
+    }
+
+    /**
+     * @return seconds to cache configuration values for, or 0 to cache them until they change
+     */
+    public static int configCacheTtlSeconds() {
+        return Integer.parseInt(get("config-cache-ttl", "0"));
+    }
+
     public static String frontendUrl() {
         return mustGet("frontend-url");
     }
@@ -71,4 +89,44 @@ public class ApplicationProperties {
     public static boolean runCompilation() {
         return Boolean.parseBoolean(get("run-compilation", "true"));
     }
+
+    public static boolean compileInProcess() {
+        return Boolean.parseBoolean(get("compile-in-process", "false"));
+    }
+
+    public static boolean warmTestJvm() {
+        return Boolean.parseBoolean(get("warm-test-jvm", "false"));
+    }
+
+    public static String mavenRepository() {
+        return get("maven-repo", "./maven-repo");
+    }
+
+    /**
+     * @return the maximum heap size, in megabytes, of each JVM run for a submission
+     */
+    public static int studentHeapMb() {
+        return Integer.parseInt(get("student-heap-mb", "1024"));
+    }
+
+    /**
+     * @return the most threads a process run for a submission may use at once, along with its children
+     */
+    public static int studentMaxThreads() {
+        return Integer.parseInt(get("student-max-threads", "1024"));
+    }
+
+    /**
+     * @return whether this server only grades submissions from the shared queue, without serving the website
+     */
+    public static boolean worker() {
+        return Boolean.parseBoolean(get("worker", "false"));
+    }
+
+    /**
+     * @return whether this server only serves the website, leaving grading to workers
+     */
+    public static boolean webOnly() {
+        return Boolean.parseBoolean(get("web-only", "false"));
+    }
 }
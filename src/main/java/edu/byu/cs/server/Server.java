@@ -54,6 +54,7 @@ public class Server {
 
             get("/submission", provider.submissionXGet());
             get("/submission/:phase", provider.submissionXGet());
+            get("/submission/:phase/:timestamp", provider.submissionGet());
 
             get("/me", provider.meGet());
 
@@ -83,6 +84,8 @@ public class Server {
 
                     get("/student/:netId", provider.studentSubmissionsGet());
 
+                    get("/student/:netId/:phase/:timestamp", provider.studentSubmissionGet());
+
                     post("/rerun", provider.submissionsReRunPost());
                 });
 
@@ -96,6 +99,10 @@ public class Server {
 
                 get("/sections", provider.sectionsGet());
 
+                get("/metrics/processes", provider.processMetricsGet());
+
+                get("/metrics/database", provider.databaseMetricsGet());
+
                 path("/config", () -> {
                     get("", provider.getConfigAdmin());
 
@@ -107,6 +114,10 @@ public class Server {
                     get("/courseIds", provider.updateCourseIdsUsingCanvasGet());
 
                     post("/penalties", provider.updatePenalties());
+
+                    post("/graderThreads", provider.updateGraderThreadCount());
+
+                    post("/maxQueueDepth", provider.updateMaxQueueDepth());
                 });
             });
         });
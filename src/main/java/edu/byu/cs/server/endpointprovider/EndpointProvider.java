@@ -19,6 +19,8 @@ public interface EndpointProvider {
     Route commitAnalyticsGet();
     Route honorCheckerZipGet();
     Route sectionsGet();
+    Route processMetricsGet();
+    Route databaseMetricsGet();
 
     // AuthController
 
@@ -42,6 +44,8 @@ public interface EndpointProvider {
     Route updateCourseIdsPost();
     Route updateCourseIdsUsingCanvasGet();
     Route updatePenalties();
+    Route updateGraderThreadCount();
+    Route updateMaxQueueDepth();
 
     // SubmissionController
 
@@ -50,9 +54,11 @@ public interface EndpointProvider {
     Route submitGet();
     Route latestSubmissionForMeGet();
     Route submissionXGet();
+    Route submissionGet();
     Route latestSubmissionsGet();
     Route submissionsActiveGet();
     Route studentSubmissionsGet();
+    Route studentSubmissionGet();
     Route approveSubmissionPost();
     Route submissionsReRunPost();
 
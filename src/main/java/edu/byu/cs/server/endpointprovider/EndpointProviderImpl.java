@@ -64,6 +64,16 @@ public class EndpointProviderImpl implements EndpointProvider {
         return AdminController.sectionsGet;
     }
 
+    @Override
+    public Route processMetricsGet() {
+        return AdminController.processMetricsGet;
+    }
+
+    @Override
+    public Route databaseMetricsGet() {
+        return AdminController.databaseMetricsGet;
+    }
+
     // AuthController
 
     @Override
@@ -140,6 +150,16 @@ public class EndpointProviderImpl implements EndpointProvider {
         return ConfigController.updatePenalties;
     }
 
+    @Override
+    public Route updateGraderThreadCount() {
+        return ConfigController.updateGraderThreadCount;
+    }
+
+    @Override
+    public Route updateMaxQueueDepth() {
+        return ConfigController.updateMaxQueueDepth;
+    }
+
     // SubmissionController
 
     @Override
@@ -167,6 +187,11 @@ public class EndpointProviderImpl implements EndpointProvider {
         return SubmissionController.submissionXGet;
     }
 
+    @Override
+    public Route submissionGet() {
+        return SubmissionController.submissionGet;
+    }
+
     @Override
     public Route latestSubmissionsGet() {
         return SubmissionController.latestSubmissionsGet;
@@ -182,6 +207,11 @@ public class EndpointProviderImpl implements EndpointProvider {
         return SubmissionController.studentSubmissionsGet;
     }
 
+    @Override
+    public Route studentSubmissionGet() {
+        return SubmissionController.studentSubmissionGet;
+    }
+
     @Override
     public Route approveSubmissionPost() {
         return SubmissionController.approveSubmissionPost;
@@ -4,6 +4,7 @@ import com.google.gson.JsonObject;
 import edu.byu.cs.canvas.CanvasException;
 import edu.byu.cs.canvas.CanvasIntegrationImpl;
 import edu.byu.cs.canvas.model.CanvasAssignment;
+import edu.byu.cs.controller.TrafficController;
 import edu.byu.cs.dataAccess.ConfigurationDao;
 import edu.byu.cs.dataAccess.ConfigurationDao.Configuration;
 import edu.byu.cs.dataAccess.DaoService;
@@ -33,6 +34,12 @@ public class ConfigService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConfigService.class);
     private static final ConfigurationDao dao = DaoService.getConfigurationDao();
 
+    /**
+     * The most graders an admin may allow to run at once. Each grader runs Maven, JUnit, and the student's
+     * server, so this is kept well below what would starve the web server of CPU.
+     */
+    private static final int MAX_GRADER_THREAD_COUNT = 16;
+
 
     private static void logConfigChange(String changeMessage, String adminNetId) {
         LOGGER.info("[CONFIG] Admin {} has {}", adminNetId, changeMessage);
@@ -137,6 +144,8 @@ public class ConfigService {
                 Integer.class
         );
         response.addProperty("courseNumber", courseNumber);
+        response.addProperty("graderThreadCount", getGraderThreadCount());
+        response.addProperty("maxQueueDepth", getMaxQueueDepth());
         response.addProperty("assignmentIds", Serializer.serialize(assignmentIds));
         response.addProperty("rubricInfo", Serializer.serialize(rubricInfo));
         return response;
@@ -264,6 +273,48 @@ public class ConfigService {
         return utahTime.toInstant();
     }
 
+    /**
+     * Gets the number of graders allowed to run at the same time
+     *
+     * @return the configured thread count, or 1 if it has not been configured
+     */
+    public static int getGraderThreadCount() throws DataAccessException {
+        Integer threadCount = dao.getConfiguration(Configuration.GRADER_THREAD_COUNT, Integer.class);
+        return (threadCount == null || threadCount < 1) ? 1 : threadCount;
+    }
+
+    /**
+     * Gets the most submissions allowed to wait in the queue before students are asked to try again later
+     *
+     * @return the configured depth, or 0 if the queue is unlimited
+     */
+    public static int getMaxQueueDepth() throws DataAccessException {
+        Integer maxQueueDepth = dao.getConfiguration(Configuration.MAX_QUEUE_DEPTH, Integer.class);
+        return (maxQueueDepth == null || maxQueueDepth < 0) ? 0 : maxQueueDepth;
+    }
+
+    public static void updateMaxQueueDepth(User user, Integer maxQueueDepth) throws DataAccessException {
+        if (maxQueueDepth == null || maxQueueDepth < 0) {
+            throw new IllegalArgumentException("Max queue depth must be 0 (unlimited) or more");
+        }
+
+        dao.setConfiguration(Configuration.MAX_QUEUE_DEPTH, maxQueueDepth, Integer.class);
+
+        logConfigChange("set the max queue depth to %d".formatted(maxQueueDepth), user.netId());
+    }
+
+    public static void updateGraderThreadCount(User user, Integer threadCount) throws DataAccessException {
+        if (threadCount == null || threadCount < 1 || threadCount > MAX_GRADER_THREAD_COUNT) {
+            throw new IllegalArgumentException("Grader thread count must be between 1 and " + MAX_GRADER_THREAD_COUNT);
+        }
+
+        dao.setConfiguration(Configuration.GRADER_THREAD_COUNT, threadCount, Integer.class);
+        // Workers read the new count the next time they poll the queue
+        TrafficController.getInstance().setGraderThreadCount(threadCount);
+
+        logConfigChange("set the grader thread count to %d".formatted(threadCount), user.netId());
+    }
+
     public static void updateCourseIds(User user, SetCourseIdsRequest setCourseIdsRequest) throws DataAccessException {
 
         // Course Number
@@ -1,11 +1,9 @@
 package edu.byu.cs.service;
 
-import edu.byu.cs.autograder.Grader;
 import edu.byu.cs.autograder.GradingException;
-import edu.byu.cs.autograder.GradingObserver;
-import edu.byu.cs.autograder.GradingObserverImpl;
 import edu.byu.cs.controller.exception.BadRequestException;
 import edu.byu.cs.controller.exception.InternalServerException;
+import edu.byu.cs.controller.exception.TooManyRequestsException;
 import edu.byu.cs.controller.TrafficController;
 import edu.byu.cs.controller.netmodel.ApprovalRequest;
 import edu.byu.cs.controller.netmodel.GradeRequest;
@@ -13,14 +11,16 @@ import edu.byu.cs.dataAccess.*;
 import edu.byu.cs.model.Phase;
 import edu.byu.cs.model.QueueItem;
 import edu.byu.cs.model.Submission;
+import edu.byu.cs.model.SubmissionSummary;
 import edu.byu.cs.model.User;
 import edu.byu.cs.util.SubmissionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static edu.byu.cs.util.PhaseUtils.isPhaseEnabled;
 
@@ -28,14 +28,26 @@ public class SubmissionService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SubmissionService.class);
 
-    public static void submit(User user, GradeRequest request) throws BadRequestException, DataAccessException, InternalServerException {
+    /**
+     * The most latest submissions read from the database at once by {@link #streamLatestSubmissions}
+     */
+    private static final int LATEST_SUBMISSIONS_PAGE_SIZE = 500;
+
+    /**
+     * Queues a student's submission for grading. Whether the student has committed anything new is checked
+     * once the submission is claimed by a grader, since asking GitHub can take a while.
+     *
+     * @throws TooManyRequestsException if the queue is already as long as it's allowed to get
+     */
+    public static void submit(User user, GradeRequest request)
+            throws BadRequestException, DataAccessException, InternalServerException, TooManyRequestsException {
         ConfigService.checkForShutdown();
 
         if (!isPhaseEnabled(request.phase())) {
             throw new BadRequestException("Student submission is disabled for " + request.phase());
         }
 
-        assertHasNewCommits(user, request.phase());
+        assertQueueHasRoom();
 
         LOGGER.info("User {} submitted phase {} for grading", user.netId(), request.phase());
 
@@ -52,35 +64,51 @@ public class SubmissionService {
         startGrader(netId, request.phase(), request.repoUrl(), true);
     }
 
-    private static void startGrader(String netId, Phase phase, String repoUrl, boolean adminSubmission) throws DataAccessException, BadRequestException, InternalServerException {
-        QueueItem qItem = new QueueItem(netId, phase, Instant.now(), false);
+    private static void startGrader(String netId, Phase phase, String repoUrl, boolean adminSubmission) throws DataAccessException {
+        QueueItem.Priority priority = adminSubmission ? QueueItem.Priority.ADMIN : QueueItem.Priority.STANDARD;
+        QueueItem qItem = new QueueItem(netId, phase, Instant.now(), false, priority, repoUrl, adminSubmission, 0);
         DaoService.getQueueDao().add(qItem);
+        TrafficController.getInstance().submissionQueued(netId);
+    }
 
-        TrafficController.sessions.put(netId, new ArrayList<>());
-
-        try {
-            Grader grader = getGrader(netId, phase, repoUrl, adminSubmission);
-
-            TrafficController.getInstance().addGrader(grader);
-
-        } catch (IllegalArgumentException e) {
-            LOGGER.error("Invalid phase", e);
-            throw new BadRequestException("Invalid phase", e);
-        } catch (Exception e) {
-            LOGGER.error("Error starting grader", e);
-            throw new InternalServerException("Error starting grader", e);
-        }
+    /**
+     * Turns students away while the queue is full. The limit is approximate, since students submitting at
+     * the same moment can each see room for one more.
+     */
+    private static void assertQueueHasRoom() throws DataAccessException, TooManyRequestsException {
+        int maxQueueDepth = ConfigService.getMaxQueueDepth();
+        if (maxQueueDepth < 1) return;
+
+        int waiting = DaoService.getQueueDao().getWaitingInOrder().size();
+        if (waiting < maxQueueDepth) return;
+
+        // There is room once the submissions past the limit have started grading
+        TrafficController trafficController = TrafficController.getInstance();
+        Duration retryAfter = trafficController.estimateWait(waiting - maxQueueDepth + 1,
+                trafficController.gradingCapacity());
+        long minutes = Math.max(1, retryAfter.toMinutes());
+        throw new TooManyRequestsException("The autograder is busy with %d submissions. Please try again in about %d minute%s"
+                .formatted(waiting, minutes, minutes == 1 ? "" : "s"), retryAfter.toSeconds());
     }
 
-    private static void assertHasNewCommits(User user, Phase phase) throws DataAccessException, BadRequestException {
+    /**
+     * Checks that a student has committed something since their last submission for a phase
+     *
+     * @param netId   the netId of the student
+     * @param phase   the phase being submitted
+     * @param repoUrl the repo being submitted
+     * @throws BadRequestException if the repo can't be reached, or its latest commit was already graded
+     */
+    public static void assertHasNewCommits(String netId, Phase phase, String repoUrl)
+            throws DataAccessException, BadRequestException {
         String headHash;
         try {
-            headHash = SubmissionUtils.getRemoteHeadHash(user.repoUrl());
+            headHash = SubmissionUtils.getRemoteHeadHash(repoUrl);
         } catch (DataAccessException e) {
             LOGGER.error("Error getting remote head hash", e);
             throw new BadRequestException("Invalid repo url", e);
         }
-        Submission submission = getMostRecentSubmission(user.netId(), phase);
+        Submission submission = getMostRecentSubmission(netId, phase);
         if (submission != null && submission.headHash().equals(headHash)) {
             throw new BadRequestException("You have already submitted this version of your code for this phase. Make a new commit before submitting again");
         }
@@ -94,15 +122,7 @@ public class SubmissionService {
      * @return the most recent submission, or null if there are no submissions for this student in this phase
      */
     private static Submission getMostRecentSubmission(String netId, Phase phase) throws DataAccessException {
-        Collection<Submission> submissions = DaoService.getSubmissionDao().getSubmissionsForPhase(netId, phase);
-        Submission mostRecent = null;
-
-        for (Submission submission : submissions) {
-            if (mostRecent == null || mostRecent.timestamp().isBefore(submission.timestamp())) {
-                mostRecent = submission;
-            }
-        }
-        return mostRecent;
+        return DaoService.getSubmissionDao().getLatestSubmissionForPhase(netId, phase);
     }
 
     public static boolean isAlreadyInQueue(String netId) throws DataAccessException {
@@ -118,13 +138,13 @@ public class SubmissionService {
         }
     }
 
-    public static Collection<Submission> getXSubmissionsForUser(String netId, Phase phase) throws DataAccessException {
-        Collection<Submission> submissions;
+    public static Collection<SubmissionSummary> getXSubmissionsForUser(String netId, Phase phase) throws DataAccessException {
+        Collection<SubmissionSummary> submissions;
         try {
             if (phase == null) {
-                submissions = DaoService.getSubmissionDao().getSubmissionsForUser(netId);
+                submissions = DaoService.getSubmissionDao().getSubmissionSummariesForUser(netId);
             } else {
-                submissions = DaoService.getSubmissionDao().getSubmissionsForPhase(netId, phase);
+                submissions = DaoService.getSubmissionDao().getSubmissionSummariesForPhase(netId, phase);
             }
         } catch (DataAccessException e) {
             LOGGER.error("Error getting submissions for user {}", netId, e);
@@ -133,21 +153,39 @@ public class SubmissionService {
         return submissions;
     }
 
-    public static Collection<Submission> getLatestSubmissions(int count) throws DataAccessException {
-        Collection<Submission> submissions;
-        try {
-            submissions = DaoService.getSubmissionDao().getAllLatestSubmissions(count);
-        } catch (DataAccessException e) {
-            LOGGER.error("Error getting latest submissions", e);
-            throw e;
+    /**
+     * Passes summaries of the latest submissions to the consumer, reading them a page at a time. Each page is
+     * read in full before it is passed on, so the database isn't held up by a slow consumer, such as a slow
+     * client downloading the summaries.
+     *
+     * @param count    the most submissions to read, or a negative number to read all of them
+     * @param before   the cursor of the last submission of the previous page, or null for the first page
+     * @param consumer receives each summary
+     */
+    public static void streamLatestSubmissions(int count, SubmissionDao.LatestSubmissionCursor before,
+                                               Consumer<SubmissionSummary> consumer) throws DataAccessException {
+        int remaining = count < 0 ? Integer.MAX_VALUE : count;
+        while (remaining > 0) {
+            int pageSize = Math.min(remaining, LATEST_SUBMISSIONS_PAGE_SIZE);
+            List<SubmissionSummary> page;
+            try {
+                page = DaoService.getSubmissionDao().getLatestSubmissionSummaries(before, pageSize);
+            } catch (DataAccessException e) {
+                LOGGER.error("Error getting latest submissions", e);
+                throw e;
+            }
+            page.forEach(consumer);
+            if (page.size() < pageSize) return;
+
+            remaining -= page.size();
+            before = SubmissionDao.LatestSubmissionCursor.of(page.getLast());
         }
-        return submissions;
     }
 
     public static List<String> getActiveInQueue() throws DataAccessException {
         List<String> inQueue;
         try {
-            inQueue = DaoService.getQueueDao().getAll().stream().filter((queueItem) -> !queueItem.started()).map(QueueItem::netId).toList();
+            inQueue = DaoService.getQueueDao().getWaitingInOrder().stream().map(QueueItem::netId).toList();
         } catch (DataAccessException e) {
             LOGGER.error("Error getting active submissions", e);
             throw e;
@@ -166,10 +204,27 @@ public class SubmissionService {
         return currentlyGrading;
     }
 
-    public static Collection<Submission> getSubmissionsForUser(String netId) throws DataAccessException {
+    public static Collection<SubmissionSummary> getSubmissionsForUser(String netId) throws DataAccessException {
         return getXSubmissionsForUser(netId, null);
     }
 
+    /**
+     * Gets a single submission in full, such as one opened from a list of summaries
+     *
+     * @param netId     the netId of the student
+     * @param phase     the phase of the submission
+     * @param timestamp the time the submission was handed in
+     * @return the submission, or null if there isn't one
+     */
+    public static Submission getSubmission(String netId, Phase phase, Instant timestamp) throws DataAccessException {
+        try {
+            return DaoService.getSubmissionDao().getSubmission(netId, phase, timestamp);
+        } catch (DataAccessException e) {
+            LOGGER.error("Error getting submission for user {}", netId, e);
+            throw e;
+        }
+    }
+
     public static void approveSubmission(String adminNetId, ApprovalRequest request) throws GradingException, DataAccessException {
         int penalty = 0;
         if (request.penalize()) {
@@ -180,42 +235,15 @@ public class SubmissionService {
     }
 
     /**
-     * Creates a grader for the given request with an observer that sends messages to the subscribed sessions
-     *
-     * @param netId           the netId of the user
-     * @param phase           the phase to grade
-     * @param adminSubmission if the grader should run in admin mode
-     * @return the grader
-     * @throws IOException if there is an error creating the grader
+     * Puts submissions whose graders stopped renewing their leases back in the queue, and has free graders
+     * pick up everything waiting. Submissions a grader still holds a lease on are left alone, so that they
+     * aren't graded twice. Used if the queue got stuck or if a server crashed while grading.
      */
-    private static Grader getGrader(String netId, Phase phase, String repoUrl, boolean adminSubmission) throws IOException, GradingException {
-        GradingObserver observer = new GradingObserverImpl(netId);
-        return new Grader(repoUrl, netId, observer, phase, adminSubmission);
-    }
-
-    /**
-     * Takes any submissions currently in the queue and reruns them through the grader.
-     * Used if the queue got stuck or if the server crashed while submissions were
-     * waiting in the queue.
-     */
-    public static void reRunSubmissionsInQueue() throws IOException, DataAccessException, GradingException {
+    public static void reRunSubmissionsInQueue() throws DataAccessException {
         QueueDao queueDao = DaoService.getQueueDao();
-        UserDao userDao = DaoService.getUserDao();
-        Collection<QueueItem> inQueue = queueDao.getAll();
-
-        for (QueueItem queueItem : inQueue) {
-            User currentUser = userDao.getUser(queueItem.netId());
-            if (currentUser.repoUrl() != null) {
-                queueDao.markNotStarted(queueItem.netId());
-
-                TrafficController.getInstance().addGrader(
-                        getGrader(queueItem.netId(),
-                                queueItem.phase(),
-                                currentUser.repoUrl(),
-                                currentUser.role() == User.Role.ADMIN));
-            } else {
-                queueDao.remove(queueItem.netId());
-            }
+        queueDao.releaseExpiredLeases();
+        for (QueueItem queueItem : queueDao.getWaitingInOrder()) {
+            TrafficController.getInstance().submissionQueued(queueItem.netId());
         }
     }
 
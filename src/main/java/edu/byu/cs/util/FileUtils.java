@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -176,6 +177,29 @@ public class FileUtils {
         }
     }
 
+    /**
+     * Recursively copies a directory and all of its contents, replacing any files already in the target
+     *
+     * @param source the directory to copy
+     * @param target the directory to copy into (created if it doesn't exist)
+     */
+    public static void copyDirectory(File source, File target) {
+        Path sourcePath = source.toPath();
+        Path targetPath = target.toPath();
+        try (Stream<Path> paths = Files.walk(sourcePath)) {
+            for (Path path : paths.toList()) {
+                Path destination = targetPath.resolve(sourcePath.relativize(path));
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(destination);
+                } else {
+                    Files.copy(path, destination, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to copy directory: " + e.getMessage());
+        }
+    }
+
     /**
      * @param filePath The path to file/directory to find all the file names and the associated absolute paths
      * @return A map of the file names and the associated absolute paths given a path
@@ -163,6 +163,20 @@ public class PhaseUtils {
         };
     }
 
+    /**
+     * Returns whether the student's code is expected to use its database during the tests of a phase.
+     * Every test suite of such a phase shares the submission's single database, so they can't run at the same time.
+     *
+     * @param phase phase to check
+     * @return true if tests for the phase reach the database
+     */
+    public static boolean usesDatabase(Phase phase) {
+        return switch (phase) {
+            case Phase4, Phase5, Phase6 -> true;
+            case Phase0, Phase1, Phase3, Quality, GitHub, Commits -> false;
+        };
+    }
+
     /**
      * Returns the required rubric types to submit a phase
      *
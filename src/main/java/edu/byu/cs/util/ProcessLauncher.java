@@ -0,0 +1,139 @@
+package edu.byu.cs.util;
+
+import edu.byu.cs.model.ResourceUsage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the processes run for a submission under its {@link ResourceLimits}, so that one student's code
+ * can't slow down the other submissions being graded, and keeps track of the resources each one used.
+ * <br>
+ * Limits are applied without special privileges, so that they work wherever the autograder runs:
+ * <ul>
+ *     <li>JVMs started with <code>java</code> or <code>mvn</code> get a maximum heap size and are told how many
+ *     processors they may use, which sizes their thread pools and garbage collector</li>
+ *     <li>Processes run at a lower CPU and I/O priority than the autograder, using <code>nice</code> and
+ *     <code>ionice</code> where they are installed</li>
+ *     <li>Processes using more threads than allowed, across themselves and their children, are killed by
+ *     {@link ProcessUtils} while it waits for them</li>
+ * </ul>
+ */
+public class ProcessLauncher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProcessLauncher.class);
+
+    /**
+     * Runs processes as they are, without keeping track of what they used
+     */
+    public static final ProcessLauncher UNLIMITED = new ProcessLauncher(null, false);
+
+    private static final int NICENESS = 10;
+
+    private static final boolean NICE_INSTALLED = isInstalled("nice");
+
+    private static final boolean IONICE_INSTALLED = isInstalled("ionice");
+
+    /**
+     * @param maxHeapMb  the maximum heap size of each JVM
+     * @param processors the number of processors each JVM is told it may use
+     * @param maxThreads the most threads a process and its children may run at once
+     */
+    public record ResourceLimits(int maxHeapMb, int processors, int maxThreads) {}
+
+    private final ResourceLimits limits;
+
+    private final boolean recordUsage;
+
+    private final List<ResourceUsage> usage = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * @param limits the limits applied to each process
+     */
+    public ProcessLauncher(ResourceLimits limits) {
+        this(limits, true);
+    }
+
+    private ProcessLauncher(ResourceLimits limits, boolean recordUsage) {
+        this.limits = limits;
+        this.recordUsage = recordUsage;
+    }
+
+    /**
+     * @return the resources used by each process started so far, in the order they finished
+     */
+    public List<ResourceUsage> usage() {
+        synchronized (usage) {
+            return List.copyOf(usage);
+        }
+    }
+
+    /**
+     * @return the limits applied to each process, or null if there are none
+     */
+    public ResourceLimits limits() {
+        return limits;
+    }
+
+    /**
+     * @return the most threads a process may run at once, or -1 if there is no limit
+     */
+    int maxThreads() {
+        return limits == null ? -1 : limits.maxThreads();
+    }
+
+    void record(ResourceUsage processUsage) {
+        if (recordUsage) {
+            usage.add(processUsage);
+        }
+    }
+
+    /**
+     * Changes the command and environment of a process so that it starts under this launcher's limits
+     *
+     * @param processBuilder the process about to be started
+     */
+    void prepare(ProcessBuilder processBuilder) {
+        if (limits == null) return;
+
+        List<String> command = new ArrayList<>(processBuilder.command());
+        if (command.isEmpty()) return;
+
+        List<String> jvmOptions = List.of(
+                "-Xmx" + limits.maxHeapMb() + "m",
+                "-XX:ActiveProcessorCount=" + limits.processors());
+        String program = new File(command.getFirst()).getName();
+        if (program.equals("java")) {
+            command.addAll(1, jvmOptions);
+        } else if (program.equals("mvn")) {
+            Map<String, String> environment = processBuilder.environment();
+            String mavenOpts = environment.getOrDefault("MAVEN_OPTS", "");
+            environment.put("MAVEN_OPTS", (mavenOpts + " " + String.join(" ", jvmOptions)).trim());
+        }
+
+        // Each of these runs the rest of the command in its own place, so the process started is still the same one
+        if (IONICE_INSTALLED) {
+            command.addAll(0, List.of("ionice", "-c", "2", "-n", "7"));
+        }
+        if (NICE_INSTALLED) {
+            command.addAll(0, List.of("nice", "-n", String.valueOf(NICENESS)));
+        }
+        processBuilder.command(command);
+    }
+
+    private static boolean isInstalled(String program) {
+        String path = System.getenv("PATH");
+        if (path != null) {
+            for (String directory : path.split(File.pathSeparator)) {
+                if (new File(directory, program).canExecute()) return true;
+            }
+        }
+        LOGGER.warn("{} is not installed, so student processes will run without it", program);
+        return false;
+    }
+}
@@ -0,0 +1,102 @@
+package edu.byu.cs.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statistics about the processes run through {@link ProcessUtils}, grouped by the method that ran them.
+ * Kept in memory since the autograder last started.
+ */
+public class ProcessMetrics {
+
+    private static final Map<String, CallSiteMetrics> METRICS = new ConcurrentHashMap<>();
+
+    /**
+     * A summary of the processes run from one call site
+     *
+     * @param runs              the number of processes started
+     * @param failures          the number of processes that exited with a non-zero status
+     * @param timeouts          the number of processes killed for running too long
+     * @param averageSpawnMillis the average time taken to start a process
+     * @param averageWallMillis the average time from starting a process to it exiting
+     * @param maxWallMillis     the longest time from starting a process to it exiting
+     * @param bytesRead         the total bytes read from standard out and standard error
+     * @param lastExitCode      the exit status of the most recent process that exited
+     */
+    public record Summary(long runs, long failures, long timeouts, double averageSpawnMillis,
+                          double averageWallMillis, double maxWallMillis, long bytesRead, Integer lastExitCode) {}
+
+    /**
+     * Records a process that exited
+     *
+     * @param callSite   the method that ran the process
+     * @param spawnNanos the time taken to start the process
+     * @param wallNanos  the time from starting the process to it exiting
+     * @param exitCode   the exit status of the process
+     * @param bytesRead  the bytes read from standard out and standard error
+     */
+    static void recordExit(String callSite, long spawnNanos, long wallNanos, int exitCode, long bytesRead) {
+        METRICS.computeIfAbsent(callSite, k -> new CallSiteMetrics())
+                .record(spawnNanos, wallNanos, exitCode, bytesRead);
+    }
+
+    /**
+     * Records a process that was killed for running too long
+     *
+     * @param callSite   the method that ran the process
+     * @param spawnNanos the time taken to start the process
+     * @param wallNanos  the time from starting the process to it being killed
+     */
+    static void recordTimeout(String callSite, long spawnNanos, long wallNanos) {
+        METRICS.computeIfAbsent(callSite, k -> new CallSiteMetrics()).recordTimeout(spawnNanos, wallNanos);
+    }
+
+    /**
+     * @return a summary of each call site, sorted by call site
+     */
+    public static Map<String, Summary> snapshot() {
+        Map<String, Summary> snapshot = new TreeMap<>();
+        METRICS.forEach((callSite, metrics) -> snapshot.put(callSite, metrics.summary()));
+        return snapshot;
+    }
+
+    private static class CallSiteMetrics {
+        private long runs = 0;
+        private long failures = 0;
+        private long timeouts = 0;
+        private long totalSpawnNanos = 0;
+        private long totalWallNanos = 0;
+        private long maxWallNanos = 0;
+        private long bytesRead = 0;
+        private Integer lastExitCode = null;
+
+        synchronized void record(long spawnNanos, long wallNanos, int exitCode, long bytesRead) {
+            recordRun(spawnNanos, wallNanos);
+            if (exitCode != 0) failures++;
+            this.bytesRead += bytesRead;
+            lastExitCode = exitCode;
+        }
+
+        synchronized void recordTimeout(long spawnNanos, long wallNanos) {
+            recordRun(spawnNanos, wallNanos);
+            timeouts++;
+        }
+
+        private void recordRun(long spawnNanos, long wallNanos) {
+            runs++;
+            totalSpawnNanos += spawnNanos;
+            totalWallNanos += wallNanos;
+            maxWallNanos = Math.max(maxWallNanos, wallNanos);
+        }
+
+        synchronized Summary summary() {
+            return new Summary(runs, failures, timeouts, millis(totalSpawnNanos) / runs,
+                    millis(totalWallNanos) / runs, millis(maxWallNanos), bytesRead, lastExitCode);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
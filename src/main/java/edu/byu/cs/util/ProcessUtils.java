@@ -1,12 +1,34 @@
 package edu.byu.cs.util;
 
+import edu.byu.cs.model.ResourceUsage;
+
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class ProcessUtils {
 
     private static final long DEFAULT_TIMEOUT = 90000;
 
+    /**
+     * How often the resources used by a running process are sampled
+     */
+    private static final long SAMPLE_INTERVAL_MILLIS = 250;
+
+    /**
+     * Drains the pipes of every process. Reading a pipe mostly blocks, so each reader gets a virtual thread.
+     */
+    private static final ExecutorService OUTPUT_READERS =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("process-output-", 0).factory());
+
     /**
      * Runs a process given by a process builder and returns process output
      * @param processBuilder process to run
@@ -45,9 +67,101 @@ public class ProcessUtils {
      */
     public static ProcessOutput runProcess(ProcessBuilder processBuilder, String input, long timeout)
             throws ProcessException {
-        try (ExecutorService processOutputExecutor = Executors.newFixedThreadPool(2)){
+        return runProcess(processBuilder, input, timeout, OutputCapture.UNBOUNDED);
+    }
 
-            Process process = processBuilder.start();
+    /**
+     * Runs a process given by a process builder and returns process output
+     * @param processBuilder process to run
+     * @param timeout length to wait for in ms
+     * @param capture how much of the output to keep, and who to tell about each line of standard out
+     * @return output from process standard out
+     */
+    public static ProcessOutput runProcess(ProcessBuilder processBuilder, long timeout, OutputCapture capture)
+            throws ProcessException {
+        return runProcess(processBuilder, null, timeout, capture);
+    }
+
+    /**
+     * Runs a process given by a process builder and returns process output
+     * @param processBuilder process to run
+     * @param input string to write to standard in for process
+     * @param timeout length to wait for in ms
+     * @param capture how much of the output to keep, and who to tell about each line of standard out
+     * @return output from process standard out
+     */
+    public static ProcessOutput runProcess(ProcessBuilder processBuilder, String input, long timeout,
+                                           OutputCapture capture) throws ProcessException {
+        return runProcess(processBuilder, input, timeout, capture, ProcessLauncher.UNLIMITED);
+    }
+
+    /**
+     * Runs a process given by a process builder and returns process output
+     * @param processBuilder process to run
+     * @param input string to write to standard in for process
+     * @param launcher the limits to run the process under, which also records what the process used
+     * @return output from process standard out
+     */
+    public static ProcessOutput runProcess(ProcessBuilder processBuilder, String input, ProcessLauncher launcher)
+            throws ProcessException {
+        return runProcess(processBuilder, input, DEFAULT_TIMEOUT, OutputCapture.UNBOUNDED, launcher);
+    }
+
+    /**
+     * Runs a process given by a process builder and returns process output
+     * @param processBuilder process to run
+     * @param input string to write to standard in for process
+     * @param timeout length to wait for in ms
+     * @param capture how much of the output to keep, and who to tell about each line of standard out
+     * @param launcher the limits to run the process under, which also records what the process used
+     * @return output from process standard out
+     */
+    public static ProcessOutput runProcess(ProcessBuilder processBuilder, String input, long timeout,
+                                           OutputCapture capture, ProcessLauncher launcher) throws ProcessException {
+        String callSite = callSite();
+        long start = System.nanoTime();
+        Process process = startProcess(processBuilder, launcher);
+        return waitFor(process, input, timeout, capture, launcher, callSite, start, System.nanoTime() - start);
+    }
+
+    /**
+     * Starts a process under a launcher's limits without waiting for it, so that it can start up before it is
+     * needed. The process should then be finished with {@link #finishProcess}.
+     * @param processBuilder process to start
+     * @param launcher the limits to run the process under
+     * @return the started process
+     */
+    public static Process startProcess(ProcessBuilder processBuilder, ProcessLauncher launcher)
+            throws ProcessException {
+        launcher.prepare(processBuilder);
+        try {
+            return processBuilder.start();
+        } catch (IOException e) {
+            throw new ProcessException(e);
+        }
+    }
+
+    /**
+     * Gives input to a process started by {@link #startProcess} and waits for it the same way as
+     * {@link #runProcess(ProcessBuilder, String, long, OutputCapture, ProcessLauncher)}. The timeout starts
+     * now rather than when the process was started.
+     * @param process process to finish, which hasn't been given any input yet
+     * @param input string to write to standard in for process
+     * @param timeout length to wait for in ms
+     * @param capture how much of the output to keep, and who to tell about each line of standard out
+     * @param launcher the limits the process was started under, which also records what the process used
+     * @return output from process standard out
+     */
+    public static ProcessOutput finishProcess(Process process, String input, long timeout, OutputCapture capture,
+                                              ProcessLauncher launcher) throws ProcessException {
+        return waitFor(process, input, timeout, capture, launcher, callSite(), System.nanoTime(), 0);
+    }
+
+    private static ProcessOutput waitFor(Process process, String input, long timeout, OutputCapture capture,
+                                         ProcessLauncher launcher, String callSite, long start, long spawnNanos)
+            throws ProcessException {
+        try {
+            UsageSampler sampler = new UsageSampler(process.toHandle());
 
             /*
             Grab the output from the process asynchronously. Without this concurrency, if this is computed
@@ -55,8 +169,10 @@ public class ProcessUtils {
             writes to block, resulting in the process never finishing. This is usually the result of the tested
             code printing out too many lines to stdout as a means of logging/debugging
              */
-            Future<String> processOutputFuture = processOutputExecutor.submit(() -> getOutputFromInputStream(process.getInputStream()));
-            Future<String> processErrorFuture = processOutputExecutor.submit(() -> getOutputFromInputStream(process.getErrorStream()));
+            Future<StreamOutput> processOutputFuture = OUTPUT_READERS.submit(() ->
+                    getOutputFromInputStream(process.getInputStream(), capture, capture.stdOutListener()));
+            Future<StreamOutput> processErrorFuture = OUTPUT_READERS.submit(() ->
+                    getOutputFromInputStream(process.getErrorStream(), capture, null));
 
             if(input != null) {
                 try (OutputStream os = process.getOutputStream()) {
@@ -64,41 +180,327 @@ public class ProcessUtils {
                 }
             }
 
-            if (!process.waitFor(timeout, TimeUnit.MILLISECONDS)) {
-                process.destroyForcibly();
-                throw new ProcessException("Process timed out. Try again or come see a TA if this error persists");
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (!process.waitFor(Math.min(SAMPLE_INTERVAL_MILLIS,
+                    TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())), TimeUnit.MILLISECONDS)) {
+                if (System.nanoTime() >= deadline) {
+                    destroy(process);
+                    launcher.record(sampler.usage(callSite, System.nanoTime() - start));
+                    ProcessMetrics.recordTimeout(callSite, spawnNanos, System.nanoTime() - start);
+                    throw new ProcessException("Process timed out. Try again or come see a TA if this error persists");
+                }
+
+                sampler.sample();
+                if (launcher.maxThreads() >= 0 && sampler.threads > launcher.maxThreads()) {
+                    destroy(process);
+                    launcher.record(sampler.usage(callSite, System.nanoTime() - start));
+                    ProcessMetrics.recordExit(callSite, spawnNanos, System.nanoTime() - start, -1, 0);
+                    throw new ProcessException("Process was stopped for running more than %d threads at once"
+                            .formatted(launcher.maxThreads()));
+                }
             }
-            String output = processOutputFuture.get(1000, TimeUnit.MILLISECONDS);
-            String error = processErrorFuture.get(1000, TimeUnit.MILLISECONDS);
+            long wallNanos = System.nanoTime() - start;
+            StreamOutput output = processOutputFuture.get(1000, TimeUnit.MILLISECONDS);
+            StreamOutput error = processErrorFuture.get(1000, TimeUnit.MILLISECONDS);
 
-            return new ProcessOutput(output, error, process.waitFor());
+            int statusCode = process.waitFor();
+            ProcessMetrics.recordExit(callSite, spawnNanos, wallNanos, statusCode,
+                    output.bytesRead() + error.bytesRead());
+            ResourceUsage usage = sampler.usage(callSite, wallNanos);
+            launcher.record(usage);
+            return new ProcessOutput(output.text(), error.text(), statusCode, usage);
         } catch (IOException | InterruptedException | ExecutionException | TimeoutException e) {
+            destroy(process);
             throw new ProcessException(e);
         }
     }
 
     /**
-     * Extracts the output as a string from an input stream
+     * Kills a process along with any processes it started, such as the server a student's tests started
+     */
+    public static void destroy(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * Keeps track of the resources used by a process and its children while it runs. CPU time is read through
+     * {@link ProcessHandle}, while memory and threads are read from <code>/proc</code> and aren't measured
+     * where it doesn't exist.
+     */
+    private static class UsageSampler {
+        private final ProcessHandle root;
+
+        /**
+         * The CPU time last seen for each process, which is kept after the process exits
+         */
+        private final Map<Long, Long> cpuNanos = new HashMap<>();
+
+        private long peakMemoryKb = 0;
+        private int peakThreads = 0;
+        private int threads = 0;
+
+        UsageSampler(ProcessHandle root) {
+            this.root = root;
+        }
+
+        void sample() {
+            long memoryKb = 0;
+            int threadCount = 0;
+            List<ProcessHandle> handles = Stream.concat(Stream.of(root), root.descendants()).toList();
+            for (ProcessHandle handle : handles) {
+                handle.info().totalCpuDuration()
+                        .ifPresent(cpu -> cpuNanos.merge(handle.pid(), cpu.toNanos(), Math::max));
+
+                List<String> status;
+                try {
+                    status = Files.readAllLines(Path.of("/proc", String.valueOf(handle.pid()), "status"));
+                } catch (IOException e) {
+                    continue;
+                }
+                for (String line : status) {
+                    if (line.startsWith("VmRSS:")) {
+                        memoryKb += Long.parseLong(line.replaceAll("\\D", ""));
+                    } else if (line.startsWith("Threads:")) {
+                        threadCount += Integer.parseInt(line.replaceAll("\\D", ""));
+                    }
+                }
+            }
+            threads = threadCount;
+            peakMemoryKb = Math.max(peakMemoryKb, memoryKb);
+            peakThreads = Math.max(peakThreads, threadCount);
+        }
+
+        ResourceUsage usage(String callSite, long wallNanos) {
+            long totalCpuNanos = cpuNanos.values().stream().mapToLong(Long::longValue).sum();
+            return new ResourceUsage(callSite, TimeUnit.NANOSECONDS.toMillis(wallNanos),
+                    TimeUnit.NANOSECONDS.toMillis(totalCpuNanos), peakMemoryKb, peakThreads);
+        }
+    }
+
+    /**
+     * Names the method that called into this class, as "Class.method"
+     */
+    private static String callSite() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> !frame.getClassName().equals(ProcessUtils.class.getName()))
+                .findFirst()
+                .map(frame -> {
+                    String className = frame.getClassName();
+                    return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+                })
+                .orElse("unknown"));
+    }
+
+    /**
+     * Extracts the output as a string from an input stream. Line endings are normalized to <code>\n</code>
+     * and the output always ends with a line break, the same as reading it line by line.
      *
-     * @param is The input stream to extract the output from
-     * @return The output of the process as a string
+     * @param is       The input stream to extract the output from
+     * @param capture  How much of the output to keep
+     * @param listener Called with each line as it is read, or null
+     * @return The output of the process as a string, and how many bytes were read
      * @throws IOException If an error occurs while reading the output
      */
-    private static String getOutputFromInputStream(InputStream is) throws IOException {
-        try (InputStreamReader isr = new InputStreamReader(is);
-             BufferedReader br = new BufferedReader(isr)){
+    private static StreamOutput getOutputFromInputStream(InputStream is, OutputCapture capture,
+                                                         Consumer<String> listener) throws IOException {
+        try (is) {
+            OutputBuffer buffer = new OutputBuffer(capture, listener);
+            byte[] bytes = new byte[8192];
+            long bytesRead = 0;
+            int read;
+            while ((read = is.read(bytes)) != -1) {
+                buffer.write(bytes, read);
+                bytesRead += read;
+            }
+            return new StreamOutput(buffer.finish(), bytesRead);
+        }
+    }
+
+    private record StreamOutput(String text, long bytesRead) {}
 
-            String line;
-            StringBuilder sb = new StringBuilder();
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
-                sb.append('\n');
+    /**
+     * How much of a process's standard out and standard error to keep.
+     * <br>
+     * Student code can print without limit, so output that is shown to students or only checked for a few
+     * lines should be bounded. Bounded output keeps the beginning and the end of each stream, and replaces
+     * whatever was in between with a note saying how much was left out.
+     *
+     * @param headBytes      bytes kept from the beginning of each stream, or -1 to keep everything
+     * @param tailBytes      bytes kept from the end of each stream
+     * @param stdOutListener called on the reading thread with each line of standard out as it arrives, or null.
+     *                       Lines are passed without their line break, and are seen even if they aren't kept.
+     */
+    public record OutputCapture(int headBytes, int tailBytes, Consumer<String> stdOutListener) {
+
+        /**
+         * Keeps all output
+         */
+        public static final OutputCapture UNBOUNDED = new OutputCapture(-1, 0, null);
+
+        /**
+         * Keeps at most the given number of bytes from the beginning and the end of each stream
+         */
+        public static OutputCapture bounded(int headBytes, int tailBytes) {
+            return new OutputCapture(headBytes, tailBytes, null);
+        }
+
+        public OutputCapture withStdOutListener(Consumer<String> stdOutListener) {
+            return new OutputCapture(headBytes, tailBytes, stdOutListener);
+        }
+
+        private boolean isBounded() {
+            return headBytes >= 0;
+        }
+    }
+
+    /**
+     * Collects the output of a stream byte by byte, according to an {@link OutputCapture}
+     */
+    private static class OutputBuffer {
+
+        /**
+         * The longest line passed to a listener, longer lines are cut off
+         */
+        private static final int MAX_LINE_LENGTH = 65536;
+
+        private final boolean bounded;
+        private final int headLimit;
+        private final Consumer<String> listener;
+
+        private byte[] head = new byte[256];
+        private int headLength = 0;
+
+        /**
+         * A ring buffer of the most recent bytes once the head is full
+         */
+        private final byte[] tail;
+        private int tailStart = 0;
+        private int tailLength = 0;
+        private long truncated = 0;
+
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private boolean afterCarriageReturn = false;
+        private int lastByte = '\n';
+
+        OutputBuffer(OutputCapture capture, Consumer<String> listener) {
+            this.bounded = capture.isBounded();
+            this.headLimit = capture.headBytes();
+            this.tail = new byte[bounded ? capture.tailBytes() : 0];
+            this.listener = listener;
+        }
+
+        void write(byte[] bytes, int length) {
+            for (int i = 0; i < length; i++) {
+                byte b = bytes[i];
+                if (b == '\r') {
+                    afterCarriageReturn = true;
+                    accept('\n');
+                } else if (b == '\n' && afterCarriageReturn) {
+                    afterCarriageReturn = false;
+                } else {
+                    afterCarriageReturn = false;
+                    accept(b);
+                }
+            }
+        }
+
+        String finish() {
+            if (lastByte != '\n') {
+                accept('\n');
+            }
+
+            byte[] tailBytes = tailBytes();
+            if (truncated == 0) {
+                byte[] all = Arrays.copyOf(head, headLength + tailBytes.length);
+                System.arraycopy(tailBytes, 0, all, headLength, tailBytes.length);
+                return new String(all, StandardCharsets.UTF_8);
+            }
+
+            // Cut both ends on character boundaries so no character is split in two
+            int headEnd = completeLength(head, headLength);
+            String output = new String(head, 0, headEnd, StandardCharsets.UTF_8);
+
+            // Start the tail on a new line so the note is on a line of its own
+            int start = 0;
+            while (start < tailBytes.length - 1 && tailBytes[start] != '\n') start++;
+            if (start < tailBytes.length - 1) start++;
+            else start = 0;
+            while (start < tailBytes.length && isContinuationByte(tailBytes[start])) start++;
+
+            long cut = truncated + start + (headLength - headEnd);
+            String note = "[... %d bytes of output truncated ...]\n".formatted(cut);
+            if (!output.isEmpty() && !output.endsWith("\n")) note = "\n" + note;
+            return output + note + new String(tailBytes, start, tailBytes.length - start, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Gets how many bytes come before a UTF-8 character that is cut off at the end, if any
+         *
+         * @param bytes  the UTF-8 bytes
+         * @param length the number of bytes used
+         * @return the length without the partial character
+         */
+        private static int completeLength(byte[] bytes, int length) {
+            int lead = length - 1;
+            while (lead >= 0 && length - lead < 4 && isContinuationByte(bytes[lead])) lead--;
+            if (lead < 0) return length;
+
+            int first = bytes[lead] & 0xFF;
+            int size = first >= 0xF0 ? 4 : first >= 0xE0 ? 3 : first >= 0xC0 ? 2 : 1;
+            return lead + size > length ? lead : length;
+        }
+
+        private static boolean isContinuationByte(byte b) {
+            return (b & 0xC0) == 0x80;
+        }
+
+        private void accept(int b) {
+            lastByte = b;
+            keep((byte) b);
+            if (listener == null) return;
+
+            if (b == '\n') {
+                byte[] bytes = line.toByteArray();
+                // A line that was cut off may end partway through a character
+                int length = bytes.length < MAX_LINE_LENGTH ? bytes.length : completeLength(bytes, bytes.length);
+                listener.accept(new String(bytes, 0, length, StandardCharsets.UTF_8));
+                line.reset();
+            } else if (line.size() < MAX_LINE_LENGTH) {
+                line.write(b);
             }
-            return sb.toString();
+        }
+
+        private void keep(byte b) {
+            if (!bounded || headLength < headLimit) {
+                if (headLength == head.length) {
+                    head = Arrays.copyOf(head, bounded ? Math.min(headLimit, head.length * 2) : head.length * 2);
+                }
+                head[headLength++] = b;
+            } else if (tail.length == 0) {
+                truncated++;
+            } else if (tailLength < tail.length) {
+                tail[tailLength++] = b;
+            } else {
+                tail[tailStart] = b;
+                tailStart = (tailStart + 1) % tail.length;
+                truncated++;
+            }
+        }
+
+        private byte[] tailBytes() {
+            byte[] bytes = new byte[tailLength];
+            int firstPart = Math.min(tailLength, tail.length - tailStart);
+            System.arraycopy(tail, tailStart, bytes, 0, firstPart);
+            System.arraycopy(tail, 0, bytes, firstPart, tailLength - firstPart);
+            return bytes;
         }
     }
 
-    public record ProcessOutput(String stdOut, String stdErr, int statusCode){}
+    /**
+     * @param usage the resources the process used
+     */
+    public record ProcessOutput(String stdOut, String stdErr, int statusCode, ResourceUsage usage){}
 
     public static class ProcessException extends Exception {
         public ProcessException(String message) {
@@ -13,7 +13,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 
 public class SubmissionUtils {
 
@@ -127,21 +129,22 @@ public class SubmissionUtils {
             SubmissionDao submissionDao, String studentNetId,
             Phase phase, Submission.ScoreVerification scoreVerification)
             throws DataAccessException {
-        int affected = 0;
-
+        List<SubmissionDao.ManualApproval> approvals = new ArrayList<>();
         var phaseSubmissions = new HashSet<>(submissionDao.getSubmissionsForPhase(studentNetId, phase));
         for (var submission : phaseSubmissions) {
             if (!submission.passed()) continue;
 
-            try {
-                Submission.ScoreVerification subVerification = scoreVerification.setOriginalScore(submission.score());
-                float modifiedScore = Scorer.prepareModifiedScore(submission.score(), scoreVerification.penaltyPct());
-                submissionDao.manuallyApproveSubmission(submission, modifiedScore, subVerification);
-            } catch (ItemNotFoundException e) {
-                throw new RuntimeException(e);
-            }
-            affected++;
+            Submission.ScoreVerification subVerification = scoreVerification.setOriginalScore(submission.score());
+            float modifiedScore = Scorer.prepareModifiedScore(submission.score(), scoreVerification.penaltyPct());
+            approvals.add(new SubmissionDao.ManualApproval(submission, modifiedScore, subVerification));
+        }
+
+        try {
+            submissionDao.manuallyApproveSubmissions(approvals);
+        } catch (ItemNotFoundException e) {
+            throw new RuntimeException(e);
         }
+        int affected = approvals.size();
 
         return affected;
     }
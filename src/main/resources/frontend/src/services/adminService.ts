@@ -1,4 +1,4 @@
-import type { CanvasSection, Phase, Submission, User } from "@/types/types";
+import type { CanvasSection, Phase, Submission, SubmissionSummary, User } from "@/types/types";
 import type { Option } from "@/views/AdminView/Analytics.vue";
 import { ServerCommunicator } from "@/network/ServerCommunicator";
 
@@ -6,13 +6,20 @@ export const usersGet = (): Promise<User[]> => {
   return ServerCommunicator.getRequestGuaranteed<User[]>("/api/admin/users", []);
 };
 
-export const submissionsForUserGet = (netId: string): Promise<Submission[]> => {
-  return ServerCommunicator.getRequestGuaranteed<Submission[]>(
+export const submissionsForUserGet = (netId: string): Promise<SubmissionSummary[]> => {
+  return ServerCommunicator.getRequestGuaranteed<SubmissionSummary[]>(
     "/api/admin/submissions/student/" + netId,
     [],
   );
 };
 
+export const submissionForUserGet = (summary: SubmissionSummary): Promise<Submission> => {
+  const { netId, phase, timestamp } = summary;
+  return ServerCommunicator.getRequest<Submission>(
+    "/api/admin/submissions/student/" + netId + "/" + phase + "/" + timestamp,
+  );
+};
+
 export const approveSubmissionPost = (netId: string, phase: Phase, penalize: boolean) => {
   return ServerCommunicator.postRequest("/api/admin/submissions/approve", {
     netId,
@@ -21,12 +28,26 @@ export const approveSubmissionPost = (netId: string, phase: Phase, penalize: boo
   });
 };
 
-export const submissionsLatestGet = (batchSize?: number): Promise<Submission[]> => {
+/**
+ * @param batchSize how many submissions to get, or all of them if not given
+ * @param after the last submission of the previous page, to get the page after it
+ */
+export const submissionsLatestGet = (
+  batchSize?: number,
+  after?: SubmissionSummary,
+): Promise<SubmissionSummary[]> => {
   batchSize = batchSize ? batchSize : -1;
-  return ServerCommunicator.getRequestGuaranteed<Submission[]>(
-    "/api/admin/submissions/latest/" + batchSize,
-    [],
-  );
+  let endpoint = "/api/admin/submissions/latest/" + batchSize;
+  if (after) {
+    endpoint +=
+      "?" +
+      new URLSearchParams({
+        beforeTimestamp: after.timestamp,
+        beforeNetId: after.netId,
+        beforePhase: after.phase.toString(),
+      });
+  }
+  return ServerCommunicator.getRequestGuaranteed<SubmissionSummary[]>(endpoint, []);
 };
 
 export const testStudentModeGet = (): Promise<null> => {
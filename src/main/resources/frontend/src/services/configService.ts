@@ -60,6 +60,14 @@ export const setGraderShutdown = (
   });
 };
 
+export const setGraderThreadCount = (graderThreadCount: number): Promise<void> => {
+  return doSetConfigItem("POST", "/api/admin/config/graderThreads", { graderThreadCount });
+};
+
+export const setMaxQueueDepth = (maxQueueDepth: number): Promise<void> => {
+  return doSetConfigItem("POST", "/api/admin/config/maxQueueDepth", { maxQueueDepth });
+};
+
 export const setCanvasCourseIds = (): Promise<void> => {
   return doSetConfigItem("GET", "/api/admin/config/courseIds", {});
 };
@@ -1,10 +1,16 @@
-import type { Submission } from "@/types/types";
+import type { Submission, SubmissionSummary } from "@/types/types";
 import { Phase } from "@/types/types";
 import { ServerCommunicator } from "@/network/ServerCommunicator";
 
-export const submissionsGet = (phase: Phase | null): Promise<Submission[]> => {
+export const submissionsGet = (phase: Phase | null): Promise<SubmissionSummary[]> => {
   const endpoint: string = "/api/submission" + (phase === null ? "" : "/" + Phase[phase]);
-  return ServerCommunicator.getRequestGuaranteed<Submission[]>(endpoint, []);
+  return ServerCommunicator.getRequestGuaranteed<SubmissionSummary[]>(endpoint, []);
+};
+
+export const submissionGet = (summary: SubmissionSummary): Promise<Submission> => {
+  return ServerCommunicator.getRequest<Submission>(
+    "/api/submission/" + summary.phase + "/" + summary.timestamp,
+  );
 };
 
 export const lastSubmissionGet = (): Promise<Submission | null> => {
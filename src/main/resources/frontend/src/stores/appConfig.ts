@@ -26,6 +26,8 @@ export type Config = {
   courseNumber?: number;
   assignmentIds?: string; // Map<Phase, number>
   rubricInfo?: string; // Map<Phase, Map<RubricType, RubricInfo>>
+  graderThreadCount?: number;
+  maxQueueDepth?: number;
 };
 
 // @ts-ignore
@@ -79,6 +81,12 @@ export const useAppConfigStore = defineStore("appConfig", () => {
     if (latestConfig.rubricInfo) {
       rubricInfo.value = parseRubricInfo(latestConfig.rubricInfo);
     }
+    if (latestConfig.graderThreadCount) {
+      graderThreadCount.value = latestConfig.graderThreadCount;
+    }
+    if (latestConfig.maxQueueDepth !== undefined) {
+      maxQueueDepth.value = latestConfig.maxQueueDepth;
+    }
   };
 
   const backendUrl = ref<string>(env.VITE_APP_BACKEND_URL);
@@ -103,6 +111,8 @@ export const useAppConfigStore = defineStore("appConfig", () => {
     Map<Phase, Map<RubricType, RubricInfo>>
   >(new Map<Phase, Map<RubricType, RubricInfo>>());
   const courseNumber: Ref<number> = ref<number>(-1);
+  const graderThreadCount: Ref<number> = ref<number>(1);
+  const maxQueueDepth: Ref<number> = ref<number>(0);
 
   return {
     updateConfig,
@@ -122,5 +132,7 @@ export const useAppConfigStore = defineStore("appConfig", () => {
     maxLateDaysPenalized,
     linesChangedPerCommit,
     clockForgivenessMinutes,
+    graderThreadCount,
+    maxQueueDepth,
   };
 });
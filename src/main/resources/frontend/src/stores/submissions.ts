@@ -1,12 +1,12 @@
 import { defineStore } from "pinia";
 import { ref } from "vue";
-import type { Phase, Submission } from "@/types/types";
+import type { Phase, SubmissionSummary } from "@/types/types";
 import { lastSubmissionGet, submissionsGet, submitGet } from "@/services/submissionService";
 import { useAppConfigStore } from "@/stores/appConfig";
 import { useAuthStore } from "@/stores/auth";
 
 type SubmissionsByPhase = {
-  [phase: string]: Submission[];
+  [phase: string]: SubmissionSummary[];
 };
 
 export const useSubmissionStore = defineStore("submission", () => {
@@ -81,6 +81,23 @@ export type Submission = {
   verifiedStatus: VerifiedStatus;
 };
 
+/**
+ * The parts of a Submission returned when listing submissions. The full submission,
+ * including its rubric, is fetched when one is opened.
+ */
+export type SubmissionSummary = Pick<
+  Submission,
+  | "netId"
+  | "phase"
+  | "timestamp"
+  | "passed"
+  | "score"
+  | "headHash"
+  | "admin"
+  | "verifiedStatus"
+  | "notes"
+>;
+
 export enum VerifiedStatus {
   Unapproved,
   ApprovedAutomatically,
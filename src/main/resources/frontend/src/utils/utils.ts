@@ -5,12 +5,13 @@ import {
   type RubricItemResults,
   type RubricType,
   type Submission,
+  type SubmissionSummary,
   type TestNode,
   VerifiedStatus,
 } from "@/types/types";
 import { useAuthStore } from "@/stores/auth";
 
-export const commitVerificationFailed = (submission: Submission) => {
+export const commitVerificationFailed = (submission: SubmissionSummary) => {
   if (submission.admin) return false; // Admin submissions don't have commit requirements
   if (!submission.verifiedStatus) {
     // old submissions lack this info
@@ -0,0 +1,83 @@
+package edu.byu.cs.autograder;
+
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.GradingEvent;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.util.Serializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PublishingGradingObserverTest {
+
+    @BeforeEach
+    void setUp() throws DataAccessException {
+        DaoService.initializeMemoryDAOs();
+        DaoService.getQueueDao().add(new QueueItem("alice", Phase.Phase0, Instant.now(), false,
+                QueueItem.Priority.STANDARD, null, false, 0));
+        DaoService.getQueueDao().claim("worker", Duration.ofMinutes(2));
+    }
+
+    @Test
+    void publishesMessagesInOrder() throws DataAccessException {
+        PublishingGradingObserver observer = new PublishingGradingObserver("alice", "worker");
+        observer.notifyStarted();
+        observer.update("Compiling");
+        observer.notifyWarning("Slow tests");
+
+        List<GradingEvent> events = DaoService.getGradingEventDao().getEventsAfter(0, 10);
+
+        assertEquals(List.of("started", "update", "warning"), types(events));
+        assertTrue(events.stream().allMatch(event -> event.netId().equals("alice")));
+        assertEquals(events.getLast().id(), DaoService.getGradingEventDao().getLastEventId());
+        assertTrue(DaoService.getQueueDao().isAlreadyInQueue("alice"));
+    }
+
+    @Test
+    void notifyError__removesFromQueue() throws DataAccessException {
+        new PublishingGradingObserver("alice", "worker").notifyError("Could not clone repository");
+
+        List<GradingEvent> events = DaoService.getGradingEventDao().getEventsAfter(0, 10);
+
+        assertEquals(List.of("error"), types(events));
+        assertEquals("Could not clone repository", message(events.getFirst()).get("message"));
+        assertFalse(DaoService.getQueueDao().isAlreadyInQueue("alice"));
+    }
+
+    @Test
+    void notifyError__leavesItemClaimedByAnotherGrader() throws DataAccessException {
+        DaoService.getQueueDao().requeue("alice", QueueItem.Priority.RETRY);
+        DaoService.getQueueDao().claim("otherWorker", Duration.ofMinutes(2));
+
+        new PublishingGradingObserver("alice", "worker").notifyError("Could not clone repository");
+
+        assertTrue(DaoService.getQueueDao().isAlreadyInQueue("alice"));
+    }
+
+    @Test
+    void getEventsAfter__continuesFromLastRead() throws DataAccessException {
+        PublishingGradingObserver observer = new PublishingGradingObserver("alice", "worker");
+        observer.notifyStarted();
+        long lastRead = DaoService.getGradingEventDao().getLastEventId();
+        observer.update("Running tests");
+
+        assertEquals(List.of("update"), types(DaoService.getGradingEventDao().getEventsAfter(lastRead, 10)));
+    }
+
+    private static List<Object> types(List<GradingEvent> events) {
+        return events.stream().map(event -> message(event).get("type")).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> message(GradingEvent event) {
+        return Serializer.deserialize(event.message(), Map.class);
+    }
+}
@@ -0,0 +1,63 @@
+package edu.byu.cs.autograder.compile;
+
+import edu.byu.cs.util.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InProcessCompilerTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void compile__success() throws IOException {
+        File source = writeSource("model/Game.java", "package model; public record Game(String name) {}");
+        File output = new File(tempDir, "classes");
+
+        InProcessCompiler.CompileResult result = InProcessCompiler.compile(List.of(source), List.of(), output, tempDir);
+
+        assertTrue(result.success());
+        assertEquals("", result.errors());
+        assertTrue(new File(output, "model/Game.class").exists());
+    }
+
+    @Test
+    void compile__errorsHideStagePath() throws IOException {
+        File source = writeSource("Main.java", "public class Main { Missing missing; }");
+
+        InProcessCompiler.CompileResult result =
+                InProcessCompiler.compile(List.of(source), List.of(), new File(tempDir, "classes"), tempDir);
+
+        assertFalse(result.success());
+        assertTrue(result.errors().startsWith("[ERROR] /src/Main.java:[1,21]"), result.errors());
+        assertFalse(result.errors().contains(tempDir.getAbsolutePath()));
+    }
+
+    @Test
+    void compile__noSources() throws IOException {
+        File output = new File(tempDir, "classes");
+
+        InProcessCompiler.CompileResult result = InProcessCompiler.compile(List.of(), List.of(), output, tempDir);
+
+        assertTrue(result.success());
+        assertFalse(output.exists());
+    }
+
+    @Test
+    void findSources__missingDirectory() throws IOException {
+        assertEquals(List.of(), InProcessCompiler.findSources(new File(tempDir, "missing")));
+    }
+
+    private File writeSource(String path, String contents) {
+        File source = new File(tempDir, "src/" + path);
+        source.getParentFile().mkdirs();
+        FileUtils.writeStringToFile(contents, source);
+        return source;
+    }
+}
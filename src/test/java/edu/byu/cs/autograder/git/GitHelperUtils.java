@@ -5,6 +5,7 @@ import edu.byu.cs.autograder.GradingContext;
 import edu.byu.cs.autograder.GradingObserver;
 import edu.byu.cs.model.Phase;
 import edu.byu.cs.util.FileUtils;
+import edu.byu.cs.util.ProcessLauncher;
 import org.eclipse.jgit.annotations.Nullable;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -276,7 +277,7 @@ public class GitHelperUtils {
         var cvConfig = new CommitVerificationConfig(requiredCommits, requiredDaysWithCommits, minimumLinesChangedPerCommit, commitVerificationPenaltyPct, forgivenessMinutes);
         return new GradingContext(
                 null, Phase.Phase0, null, null, null, null,
-                cvConfig, mockObserver, false);
+                cvConfig, mockObserver, false, ProcessLauncher.UNLIMITED);
     }
 
     void assertCommitVerification(CommitVerificationResult expected, CommitVerificationResult actual) {
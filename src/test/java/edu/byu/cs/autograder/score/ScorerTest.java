@@ -17,6 +17,7 @@ import edu.byu.cs.dataAccess.DataAccessException;
 import edu.byu.cs.model.*;
 import edu.byu.cs.model.Submission.VerifiedStatus;
 import edu.byu.cs.properties.ApplicationProperties;
+import edu.byu.cs.util.ProcessLauncher;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -100,14 +101,15 @@ class ScorerTest {
         DaoService.getConfigurationDao().setConfiguration(ConfigurationDao.Configuration.PHASE3_ASSIGNMENT_NUMBER, 0, Integer.class);
 
         DaoService.getUserDao().insertUser(new User("testNetId", 123, "testFirst", "testLast", "testRepoUrl", User.Role.STUDENT));
-        DaoService.getQueueDao().add(new QueueItem("testNetId", Phase.Phase0, Instant.now(), false));
+        DaoService.getQueueDao().add(new QueueItem("testNetId", Phase.Phase0, Instant.now(), false,
+                QueueItem.Priority.STANDARD, "testRepoUrl", false, 0));
 
         mockObserver = Mockito.mock(GradingObserver.class);
 
         gradingContext = new GradingContext(
                 "testNetId", Phase.Phase0, "testPhasesPath", "testStagePath",
                 "testRepoUrl", new File(""),
-                standardCVConfig, mockObserver, false);
+                standardCVConfig, mockObserver, false, ProcessLauncher.UNLIMITED);
 
 
     }
@@ -191,7 +193,7 @@ class ScorerTest {
         gradingContext = new GradingContext(
                 "testNetId", Phase.Phase0, "testPhasesPath", "testStagePath",
                 "testRepoUrl", new File(""),
-                standardCVConfig, mockObserver, true);
+                standardCVConfig, mockObserver, true, ProcessLauncher.UNLIMITED);
 
         Submission submission = scoreRubric(constructRubric(1f));
 
@@ -213,8 +215,9 @@ class ScorerTest {
         gradingContext = new GradingContext(
                 "testNetId", Phase.Quality, "testPhasesPath", "testStagePath",
                 "testRepoUrl", new File(""),
-                standardCVConfig, mockObserver, false);
-        addQueueItem(new QueueItem("testNetId", Phase.Phase0, Instant.now(), true));
+                standardCVConfig, mockObserver, false, ProcessLauncher.UNLIMITED);
+        addQueueItem(new QueueItem("testNetId", Phase.Phase0, Instant.now(), true,
+                QueueItem.Priority.STANDARD, "testRepoUrl", false, 1));
 
         Rubric emptyRubric = new Rubric(new EnumMap<>(Rubric.RubricType.class), true, "testNotes");
         Submission submission = scoreRubric(emptyRubric);
@@ -360,7 +363,7 @@ class ScorerTest {
         gradingContext = new GradingContext(
                 "testNetId", Phase.Phase3, "testPhasesPath", "testStagePath",
                 "testRepoUrl", new File(""),
-                standardCVConfig, mockObserver, false);
+                standardCVConfig, mockObserver, false, ProcessLauncher.UNLIMITED);
 
         for (int i = 0; i < values.length; i++) {
             Phase3SubmissionValues value = values[i];
@@ -0,0 +1,30 @@
+package edu.byu.cs.autograder.test;
+
+import edu.byu.cs.model.TestAnalysis;
+import edu.byu.cs.model.TestNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PassoffTestCacheTest {
+
+    @Test
+    void hasLinkageError__nestedFailure() {
+        TestNode root = new TestNode();
+        TestNode child = new TestNode();
+        child.setErrorMessage("java.lang.NoSuchMethodError: 'void chess.ChessGame.setBoard(chess.ChessBoard)'");
+        root.getChildren().put("ChessGameTests", child);
+
+        assertTrue(PassoffTestCache.hasLinkageError(new TestAnalysis(root, null, null)));
+    }
+
+    @Test
+    void hasLinkageError__ordinaryFailure() {
+        TestNode root = new TestNode();
+        TestNode child = new TestNode();
+        child.setErrorMessage("org.opentest4j.AssertionFailedError: expected: <true> but was: <false>");
+        root.getChildren().put("ChessGameTests", child);
+
+        assertFalse(PassoffTestCache.hasLinkageError(new TestAnalysis(root, new TestNode(), "")));
+    }
+}
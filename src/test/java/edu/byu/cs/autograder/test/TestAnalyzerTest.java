@@ -1,6 +1,7 @@
 package edu.byu.cs.autograder.test;
 
 import edu.byu.cs.autograder.GradingException;
+import edu.byu.cs.model.TestAnalysis;
 import edu.byu.cs.model.TestNode;
 import edu.byu.cs.util.FileUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -265,6 +267,32 @@ class TestAnalyzerTest {
 //        assertNull(root.getChildren().get("ChessGameTests").getEcCategory());
 //    }
 
+    @Test
+    @DisplayName("Results reported directly build the same tree")
+    void analyze__direct_results() {
+        extraCreditTests.add("CastlingTests");
+        List<TestAnalyzer.TestCaseResult> testCases = List.of(
+                new TestAnalyzer.TestCaseResult("passoff.chess.piece.PawnMoveTests", "Pawn Middle Of Board", null),
+                new TestAnalyzer.TestCaseResult("passoff.chess.piece.PawnMoveTests", "Edge Promotion", "expected: <1>"),
+                new TestAnalyzer.TestCaseResult("passoff.chess.extracredit.CastlingTests", "Castle Left", null));
+
+        TestAnalysis analysis = new TestAnalyzer().analyze(testCases, extraCreditTests, null);
+
+        assertEquals("JUnit Jupiter.passoff.chess.piece.PawnMoveTests", analysis.root().getTestName());
+        assertEquals(1, analysis.root().getNumTestsPassed());
+        assertEquals(1, analysis.root().getNumTestsFailed());
+        assertEquals("expected: <1>", analysis.root().getChildren().get("Edge Promotion").getErrorMessage());
+        assertEquals(1, analysis.extraCredit().getNumTestsPassed());
+        assertEquals("CastlingTests", analysis.extraCredit().getChildren().get("Castle Left").getEcCategory());
+    }
+
+    @Test
+    @DisplayName("Display names replace method names")
+    void testName__display_names() {
+        assertEquals("Pawn Middle Of Board", TestAnalyzer.testName("pawnMiddleOfBoard()", "Pawn Middle Of Board"));
+        assertEquals("[1] 1 param(int)[1]", TestAnalyzer.testName("param(int)[1]", "[1] 1"));
+    }
+
     private File xmlFromString(String xml) throws IOException {
         File file = File.createTempFile("tmp-" + System.currentTimeMillis(), "xml");
         FileUtils.writeStringToFile(xml, file);
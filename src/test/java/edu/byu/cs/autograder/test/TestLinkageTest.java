@@ -0,0 +1,92 @@
+package edu.byu.cs.autograder.test;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestLinkageTest {
+
+    private static final String TEST = """
+            package passoff;
+
+            class SampleTest {
+                int turn() {
+                    return new chess.ChessGame().getTeamTurn();
+                }
+            }
+            """;
+
+    @TempDir
+    private File tempDir;
+
+    @Test
+    void signature__sameForCodeTheTestsDoNotUse() throws IOException {
+        File studentA = studentJar("a", "public int getTeamTurn() { return 0; } public void helperA() {}");
+        File studentB = studentJar("b", "public int getTeamTurn() { return 1; } private int helperB() { return 2; }");
+        Set<TestLinkage.Reference> references = TestLinkage.references(compileTest(studentA));
+
+        assertTrue(references.contains(new TestLinkage.Reference("chess/ChessGame", "getTeamTurn", "()I")));
+        assertEquals(TestLinkage.signature(references, studentA), TestLinkage.signature(references, studentB));
+    }
+
+    @Test
+    void signature__differsForIncompatibleCode() throws IOException {
+        File studentA = studentJar("a", "public int getTeamTurn() { return 0; }");
+        File studentB = studentJar("b", "public long getTeamTurn() { return 0; }");
+        File studentC = studentJar("c", "public static int getTeamTurn() { return 0; }");
+        Set<TestLinkage.Reference> references = TestLinkage.references(compileTest(studentA));
+
+        String signature = TestLinkage.signature(references, studentA);
+        assertNotEquals(signature, TestLinkage.signature(references, studentB));
+        assertNotEquals(signature, TestLinkage.signature(references, studentC));
+    }
+
+    private File studentJar(String name, String members) throws IOException {
+        File source = write(new File(tempDir, name + "/src/chess/ChessGame.java"),
+                "package chess;\n\npublic class ChessGame {\n" + members + "\n}\n");
+        File classes = compile(source, new File(tempDir, name + "/classes"), null);
+
+        File jar = new File(tempDir, name + ".jar");
+        Path root = classes.toPath();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+             Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.filter(Files::isRegularFile).toList()) {
+                out.putNextEntry(new JarEntry(root.relativize(path).toString().replace(File.separatorChar, '/')));
+                out.write(Files.readAllBytes(path));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private File compileTest(File studentJar) throws IOException {
+        File source = write(new File(tempDir, "tests/passoff/SampleTest.java"), TEST);
+        return compile(source, new File(tempDir, "compiledTests"), studentJar);
+    }
+
+    private static File write(File file, String contents) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.writeString(file.toPath(), contents);
+        return file;
+    }
+
+    private static File compile(File source, File output, File classpath) {
+        List<String> args = classpath == null ? List.of("-d", output.getPath(), source.getPath()) :
+                List.of("-d", output.getPath(), "-cp", classpath.getPath(), source.getPath());
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, args.toArray(String[]::new)));
+        return output;
+    }
+}
@@ -0,0 +1,101 @@
+package edu.byu.cs.autograder.test;
+
+import edu.byu.cs.autograder.GradingException;
+import edu.byu.cs.model.TestAnalysis;
+import edu.byu.cs.util.ProcessLauncher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarmTestRunnerTest {
+
+    private static final File LIBS = new File("src/main/resources/phases/libs");
+
+    private static final File JUPITER_API = new File(LIBS, "junit-jupiter-api-5.10.1.jar");
+
+    @TempDir
+    private File tempDir;
+
+    private File uberJar;
+
+    private WarmTestRunner runner;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        uberJar = new File(tempDir, "empty.jar");
+        new JarOutputStream(new FileOutputStream(uberJar)).close();
+        runner = new WarmTestRunner(new File(LIBS, "junit-platform-console-standalone-1.10.1.jar"), JUPITER_API,
+                5000, 65536);
+    }
+
+    @Test
+    void run__reportsEachTest() throws Exception {
+        File compiledTests = compileTest("""
+                @org.junit.jupiter.api.Test
+                void passes() {
+                    System.out.println("printed by the test");
+                }
+
+                @org.junit.jupiter.api.Test
+                void fails() {
+                    throw new AssertionError("expected failure");
+                }
+                """);
+
+        TestAnalysis analysis = runner.run(uberJar, compiledTests, Set.of("passoff"), Set.of(), ProcessLauncher.UNLIMITED);
+
+        assertEquals(1, analysis.root().getNumTestsPassed());
+        assertEquals(1, analysis.root().getNumTestsFailed());
+        assertTrue(analysis.error().contains("printed by the test"));
+    }
+
+    @Test
+    void run__killsTestsThatRunTooLong() throws Exception {
+        File compiledTests = compileTest("""
+                @org.junit.jupiter.api.Test
+                void neverFinishes() {
+                    while (true) {}
+                }
+                """);
+
+        GradingException e = assertThrows(GradingException.class, () ->
+                runner.run(uberJar, compiledTests, Set.of("passoff"), Set.of(), ProcessLauncher.UNLIMITED));
+        assertTrue(e.getCause().getMessage().contains("timed out"));
+    }
+
+    @Test
+    void run__testsExitingStopOnlyTheirJvm() throws Exception {
+        File compiledTests = compileTest("""
+                @org.junit.jupiter.api.Test
+                void exits() {
+                    System.exit(0);
+                }
+                """);
+
+        assertThrows(GradingException.class, () ->
+                runner.run(uberJar, compiledTests, Set.of("passoff"), Set.of(), ProcessLauncher.UNLIMITED));
+    }
+
+    private File compileTest(String body) throws IOException {
+        File sources = new File(tempDir, "src/passoff");
+        Files.createDirectories(sources.toPath());
+        File source = new File(sources, "SampleTest.java");
+        Files.writeString(source.toPath(), "package passoff;\n\nclass SampleTest {\n" + body + "}\n");
+
+        File compiledTests = new File(tempDir, "compiled");
+        int status = ToolProvider.getSystemJavaCompiler().run(null, null, null,
+                "-d", compiledTests.getPath(), "-cp", JUPITER_API.getPath(), source.getPath());
+        assertEquals(0, status);
+        return compiledTests;
+    }
+}
@@ -0,0 +1,63 @@
+package edu.byu.cs.canvas;
+
+import edu.byu.cs.canvas.model.CanvasSection;
+import edu.byu.cs.model.User;
+import edu.byu.cs.properties.ApplicationProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentSectionsTest {
+
+    private CanvasIntegration originalCanvasIntegration;
+
+    @BeforeAll
+    static void setUpAll() {
+        Properties testProperties = new Properties();
+        testProperties.setProperty("use-canvas", "false");
+        ApplicationProperties.loadProperties(testProperties);
+    }
+
+    @BeforeEach
+    void setUp() {
+        originalCanvasIntegration = CanvasService.getCanvasIntegration();
+        CanvasService.setCanvasIntegration(new FakeCanvasIntegration() {
+            @Override
+            public CanvasSection[] getAllSections() {
+                return new CanvasSection[]{new CanvasSection(1, "Section 1"), new CanvasSection(2, "Section 2")};
+            }
+
+            @Override
+            public Collection<User> getAllStudentsBySection(int sectionID) {
+                return sectionID == 1 ? List.of(student("alice"), student("bob")) : List.of(student("carol"));
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        CanvasService.setCanvasIntegration(originalCanvasIntegration);
+    }
+
+    @Test
+    void sectionOf__studentsSection() throws CanvasException {
+        StudentSections sections = new StudentSections();
+        sections.refresh();
+
+        assertEquals(1, sections.sectionOf("alice"));
+        assertEquals(1, sections.sectionOf("bob"));
+        assertEquals(2, sections.sectionOf("carol"));
+        assertEquals(StudentSections.NO_SECTION, sections.sectionOf("dave"));
+    }
+
+    private static User student(String netId) {
+        return new User(netId, 0, "Test", "Student", null, User.Role.STUDENT);
+    }
+}
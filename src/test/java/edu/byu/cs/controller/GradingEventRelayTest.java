@@ -0,0 +1,75 @@
+package edu.byu.cs.controller;
+
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.GradingEventDao;
+import edu.byu.cs.model.GradingEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradingEventRelayTest {
+
+    private CommitOrderGradingEventDao dao;
+    private List<Object> relayedTypes;
+    private GradingEventRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        DaoService.initializeMemoryDAOs();
+        dao = new CommitOrderGradingEventDao();
+        DaoService.setGradingEventDao(dao);
+        relayedTypes = new ArrayList<>();
+        relay = new GradingEventRelay((netId, message) -> relayedTypes.add(message.get("type")));
+    }
+
+    @Test
+    void relayEvents__eventCommittedAfterHigherId() {
+        dao.commit(1, "started");
+        dao.commit(3, "update");
+        relay.relayEvents();
+
+        dao.commit(2, "results");
+        relay.relayEvents();
+        relay.relayEvents();
+
+        assertEquals(List.of("started", "update", "results"), relayedTypes);
+    }
+
+    /**
+     * Events become visible in the order they are committed, which may not be the order of their ids
+     */
+    private static class CommitOrderGradingEventDao implements GradingEventDao {
+        private final NavigableMap<Long, GradingEvent> events = new ConcurrentSkipListMap<>();
+
+        void commit(long id, String type) {
+            events.put(id, new GradingEvent(id, "alice", "{\"type\":\"%s\"}".formatted(type), Instant.now()));
+        }
+
+        @Override
+        public void insertEvent(String netId, String message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<GradingEvent> getEventsAfter(long id, int limit) {
+            return events.tailMap(id, false).values().stream().limit(limit).toList();
+        }
+
+        @Override
+        public long getLastEventId() {
+            return events.isEmpty() ? 0 : events.lastKey();
+        }
+
+        @Override
+        public void removeEventsBefore(Instant cutoff) {
+            events.values().removeIf(event -> event.timestamp().isBefore(cutoff));
+        }
+    }
+}
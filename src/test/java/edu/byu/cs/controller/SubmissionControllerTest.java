@@ -0,0 +1,72 @@
+package edu.byu.cs.controller;
+
+import edu.byu.cs.dataAccess.ConfigurationDao;
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.model.User;
+import edu.byu.cs.service.ConfigService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import spark.HaltException;
+import spark.Request;
+import spark.Response;
+import spark.Session;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubmissionControllerTest {
+
+    private static final User ADMIN = new User("admin", 0, "Ad", "Min", null, User.Role.ADMIN);
+
+    @BeforeEach
+    void setUp() throws DataAccessException {
+        DaoService.initializeMemoryDAOs();
+        DaoService.getConfigurationDao().setConfiguration(
+                ConfigurationDao.Configuration.STUDENT_SUBMISSIONS_ENABLED, "[Phase0]", String.class);
+        ConfigService.clearShutdownSchedule();
+        ConfigService.updateMaxQueueDepth(ADMIN, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws DataAccessException {
+        ConfigService.updateMaxQueueDepth(ADMIN, 0);
+    }
+
+    @Test
+    void submitPost__fullQueueAsksStudentToRetryLater() throws Exception {
+        queue("bob");
+        queue("carol");
+        Response response = Mockito.mock(Response.class);
+
+        HaltException halt = assertThrows(HaltException.class,
+                () -> SubmissionController.submitPost.handle(submitRequest("alice"), response));
+
+        assertEquals(429, halt.statusCode());
+        ArgumentCaptor<String> retryAfter = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(response).header(Mockito.eq("Retry-After"), retryAfter.capture());
+        assertTrue(Long.parseLong(retryAfter.getValue()) > 0);
+        assertFalse(DaoService.getQueueDao().isAlreadyInQueue("alice"));
+    }
+
+    private static void queue(String netId) throws DataAccessException {
+        DaoService.getQueueDao().add(new QueueItem(netId, Phase.Phase0, Instant.now(), false,
+                QueueItem.Priority.STANDARD, null, false, 0));
+    }
+
+    private static Request submitRequest(String netId) {
+        User user = new User(netId, 0, "Test", "Student", "https://github.com/" + netId + "/chess", User.Role.STUDENT);
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(session.attribute("user")).thenReturn(user);
+        Request request = Mockito.mock(Request.class);
+        Mockito.when(request.session()).thenReturn(session);
+        Mockito.when(request.body()).thenReturn("{\"phase\":\"Phase0\"}");
+        return request;
+    }
+}
@@ -0,0 +1,151 @@
+package edu.byu.cs.controller;
+
+import edu.byu.cs.canvas.StudentSections;
+import edu.byu.cs.dataAccess.DaoService;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.model.Submission;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficControllerTest {
+
+    private final TrafficController trafficController = TrafficController.getInstance();
+
+    @BeforeEach
+    void setUp() {
+        DaoService.initializeMemoryDAOs();
+    }
+
+    @AfterEach
+    void tearDown() {
+        trafficController.setRole(TrafficController.Role.STANDALONE);
+    }
+
+    @Test
+    void estimateWait__onceAroundPerRoundOfGraders() {
+        Duration firstRound = trafficController.estimateWait(1, 4);
+
+        assertTrue(firstRound.isPositive());
+        assertEquals(firstRound, trafficController.estimateWait(4, 4));
+        assertEquals(firstRound.multipliedBy(2), trafficController.estimateWait(5, 4));
+        assertEquals(firstRound.multipliedBy(3), trafficController.estimateWait(12, 4));
+    }
+
+    @Test
+    void gradingCapacity__webServerCountsWorkersGrading() throws DataAccessException {
+        trafficController.setRole(TrafficController.Role.WEB);
+        for (String netId : new String[]{"alice", "bob", "carol", "dave"}) {
+            DaoService.getQueueDao().add(new QueueItem(netId, Phase.Phase0, Instant.now(), false,
+                    QueueItem.Priority.STANDARD, null, false, 0));
+        }
+        assertEquals(1, trafficController.gradingCapacity());
+
+        DaoService.getQueueDao().claim("worker1", Duration.ofMinutes(2));
+        DaoService.getQueueDao().claim("worker2", Duration.ofMinutes(2));
+        DaoService.getQueueDao().claim("worker2", Duration.ofMinutes(2));
+
+        assertEquals(3, trafficController.gradingCapacity());
+    }
+
+    @Test
+    void chooseFairly__sectionWithFewestGradingGoesFirst() {
+        Map<String, Integer> sections = Map.of("alice", 1, "bob", 1, "carol", 2, "dave", 2, "erin", 3);
+        ToIntFunction<String> sectionOf = netId -> sections.getOrDefault(netId, StudentSections.NO_SECTION);
+        List<QueueItem> waiting = List.of(
+                item("admin", QueueItem.Priority.ADMIN),
+                item("bob", QueueItem.Priority.STANDARD),
+                item("dave", QueueItem.Priority.STANDARD),
+                item("erin", QueueItem.Priority.STANDARD));
+        List<QueueItem> grading = List.of(item("alice", QueueItem.Priority.STANDARD));
+
+        assertEquals("admin", TrafficController.chooseFairly(waiting, grading, sectionOf).netId());
+
+        List<QueueItem> standard = waiting.subList(1, waiting.size());
+        assertEquals("dave", TrafficController.chooseFairly(standard, grading, sectionOf).netId());
+
+        grading = List.of(item("alice", QueueItem.Priority.STANDARD), item("carol", QueueItem.Priority.STANDARD));
+        assertEquals("erin", TrafficController.chooseFairly(standard, grading, sectionOf).netId());
+    }
+
+    @Test
+    void newLeaseOwner__gradersOnOneServerCannotTouchEachOthersClaims() throws DataAccessException {
+        for (String netId : new String[]{"alice", "bob"}) {
+            DaoService.getQueueDao().add(new QueueItem(netId, Phase.Phase0, Instant.now(), false,
+                    QueueItem.Priority.STANDARD, null, false, 0));
+        }
+        String aliceOwner = trafficController.newLeaseOwner();
+        String bobOwner = trafficController.newLeaseOwner();
+        assertNotEquals(aliceOwner, bobOwner);
+        assertEquals("alice", DaoService.getQueueDao().claim(aliceOwner, Duration.ofMinutes(2)).netId());
+        assertEquals("bob", DaoService.getQueueDao().claim(bobOwner, Duration.ofMinutes(2)).netId());
+
+        assertFalse(DaoService.getQueueDao().renewLease("alice", bobOwner, Duration.ofMinutes(2)));
+        assertFalse(DaoService.getQueueDao().remove("alice", bobOwner));
+        assertTrue(DaoService.getQueueDao().isAlreadyInQueue("alice"));
+
+        assertTrue(DaoService.getQueueDao().renewLease("alice", aliceOwner, Duration.ofMinutes(2)));
+        assertTrue(DaoService.getQueueDao().remove("alice", aliceOwner));
+    }
+
+    @Test
+    void grade__rejectsSubmissionWithoutNewCommits(@TempDir File repo) throws Exception {
+        String headHash;
+        try (Git git = Git.init().setDirectory(repo).call()) {
+            Files.writeString(new File(repo, "README.md").toPath(), "chess");
+            git.add().addFilepattern("README.md").call();
+            headHash = git.commit().setMessage("Initial commit").setSign(false).call().getName();
+        }
+        DaoService.getSubmissionDao().insertSubmission(new Submission("alice", repo.getPath(), headHash,
+                Instant.now(), Phase.Phase0, true, 1f, 1f, "", null, false, null, null, null));
+        DaoService.getQueueDao().add(new QueueItem("alice", Phase.Phase0, Instant.now(), false,
+                QueueItem.Priority.STANDARD, repo.getPath(), false, 0));
+
+        trafficController.submissionQueued("alice");
+        Instant deadline = Instant.now().plusSeconds(30);
+        while (DaoService.getQueueDao().isAlreadyInQueue("alice") && Instant.now().isBefore(deadline)) {
+            Thread.sleep(50);
+        }
+
+        assertFalse(DaoService.getQueueDao().isAlreadyInQueue("alice"));
+        assertEquals(1, DaoService.getSubmissionDao().getSubmissionsForUser("alice").size());
+        assertTrue(replayedMessages("alice").stream()
+                .anyMatch(message -> message.contains("\"type\":\"error\"")
+                        && message.contains("already submitted this version")));
+    }
+
+    private List<String> replayedMessages(String netId) throws Exception {
+        RemoteEndpoint remote = Mockito.mock(RemoteEndpoint.class);
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(session.getRemote()).thenReturn(remote);
+        Mockito.when(session.isOpen()).thenReturn(true);
+
+        trafficController.subscribe(netId, session);
+
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(remote, Mockito.atLeastOnce()).sendString(messages.capture());
+        return messages.getAllValues();
+    }
+
+    private static QueueItem item(String netId, QueueItem.Priority priority) {
+        return new QueueItem(netId, Phase.Phase0, Instant.now(), false, priority, null, false, 0);
+    }
+}
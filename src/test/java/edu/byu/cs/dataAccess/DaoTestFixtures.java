@@ -0,0 +1,37 @@
+package edu.byu.cs.dataAccess;
+
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.QueueItem;
+import edu.byu.cs.model.Submission;
+
+import java.time.Instant;
+
+/**
+ * Items for DAO tests, timed in seconds after a fixed {@link #START} so that their order is known
+ */
+public final class DaoTestFixtures {
+
+    public static final Instant START = Instant.parse("2024-09-01T12:00:00Z");
+
+    private DaoTestFixtures() {}
+
+    public static QueueItem queueItem(String netId, int secondsAfterStart) {
+        return queueItem(netId, secondsAfterStart, QueueItem.Priority.STANDARD);
+    }
+
+    public static QueueItem queueItem(String netId, int secondsAfterStart, QueueItem.Priority priority) {
+        return new QueueItem(netId, Phase.Phase0, START.plusSeconds(secondsAfterStart), false, priority,
+                "https://github.com/" + netId + "/chess", false, 0);
+    }
+
+    public static Submission submission(String netId, Phase phase, int secondsAfterStart) {
+        return submission(netId, phase, secondsAfterStart, true, 1f);
+    }
+
+    public static Submission submission(String netId, Phase phase, int secondsAfterStart, boolean passed,
+                                        float score) {
+        return new Submission(netId, "https://github.com/" + netId + "/chess", "abc123",
+                START.plusSeconds(secondsAfterStart), phase, passed, score, score, "", null, false, null, null,
+                null);
+    }
+}
@@ -0,0 +1,70 @@
+package edu.byu.cs.dataAccess.cache;
+
+import edu.byu.cs.dataAccess.ConfigurationDao;
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.memory.ConfigurationMemoryDao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static edu.byu.cs.dataAccess.ConfigurationDao.Configuration.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedConfigurationDaoTest {
+
+    private CountingConfigurationDao delegate;
+
+    @BeforeEach
+    void setUp() throws DataAccessException {
+        delegate = new CountingConfigurationDao();
+        delegate.setConfiguration(GRADER_THREAD_COUNT, 2, Integer.class);
+    }
+
+    @Test
+    void getConfiguration__readsOnce() throws DataAccessException {
+        CachedConfigurationDao dao = new CachedConfigurationDao(delegate, null);
+
+        assertEquals(2, dao.getConfiguration(GRADER_THREAD_COUNT, Integer.class));
+        assertEquals(2, dao.getConfiguration(GRADER_THREAD_COUNT, Integer.class));
+
+        assertEquals(1, delegate.reads);
+    }
+
+    @Test
+    void setConfiguration__invalidates() throws DataAccessException {
+        CachedConfigurationDao dao = new CachedConfigurationDao(delegate, null);
+        dao.getConfiguration(GRADER_THREAD_COUNT, Integer.class);
+
+        dao.setConfiguration(GRADER_THREAD_COUNT, 4, Integer.class);
+
+        assertEquals(4, dao.getConfiguration(GRADER_THREAD_COUNT, Integer.class));
+        assertEquals(2, delegate.reads);
+    }
+
+    @Test
+    void getConfiguration__expires() throws DataAccessException {
+        CachedConfigurationDao dao = new CachedConfigurationDao(delegate, Duration.ZERO);
+        dao.getConfiguration(GRADER_THREAD_COUNT, Integer.class);
+
+        delegate.setConfiguration(GRADER_THREAD_COUNT, 4, Integer.class);
+
+        assertEquals(4, dao.getConfiguration(GRADER_THREAD_COUNT, Integer.class));
+    }
+
+    private static class CountingConfigurationDao implements ConfigurationDao {
+        private final ConfigurationMemoryDao configuration = new ConfigurationMemoryDao();
+        private int reads = 0;
+
+        @Override
+        public <T> void setConfiguration(Configuration key, T value, Class<T> type) {
+            configuration.setConfiguration(key, value, type);
+        }
+
+        @Override
+        public <T> T getConfiguration(Configuration key, Class<T> type) {
+            reads++;
+            return configuration.getConfiguration(key, type);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package edu.byu.cs.dataAccess.cache;
+
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.memory.RubricConfigMemoryDao;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.Rubric;
+import edu.byu.cs.model.RubricConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.EnumMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedRubricConfigDaoTest {
+
+    private CountingRubricConfigDao delegate;
+    private CachedRubricConfigDao dao;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new CountingRubricConfigDao();
+        EnumMap<Rubric.RubricType, RubricConfig.RubricConfigItem> items = new EnumMap<>(Rubric.RubricType.class);
+        items.put(Rubric.RubricType.PASSOFF_TESTS, new RubricConfig.RubricConfigItem("Passoff", "Tests", 100, "_1"));
+        delegate.setRubricConfig(Phase.Phase3, new RubricConfig(Phase.Phase3, items));
+        dao = new CachedRubricConfigDao(delegate, null);
+    }
+
+    @Test
+    void getRubricConfig__readsOnce() throws DataAccessException {
+        dao.getRubricConfig(Phase.Phase3);
+        dao.getRubricConfig(Phase.Phase3);
+
+        assertEquals(1, delegate.reads);
+    }
+
+    @Test
+    void getRubricConfig__rereadsExpiredConfig() throws DataAccessException {
+        CachedRubricConfigDao expiring = new CachedRubricConfigDao(delegate, Duration.ZERO);
+        expiring.getRubricConfig(Phase.Phase3);
+        delegate.setRubricIdAndPoints(Phase.Phase3, Rubric.RubricType.PASSOFF_TESTS, 80, "_2");
+
+        assertEquals(80, expiring.getPhaseTotalPossiblePoints(Phase.Phase3));
+        assertEquals(2, delegate.reads);
+    }
+
+    @Test
+    void getRubricConfig__callersCannotChangeCache() throws DataAccessException {
+        dao.getRubricConfig(Phase.Phase3).items().remove(Rubric.RubricType.PASSOFF_TESTS);
+
+        assertEquals(100, dao.getPhaseTotalPossiblePoints(Phase.Phase3));
+    }
+
+    @Test
+    void setRubricIdAndPoints__refreshes() throws DataAccessException {
+        dao.getRubricConfig(Phase.Phase3);
+
+        dao.setRubricIdAndPoints(Phase.Phase3, Rubric.RubricType.PASSOFF_TESTS, 80, "_2");
+
+        RubricConfig.RubricConfigItem item = dao.getRubricConfig(Phase.Phase3).items().get(Rubric.RubricType.PASSOFF_TESTS);
+        assertEquals(80, item.points());
+        assertEquals("_2", item.rubric_id());
+    }
+
+    private static class CountingRubricConfigDao extends RubricConfigMemoryDao {
+        private int reads = 0;
+
+        @Override
+        public RubricConfig getRubricConfig(Phase phase) {
+            reads++;
+            return super.getRubricConfig(phase);
+        }
+    }
+}
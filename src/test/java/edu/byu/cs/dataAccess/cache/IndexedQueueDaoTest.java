@@ -0,0 +1,52 @@
+package edu.byu.cs.dataAccess.cache;
+
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.memory.QueueMemoryDao;
+import edu.byu.cs.model.QueueItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static edu.byu.cs.dataAccess.DaoTestFixtures.queueItem;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedQueueDaoTest {
+
+    private QueueMemoryDao delegate;
+    private IndexedQueueDao dao;
+
+    @BeforeEach
+    void setUp() throws DataAccessException {
+        delegate = new QueueMemoryDao();
+        delegate.add(queueItem("carol", 20));
+        delegate.add(queueItem("alice", 0));
+        dao = new IndexedQueueDao(delegate);
+    }
+
+    @Test
+    void getWaitingInOrder__loadsExistingItemsInOrder() throws DataAccessException {
+        dao.add(queueItem("bob", 10));
+
+        assertEquals(List.of("alice", "bob", "carol"), netIds(dao.getWaitingInOrder()));
+    }
+
+    @Test
+    void getWaitingInOrder__followsChanges() throws DataAccessException {
+        dao.add(queueItem("bob", 10));
+        dao.claim("worker", Duration.ofMinutes(1));
+        dao.remove("carol");
+
+        assertEquals(List.of("bob"), netIds(dao.getWaitingInOrder()));
+        assertTrue(delegate.get("alice").started());
+
+        dao.requeue("alice", QueueItem.Priority.STANDARD);
+
+        assertEquals(List.of("alice", "bob"), netIds(dao.getWaitingInOrder()));
+    }
+
+    private static List<String> netIds(List<QueueItem> items) {
+        return items.stream().map(QueueItem::netId).toList();
+    }
+}
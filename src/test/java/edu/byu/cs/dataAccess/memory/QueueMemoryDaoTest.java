@@ -0,0 +1,82 @@
+package edu.byu.cs.dataAccess.memory;
+
+import edu.byu.cs.model.QueueItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static edu.byu.cs.dataAccess.DaoTestFixtures.queueItem;
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueMemoryDaoTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    private QueueMemoryDao dao;
+
+    @BeforeEach
+    void setUp() {
+        dao = new QueueMemoryDao();
+        dao.add(queueItem("alice", 0, QueueItem.Priority.STANDARD));
+        dao.add(queueItem("bob", 10, QueueItem.Priority.ADMIN));
+        dao.add(queueItem("carol", 20, QueueItem.Priority.STANDARD));
+    }
+
+    @Test
+    void claim__higherPriorityFirstThenOldest() {
+        assertEquals("bob", dao.claim("worker", LEASE).netId());
+        assertEquals("alice", dao.claim("worker", LEASE).netId());
+        assertEquals("carol", dao.claim("worker", LEASE).netId());
+        assertNull(dao.claim("worker", LEASE));
+    }
+
+    @Test
+    void claim__leasesToWorker() {
+        QueueItem claimed = dao.claim("worker", LEASE);
+
+        assertTrue(claimed.started());
+        assertEquals(1, claimed.attempts());
+        assertTrue(dao.renewLease(claimed.netId(), "worker", LEASE));
+        assertFalse(dao.renewLease(claimed.netId(), "otherWorker", LEASE));
+        assertEquals(0, dao.releaseExpiredLeases());
+    }
+
+    @Test
+    void claim__particularItemOnlyWhileWaiting() {
+        QueueItem claimed = dao.claim("carol", "worker", LEASE);
+
+        assertEquals("carol", claimed.netId());
+        assertTrue(claimed.started());
+        assertNull(dao.claim("carol", "otherWorker", LEASE));
+        assertNull(dao.claim("dave", "worker", LEASE));
+        assertEquals("bob", dao.claim("worker", LEASE).netId());
+        assertEquals(2, dao.countStarted());
+    }
+
+    @Test
+    void remove__onlyByLeaseHolder() {
+        dao.claim("worker", Duration.ofSeconds(-1));
+        dao.releaseExpiredLeases();
+        dao.claim("otherWorker", LEASE);
+
+        assertFalse(dao.remove("bob", "worker"));
+        assertTrue(dao.isAlreadyInQueue("bob"));
+        assertTrue(dao.remove("bob", "otherWorker"));
+        assertFalse(dao.isAlreadyInQueue("bob"));
+    }
+
+    @Test
+    void releaseExpiredLeases__retriesAheadOfStandardItems() {
+        dao.claim("worker", LEASE);
+        QueueItem expiring = dao.claim("worker", Duration.ofSeconds(-1));
+
+        assertEquals(1, dao.releaseExpiredLeases());
+        assertFalse(dao.renewLease(expiring.netId(), "worker", LEASE));
+
+        QueueItem retried = dao.claim("otherWorker", LEASE);
+        assertEquals(expiring.netId(), retried.netId());
+        assertEquals(QueueItem.Priority.RETRY, retried.priority());
+        assertEquals(2, retried.attempts());
+    }
+}
@@ -0,0 +1,97 @@
+package edu.byu.cs.dataAccess.memory;
+
+import edu.byu.cs.dataAccess.DataAccessException;
+import edu.byu.cs.dataAccess.ItemNotFoundException;
+import edu.byu.cs.dataAccess.SubmissionDao;
+import edu.byu.cs.model.Phase;
+import edu.byu.cs.model.Submission;
+import edu.byu.cs.model.SubmissionSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static edu.byu.cs.dataAccess.DaoTestFixtures.START;
+import static edu.byu.cs.dataAccess.DaoTestFixtures.submission;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubmissionMemoryDaoTest {
+
+    private SubmissionMemoryDao dao;
+
+    @BeforeEach
+    void setUp() {
+        dao = new SubmissionMemoryDao();
+        dao.insertSubmission(submission("alice", Phase.Phase0, 0));
+        dao.insertSubmission(submission("alice", Phase.Phase0, 10));
+        dao.insertSubmission(submission("alice", Phase.Phase1, 10));
+        dao.insertSubmission(submission("bob", Phase.Phase0, 5));
+        dao.insertSubmission(submission("carol", Phase.Phase0, 20));
+    }
+
+    @Test
+    void getLatestSubmissionSummaries__newestFirst() throws DataAccessException {
+        List<SubmissionSummary> summaries = dao.getLatestSubmissionSummaries(null, 10);
+
+        assertEquals(List.of("carol Phase0", "alice Phase1", "alice Phase0", "bob Phase0"), describe(summaries));
+        assertEquals(START.plusSeconds(10), summaries.get(2).timestamp());
+    }
+
+    @Test
+    void getLatestSubmissionSummaries__pagesContinueAfterCursor() throws DataAccessException {
+        List<SubmissionSummary> firstPage = dao.getLatestSubmissionSummaries(null, 2);
+        List<SubmissionSummary> secondPage =
+                dao.getLatestSubmissionSummaries(SubmissionDao.LatestSubmissionCursor.of(firstPage.getLast()), 2);
+        List<SubmissionSummary> lastPage =
+                dao.getLatestSubmissionSummaries(SubmissionDao.LatestSubmissionCursor.of(secondPage.getLast()), 2);
+
+        assertEquals(List.of("carol Phase0", "alice Phase1"), describe(firstPage));
+        assertEquals(List.of("alice Phase0", "bob Phase0"), describe(secondPage));
+        assertTrue(lastPage.isEmpty());
+    }
+
+    @Test
+    void getSubmission__findsExactSubmission() throws DataAccessException {
+        Submission submission = dao.getSubmission("alice", Phase.Phase0, START);
+
+        assertNotNull(submission);
+        assertEquals(START, submission.timestamp());
+        assertNull(dao.getSubmission("alice", Phase.Phase0, START.plusSeconds(1)));
+    }
+
+    @Test
+    void getBestAndFirstPassingSubmission__ignoreFailingSubmissions() throws DataAccessException {
+        dao.insertSubmission(submission("dave", Phase.Phase0, 0, false, 0.9f));
+        dao.insertSubmission(submission("dave", Phase.Phase0, 10, true, 0.5f));
+        dao.insertSubmission(submission("dave", Phase.Phase0, 20, true, 0.8f));
+
+        assertEquals(START.plusSeconds(10), dao.getFirstPassingSubmission("dave", Phase.Phase0).timestamp());
+        assertEquals(START.plusSeconds(20), dao.getBestSubmissionForPhase("dave", Phase.Phase0).timestamp());
+        assertEquals(START.plusSeconds(20), dao.getLastSubmissionForUser("dave").timestamp());
+    }
+
+    @Test
+    void removeSubmissionsByNetId__removesFromLatest() throws DataAccessException {
+        dao.removeSubmissionsByNetId("alice", -1);
+
+        assertTrue(dao.getSubmissionsForUser("alice").isEmpty());
+        assertNull(dao.getLatestSubmissionForPhase("alice", Phase.Phase0));
+        assertEquals(List.of("carol Phase0", "bob Phase0"), describe(dao.getLatestSubmissionSummaries(null, 10)));
+    }
+
+    @Test
+    void manuallyApproveSubmissions__missingSubmissionApprovesNone() {
+        Submission.ScoreVerification verification =
+                new Submission.ScoreVerification(1f, "admin", START.plusSeconds(60), 10);
+        List<SubmissionDao.ManualApproval> approvals = List.of(
+                new SubmissionDao.ManualApproval(submission("bob", Phase.Phase0, 5), 0.9f, verification),
+                new SubmissionDao.ManualApproval(submission("dave", Phase.Phase0, 5), 0.9f, verification));
+
+        assertThrows(ItemNotFoundException.class, () -> dao.manuallyApproveSubmissions(approvals));
+        assertNull(dao.getLastSubmissionForUser("bob").verifiedStatus());
+    }
+
+    private static List<String> describe(List<SubmissionSummary> summaries) {
+        return summaries.stream().map(summary -> summary.netId() + " " + summary.phase()).toList();
+    }
+}
@@ -0,0 +1,65 @@
+package edu.byu.cs.dataAccess.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    private final AtomicInteger opened = new AtomicInteger();
+
+    @Test
+    void getConnection__reusesClosedConnections() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::fakeConnection, 2, 100);
+
+        pool.getConnection().close();
+        pool.getConnection().close();
+
+        assertEquals(1, opened.get());
+        ConnectionPool.Metrics metrics = pool.metrics();
+        assertEquals(2, metrics.borrows());
+        assertEquals(0, metrics.active());
+        assertEquals(1, metrics.idle());
+    }
+
+    @Test
+    void getConnection__timesOutWhenFull() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::fakeConnection, 1, 50);
+
+        Connection held = pool.getConnection();
+        assertThrows(SQLException.class, pool::getConnection);
+
+        held.close();
+        assertNotNull(pool.getConnection());
+    }
+
+    @Test
+    void close__closedConnectionRejectsUse() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::fakeConnection, 1, 50);
+
+        Connection connection = pool.getConnection();
+        connection.close();
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+        assertEquals(0, pool.metrics().active());
+    }
+
+    private Connection fakeConnection() {
+        opened.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "isClosed" -> false;
+                    case "isValid", "getAutoCommit" -> true;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
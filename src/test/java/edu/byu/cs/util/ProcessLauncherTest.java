@@ -0,0 +1,66 @@
+package edu.byu.cs.util;
+
+import edu.byu.cs.model.ResourceUsage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessLauncherTest {
+
+    private static final ProcessLauncher.ResourceLimits LIMITS = new ProcessLauncher.ResourceLimits(256, 2, 64);
+
+    @Test
+    void prepare__addsJvmOptionsToJava() {
+        ProcessBuilder processBuilder = new ProcessBuilder("java", "-jar", "junit.jar");
+        new ProcessLauncher(LIMITS).prepare(processBuilder);
+
+        List<String> command = processBuilder.command();
+        int java = command.indexOf("java");
+        assertEquals(List.of("java", "-Xmx256m", "-XX:ActiveProcessorCount=2", "-jar", "junit.jar"),
+                command.subList(java, command.size()));
+    }
+
+    @Test
+    void prepare__addsJvmOptionsToMaven() {
+        ProcessBuilder processBuilder = new ProcessBuilder("mvn", "package");
+        processBuilder.environment().put("MAVEN_OPTS", "-Dfoo=bar");
+        new ProcessLauncher(LIMITS).prepare(processBuilder);
+
+        assertEquals("-Dfoo=bar -Xmx256m -XX:ActiveProcessorCount=2", processBuilder.environment().get("MAVEN_OPTS"));
+        assertTrue(processBuilder.command().contains("mvn"));
+    }
+
+    @Test
+    void prepare__unlimitedLeavesCommandAlone() {
+        ProcessBuilder processBuilder = new ProcessBuilder("java", "-jar", "junit.jar");
+        ProcessLauncher.UNLIMITED.prepare(processBuilder);
+
+        assertEquals(List.of("java", "-jar", "junit.jar"), processBuilder.command());
+    }
+
+    @Test
+    void runProcess__recordsUsage() throws ProcessUtils.ProcessException {
+        ProcessLauncher launcher = new ProcessLauncher(LIMITS);
+        ProcessUtils.ProcessOutput output =
+                ProcessUtils.runProcess(new ProcessBuilder("sh", "-c", "sleep 0.6; echo done"), null, launcher);
+
+        assertEquals("done\n", output.stdOut());
+        List<ResourceUsage> usage = launcher.usage();
+        assertEquals(List.of(output.usage()), usage);
+        assertEquals("ProcessLauncherTest.runProcess__recordsUsage", usage.getFirst().process());
+        assertTrue(usage.getFirst().wallMillis() >= 500);
+    }
+
+    @Test
+    void runProcess__stopsProcessesUsingTooManyThreads() {
+        ProcessLauncher launcher = new ProcessLauncher(new ProcessLauncher.ResourceLimits(256, 2, 2));
+        ProcessBuilder processBuilder = new ProcessBuilder("sh", "-c", "sleep 5 & sleep 5 & sleep 5 & wait");
+
+        ProcessUtils.ProcessException e = assertThrows(ProcessUtils.ProcessException.class,
+                () -> ProcessUtils.runProcess(processBuilder, null, launcher));
+        assertTrue(e.getMessage().contains("threads"));
+        assertTrue(launcher.usage().getFirst().peakThreads() > 2);
+    }
+}
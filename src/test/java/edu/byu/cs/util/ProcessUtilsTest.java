@@ -2,6 +2,9 @@ package edu.byu.cs.util;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ProcessUtilsTest {
@@ -137,4 +140,82 @@ class ProcessUtilsTest {
         assertEquals("", processOutput.stdErr());
         assertEquals(1, processOutput.statusCode());
     }
+
+    @Test
+    void runProcess__boundedOutput() {
+        ProcessBuilder processBuilder = new ProcessBuilder("bash", "-c", "for i in {1..100000}; do echo line$i; done");
+        long timeout = 15000;
+        List<String> lines = new ArrayList<>();
+        ProcessUtils.OutputCapture capture = ProcessUtils.OutputCapture.bounded(20, 20).withStdOutListener(lines::add);
+
+        ProcessUtils.ProcessOutput processOutput = null;
+        try {
+            processOutput = ProcessUtils.runProcess(processBuilder, timeout, capture);
+        } catch (ProcessUtils.ProcessException e) {
+            fail("Process failed to run", e);
+        }
+
+        assertNotNull(processOutput);
+        assertTrue(processOutput.stdOut().startsWith("line1\nline2\nline3\n"), processOutput.stdOut());
+        assertTrue(processOutput.stdOut().contains("bytes of output truncated"), processOutput.stdOut());
+        assertTrue(processOutput.stdOut().endsWith("truncated ...]\nline100000\n"), processOutput.stdOut());
+        assertTrue(processOutput.stdOut().length() < 200);
+        assertEquals(100000, lines.size());
+        assertEquals("line100000", lines.getLast());
+    }
+
+    @Test
+    void runProcess__boundedOutputKeepsCharactersWhole() {
+        ProcessBuilder processBuilder = new ProcessBuilder("bash", "-c",
+                // é€😀, escaped so that the command doesn't depend on the locale
+                "for i in {1..1000}; do printf '\\303\\251\\342\\202\\254\\360\\237\\230\\200'; done");
+        long timeout = 15000;
+
+        ProcessUtils.ProcessOutput processOutput = null;
+        try {
+            processOutput = ProcessUtils.runProcess(processBuilder, timeout, ProcessUtils.OutputCapture.bounded(21, 21));
+        } catch (ProcessUtils.ProcessException e) {
+            fail("Process failed to run", e);
+        }
+
+        assertNotNull(processOutput);
+        assertFalse(processOutput.stdOut().contains("\uFFFD"), processOutput.stdOut());
+        assertTrue(processOutput.stdOut().startsWith("é€😀é€😀é"), processOutput.stdOut());
+        assertTrue(processOutput.stdOut().contains("bytes of output truncated"), processOutput.stdOut());
+    }
+
+    @Test
+    void runProcess__boundedOutputFits() {
+        ProcessBuilder processBuilder = new ProcessBuilder("printf", "first\\r\\nsecond");
+        long timeout = 1000;
+
+        ProcessUtils.ProcessOutput processOutput = null;
+        try {
+            processOutput = ProcessUtils.runProcess(processBuilder, timeout, ProcessUtils.OutputCapture.bounded(4, 64));
+        } catch (ProcessUtils.ProcessException e) {
+            fail("Process failed to run", e);
+        }
+
+        assertNotNull(processOutput);
+        assertEquals("first\nsecond\n", processOutput.stdOut());
+    }
+
+    @Test
+    void runProcess__recordsMetrics() {
+        ProcessBuilder processBuilder = new ProcessBuilder("bash", "-c", "echo hello; exit 3");
+        long timeout = 1000;
+
+        try {
+            ProcessUtils.runProcess(processBuilder, timeout, ProcessUtils.OutputCapture.UNBOUNDED);
+        } catch (ProcessUtils.ProcessException e) {
+            fail("Process failed to run", e);
+        }
+
+        ProcessMetrics.Summary summary = ProcessMetrics.snapshot().get("ProcessUtilsTest.runProcess__recordsMetrics");
+        assertNotNull(summary);
+        assertEquals(1, summary.runs());
+        assertEquals(1, summary.failures());
+        assertEquals(3, summary.lastExitCode());
+        assertEquals(6, summary.bytesRead());
+    }
 }